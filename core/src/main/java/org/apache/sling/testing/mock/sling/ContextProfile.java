@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * Collects the time spent in the different phases of setting up and tearing down a Sling context.
+ * Phases that are executed multiple times within one test run are summed up.
+ * The profile has to be bound to the current thread to record phases executed by the mock implementations.
+ */
+@ProviderType
+public final class ContextProfile {
+
+    /**
+     * Phases of setting up and tearing down a Sling context.
+     */
+    public enum Phase {
+
+        /**
+         * Complete setup of the context.
+         */
+        SET_UP,
+
+        /**
+         * Creating the resource resolver type adapter.
+         */
+        RESOURCE_RESOLVER_TYPE_ADAPTER,
+
+        /**
+         * Creating the Sling repository, either from scratch or from a snapshot.
+         */
+        SLING_REPOSITORY,
+
+        /**
+         * Registering JCR node types found in classpath.
+         */
+        REGISTER_JCR_NODE_TYPES,
+
+        /**
+         * Initializing the JCR resource provider.
+         */
+        INITIALIZE_JCR_RESOURCE_PROVIDER,
+
+        /**
+         * Activating the resource resolver factory activator and waiting for the resource resolver factory.
+         */
+        RESOURCE_RESOLVER_FACTORY_ACTIVATOR,
+
+        /**
+         * Registering the default services.
+         */
+        REGISTER_DEFAULT_SERVICES,
+
+        /**
+         * Registering Sling Models found in classpath (part of {@link #REGISTER_DEFAULT_SERVICES}).
+         */
+        REGISTER_MODELS_FROM_CLASSPATH,
+
+        /**
+         * Complete teardown of the context.
+         */
+        TEAR_DOWN,
+
+        /**
+         * Reverting pending changes in resource resolver and JCR session.
+         */
+        REVERT_RESOURCE_RESOLVER,
+
+        /**
+         * Removing unique root resources.
+         */
+        UNIQUE_ROOT_CLEANUP
+    }
+
+    private static final ThreadLocal<ContextProfile> CURRENT = new ThreadLocal<>();
+
+    private final Map<Phase, Long> durationNanos = new EnumMap<>(Phase.class);
+
+    /**
+     * Adds the time spent in a phase.
+     * @param phase Phase
+     * @param nanos Duration in nanoseconds
+     */
+    public synchronized void add(@NotNull Phase phase, long nanos) {
+        durationNanos.merge(phase, nanos, Long::sum);
+    }
+
+    /**
+     * @param phase Phase
+     * @return Time spent in the phase, zero if the phase was not executed
+     */
+    public synchronized @NotNull Duration getDuration(@NotNull Phase phase) {
+        return Duration.ofNanos(durationNanos.getOrDefault(phase, 0L));
+    }
+
+    /**
+     * @return Time spent in all phases that were executed, in order of the phases
+     */
+    public synchronized @NotNull Map<Phase, Duration> getDurations() {
+        Map<Phase, Duration> durations = new EnumMap<>(Phase.class);
+        durationNanos.forEach((phase, nanos) -> durations.put(phase, Duration.ofNanos(nanos)));
+        return Collections.unmodifiableMap(durations);
+    }
+
+    /**
+     * Removes all recorded phases.
+     */
+    public synchronized void reset() {
+        durationNanos.clear();
+    }
+
+    /**
+     * Binds this profile to the current thread, so phases recorded via {@link #record(Phase, long)} are added to it.
+     */
+    public void bindToCurrentThread() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * Removes the profile bound to the current thread.
+     */
+    public static void unbindFromCurrentThread() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return Profile bound to the current thread, or null if none is bound
+     */
+    public static @Nullable ContextProfile current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Adds the time elapsed since the given start time to the profile bound to the current thread.
+     * Does nothing if no profile is bound.
+     * @param phase Phase
+     * @param startNanos Start time as returned by {@link System#nanoTime()}
+     */
+    public static void record(@NotNull Phase phase, long startNanos) {
+        ContextProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.add(phase, System.nanoTime() - startNanos);
+        }
+    }
+}
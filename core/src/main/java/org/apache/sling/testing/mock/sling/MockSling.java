@@ -18,11 +18,16 @@
  */
 package org.apache.sling.testing.mock.sling;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.TreeMap;
 
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.sling.api.SlingJakartaHttpServletRequest;
 import org.apache.sling.api.SlingJakartaHttpServletResponse;
 import org.apache.sling.api.adapter.SlingAdaptable;
@@ -31,12 +36,18 @@ import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.apache.sling.api.scripting.SlingScriptHelper;
 import org.apache.sling.jcr.api.SlingRepository;
+import org.apache.sling.testing.mock.sling.ContextProfile.Phase;
+import org.apache.sling.testing.mock.sling.internal.RepositorySnapshotSupport;
 import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletRequest;
 import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletResponse;
 import org.apache.sling.testing.mock.sling.spi.ResourceResolverTypeAdapter;
 import org.jetbrains.annotations.NotNull;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
+import org.osgi.service.cm.Configuration;
+import org.osgi.service.cm.ConfigurationAdmin;
 
 /**
  * Factory for mock Sling objects.
@@ -52,8 +63,17 @@ public final class MockSling {
     private static final ThreadsafeMockAdapterManagerWrapper ADAPTER_MANAGER =
             new ThreadsafeMockAdapterManagerWrapper();
 
-    private static final ConcurrentMap<Class<? extends ResourceResolverTypeAdapter>, Object> SNAPSHOTS =
-            new ConcurrentHashMap<>();
+    private static final String SYSTEM_PROPERTY_REPOSITORY_SNAPSHOT_CACHE_SIZE_MB =
+            "sling.mock.repository.snapshot.cache.size.mb";
+
+    private static final String RESOURCERESOLVERFACTORYACTIVATOR_PID =
+            "org.apache.sling.jcr.resource.internal.JcrResourceResolverFactoryImpl";
+
+    private static final SnapshotCache<RepositorySnapshotKey, Object> SNAPSHOTS = new SnapshotCache<>(
+            "repository snapshots",
+            NumberUtils.toLong(System.getProperty(SYSTEM_PROPERTY_REPOSITORY_SNAPSHOT_CACHE_SIZE_MB), 256L)
+                    * 1024L
+                    * 1024L);
 
     static {
         // register mocked adapter manager
@@ -91,7 +111,9 @@ public final class MockSling {
                     "A ResourceResolverFactory is already registered in this BundleContext - please get the existing service instance.");
         }
 
+        long startTime = System.nanoTime();
         ResourceResolverTypeAdapter adapter = getResourceResolverTypeAdapter(type, bundleContext);
+        ContextProfile.record(Phase.RESOURCE_RESOLVER_TYPE_ADAPTER, startTime);
         ResourceResolverFactory factory = adapter.newResourceResolverFactory();
         if (factory == null) {
             factory = buildFactoryFromRepository(type.getNodeTypeMode(), bundleContext, adapter);
@@ -104,25 +126,123 @@ public final class MockSling {
     @NotNull
     static ResourceResolverFactory buildFactoryFromRepository(
             @NotNull NodeTypeMode mode, @NotNull BundleContext bundleContext, ResourceResolverTypeAdapter adapter) {
+        return buildFactoryFromRepository(mode, bundleContext, adapter, SNAPSHOTS);
+    }
+
+    @NotNull
+    static ResourceResolverFactory buildFactoryFromRepository(
+            @NotNull NodeTypeMode mode,
+            @NotNull BundleContext bundleContext,
+            ResourceResolverTypeAdapter adapter,
+            @NotNull SnapshotCache<RepositorySnapshotKey, Object> snapshots) {
         ResourceResolverFactory factory;
-        Object existingSnapshot = SNAPSHOTS.get(adapter.getClass());
+        RepositorySnapshotKey snapshotKey = new RepositorySnapshotKey(
+                adapter.getClass(),
+                mode,
+                mode != NodeTypeMode.NOT_SUPPORTED
+                        ? NodeTypeDefinitionScanner.get().getFingerprint()
+                        : "",
+                getConfigurationFingerprint(bundleContext, RESOURCERESOLVERFACTORYACTIVATOR_PID));
+        Object existingSnapshot = snapshots.get(snapshotKey);
+        if (existingSnapshot == null) {
+            // snapshot file may be written by another JVM
+            existingSnapshot = RepositorySnapshotFiles.read(adapter, snapshotKey.toString());
+            if (existingSnapshot != null) {
+                snapshots.put(snapshotKey, existingSnapshot, estimateSnapshotSize(adapter, existingSnapshot));
+            }
+        }
         SlingRepository repository;
+        long startTime = System.nanoTime();
         if (existingSnapshot == null) {
             repository = adapter.newSlingRepository();
         } else {
             repository = adapter.newSlingRepositoryFromSnapshot(existingSnapshot);
         }
+        ContextProfile.record(Phase.SLING_REPOSITORY, startTime);
         factory = ResourceResolverFactoryInitializer.setUp(
                 repository, bundleContext, existingSnapshot == null ? mode : NodeTypeMode.NOT_SUPPORTED);
         if (existingSnapshot == null) {
             Object newSnapshot = adapter.snapshot(repository);
             if (newSnapshot != null) {
-                SNAPSHOTS.putIfAbsent(adapter.getClass(), newSnapshot);
+                snapshots.put(snapshotKey, newSnapshot, estimateSnapshotSize(adapter, newSnapshot));
+                RepositorySnapshotFiles.write(adapter, snapshotKey.toString(), newSnapshot);
             }
         }
         return factory;
     }
 
+    private static long estimateSnapshotSize(@NotNull ResourceResolverTypeAdapter adapter, @NotNull Object snapshot) {
+        if (adapter instanceof RepositorySnapshotSupport snapshotSupport) {
+            return snapshotSupport.estimateSnapshotSize(snapshot);
+        }
+        return RepositorySnapshotSupport.DEFAULT_SNAPSHOT_SIZE;
+    }
+
+    /**
+     * Gets the OSGi configuration for the given PID in a normalized string form, so it can be part of a snapshot key.
+     * @param bundleContext Bundle context
+     * @param pid Configuration PID
+     * @return Configuration properties sorted by key, or empty string if no configuration exists
+     */
+    private static @NotNull String getConfigurationFingerprint(
+            @NotNull BundleContext bundleContext, @NotNull String pid) {
+        ServiceReference<ConfigurationAdmin> configAdminReference =
+                bundleContext.getServiceReference(ConfigurationAdmin.class);
+        if (configAdminReference == null) {
+            return "";
+        }
+        try {
+            ConfigurationAdmin configAdmin = bundleContext.getService(configAdminReference);
+            // getConfiguration(pid) would create an empty configuration as side effect
+            Configuration[] configs = configAdmin != null
+                    ? configAdmin.listConfigurations("(" + Constants.SERVICE_PID + "=" + pid + ")")
+                    : null;
+            Dictionary<String, Object> properties =
+                    configs != null && configs.length > 0 ? configs[0].getProperties() : null;
+            if (properties == null) {
+                return "";
+            }
+            Map<String, String> sortedProperties = new TreeMap<>();
+            Enumeration<String> keys = properties.keys();
+            while (keys.hasMoreElements()) {
+                String key = keys.nextElement();
+                sortedProperties.put(key, Arrays.deepToString(new Object[] {properties.get(key)}));
+            }
+            return sortedProperties.toString();
+        } catch (IOException | InvalidSyntaxException ex) {
+            throw new RuntimeException("Unable to read configuration: " + pid, ex);
+        } finally {
+            bundleContext.ungetService(configAdminReference);
+        }
+    }
+
+    /**
+     * Cache with the repository snapshots taken by {@link ResourceResolverTypeAdapter#snapshot(SlingRepository)},
+     * shared by all contexts in the JVM. Snapshots are kept for each combination of adapter, node type mode, node
+     * type definitions found in classpath and resource resolver factory configuration. The maximum memory size can
+     * be set with the system property <code>sling.mock.repository.snapshot.cache.size.mb</code> (default: 256), the
+     * least recently used snapshots are evicted if it is exceeded.
+     * <p>
+     * If supported by the adapter, snapshots are also written to files in <code>target/sling-mock-snapshots</code>,
+     * so other JVMs can start from them. The directory can be changed with the system property
+     * <code>sling.mock.repository.snapshot.dir</code>, an empty value disables snapshot files.
+     * </p>
+     * @return Snapshot cache
+     */
+    public static @NotNull SnapshotCache<?, ?> repositorySnapshotCache() {
+        return SNAPSHOTS;
+    }
+
+    /**
+     * Everything that influences the repository state captured in a snapshot. The string representation is
+     * used to name snapshot files, so it must not contain anything specific to the current JVM.
+     */
+    record RepositorySnapshotKey(
+            @NotNull Class<? extends ResourceResolverTypeAdapter> adapterClass,
+            @NotNull NodeTypeMode nodeTypeMode,
+            @NotNull String nodeTypeFingerprint,
+            @NotNull String configurationFingerprint) {}
+
     @SuppressWarnings("unchecked")
     private static ResourceResolverTypeAdapter getResourceResolverTypeAdapter(
             final ResourceResolverType type, @NotNull final BundleContext bundleContext) {
@@ -34,13 +34,22 @@ import javax.jcr.nodetype.NodeTypeTemplate;
 import javax.jcr.nodetype.PropertyDefinition;
 import javax.jcr.nodetype.PropertyDefinitionTemplate;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.jackrabbit.commons.cnd.CompactNodeTypeDefReader;
 import org.apache.jackrabbit.commons.cnd.DefinitionBuilderFactory;
@@ -61,6 +70,8 @@ public final class NodeTypeDefinitionScanner {
     private static final Logger log = LoggerFactory.getLogger(NodeTypeDefinitionScanner.class);
 
     private final List<String> nodeTypeDefinitions;
+    private final ConcurrentMap<String, Optional<String>> nodeTypeDefinitionContents = new ConcurrentHashMap<>();
+    private volatile String fingerprint;
 
     private NodeTypeDefinitionScanner() {
         nodeTypeDefinitions = findeNodeTypeDefinitions();
@@ -73,6 +84,48 @@ public final class NodeTypeDefinitionScanner {
         return nodeTypeDefinitions;
     }
 
+    /**
+     * Reads all node type definitions found in classpath into memory, so registering them to a JCR repository
+     * does not have to access the classpath again.
+     */
+    public void preload() {
+        for (String nodeTypeResource : getNodeTypeDefinitions()) {
+            getNodeTypeDefinitionContent(nodeTypeResource);
+        }
+    }
+
+    /**
+     * Fingerprint of all node type definitions found in classpath, including their content.
+     * Repositories with the node types registered from classpath can be shared if the fingerprint matches.
+     * @return Hex-encoded SHA-256 hash
+     */
+    public String getFingerprint() {
+        String result = fingerprint;
+        if (result == null) {
+            result = calculateFingerprint();
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    private String calculateFingerprint() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String nodeTypeResource : getNodeTypeDefinitions()) {
+                digest.update(nodeTypeResource.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                String content = getNodeTypeDefinitionContent(nodeTypeResource);
+                if (content != null) {
+                    digest.update(content.getBytes(StandardCharsets.UTF_8));
+                }
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not supported.", ex);
+        }
+    }
+
     /**
      * Registers node types found in classpath in JCR repository.
      * @param session Session
@@ -114,7 +167,6 @@ public final class NodeTypeDefinitionScanner {
      * @param nodeTypeResources List of classpath resource URLs pointing to node type definitions
      */
     private void registerNamespaces(Session session, List<String> nodeTypeResources) throws RepositoryException {
-        ClassLoader classLoader = getClass().getClassLoader();
         Workspace workspace = session.getWorkspace();
         NamespaceRegistry namespaceRegistry = workspace.getNamespaceRegistry();
         ValueFactory valueFactory = session.getValueFactory();
@@ -123,11 +175,11 @@ public final class NodeTypeDefinitionScanner {
                 new TemplateBuilderFactory(new DummyNodeTypeManager(), valueFactory, namespaceRegistry);
 
         for (String nodeTypeResource : nodeTypeResources) {
-            try (InputStream is = classLoader.getResourceAsStream(nodeTypeResource)) {
-                if (is == null) {
-                    continue;
-                }
-                Reader reader = new InputStreamReader(is);
+            String content = getNodeTypeDefinitionContent(nodeTypeResource);
+            if (content == null) {
+                continue;
+            }
+            try (Reader reader = new StringReader(content)) {
                 CompactNodeTypeDefReader<NodeTypeTemplate, NamespaceRegistry> cndReader =
                         new CompactNodeTypeDefReader<>(reader, nodeTypeResource, factory);
                 NamespaceRegistry mapping = cndReader.getNamespaceMapping();
@@ -152,7 +204,6 @@ public final class NodeTypeDefinitionScanner {
      * @param nodeTypeResources List of classpath resource URLs pointing to node type definitions
      */
     private void registerNodeTypes(Session session, List<String> nodeTypeResources) throws RepositoryException {
-        ClassLoader classLoader = getClass().getClassLoader();
         Workspace workspace = session.getWorkspace();
         NodeTypeManager nodeTypeManager = workspace.getNodeTypeManager();
         NamespaceRegistry namespaceRegistry = workspace.getNamespaceRegistry();
@@ -162,7 +213,7 @@ public final class NodeTypeDefinitionScanner {
 
         Map<String, NodeTypeTemplate> nodeTypes = new HashMap<>();
         for (String resource : nodeTypeResources) {
-            nodeTypes.putAll(parseNodeTypesFromResource(resource, classLoader, factory));
+            nodeTypes.putAll(parseNodeTypesFromResource(resource, factory));
         }
 
         nodeTypeManager.registerNodeTypes(nodeTypes.values().toArray(new NodeTypeTemplate[0]), true);
@@ -171,20 +222,18 @@ public final class NodeTypeDefinitionScanner {
     /**
      * Parses a CND file present on the classpath and returns the node types found within.
      * @param resource The resource name.
-     * @param classLoader The classloader to load resources with.
      * @param factory The factory to build node type definitions with.
      * @return A mapping from node type names to node type definitions.
      */
     private Map<String, NodeTypeTemplate> parseNodeTypesFromResource(
-            String resource,
-            ClassLoader classLoader,
-            DefinitionBuilderFactory<NodeTypeTemplate, NamespaceRegistry> factory) {
-        try (InputStream is = classLoader.getResourceAsStream(resource)) {
-            if (is == null) {
-                return Map.of();
-            }
+            String resource, DefinitionBuilderFactory<NodeTypeTemplate, NamespaceRegistry> factory) {
+        String content = getNodeTypeDefinitionContent(resource);
+        if (content == null) {
+            return Map.of();
+        }
+        try (Reader reader = new StringReader(content)) {
             CompactNodeTypeDefReader<NodeTypeTemplate, NamespaceRegistry> cndReader =
-                    new CompactNodeTypeDefReader<>(new InputStreamReader(is), resource, factory);
+                    new CompactNodeTypeDefReader<>(reader, resource, factory);
             Map<String, NodeTypeTemplate> result = new HashMap<>();
             for (NodeTypeTemplate template : cndReader.getNodeTypeDefinitions()) {
                 result.put(template.getName(), template);
@@ -196,6 +245,29 @@ public final class NodeTypeDefinitionScanner {
         }
     }
 
+    /**
+     * Get content of node type definition from classpath, and cache it for further calls.
+     * @param resource The resource name.
+     * @return Node type definition, or null if the resource does not exist or cannot be read
+     */
+    private String getNodeTypeDefinitionContent(String resource) {
+        return nodeTypeDefinitionContents
+                .computeIfAbsent(resource, NodeTypeDefinitionScanner::readNodeTypeDefinition)
+                .orElse(null);
+    }
+
+    private static Optional<String> readNodeTypeDefinition(String resource) {
+        try (InputStream is = NodeTypeDefinitionScanner.class.getClassLoader().getResourceAsStream(resource)) {
+            if (is == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new String(is.readAllBytes(), Charset.defaultCharset()));
+        } catch (IOException ex) {
+            log.warn("Unable to read node type definition: " + resource, ex);
+            return Optional.empty();
+        }
+    }
+
     /**
      * Find all node type definition classpath paths by searching all MANIFEST.MF files in the classpath and reading
      * the paths from the "Sling-Nodetypes" entry.
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.testing.mock.sling.internal.RepositorySnapshotSupport;
+import org.apache.sling.testing.mock.sling.spi.ResourceResolverTypeAdapter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores repository snapshots in files, so JVMs forked for the same module (e.g. by Maven Surefire) can start
+ * from a repository snapshot taken by another JVM.
+ * <p>
+ * The directory is set with the system property <code>sling.mock.repository.snapshot.dir</code>. If it is not set,
+ * <code>target/sling-mock-snapshots</code> is used if the working directory contains a <code>target</code>
+ * directory. Set it to an empty value to disable snapshot files.
+ * </p>
+ * <p>
+ * The file name includes the version of the library containing the adapter and the version of the file format, so
+ * files written by another version of the adapter (e.g. after a dependency update) are never read.
+ * </p>
+ */
+final class RepositorySnapshotFiles {
+
+    static final String SYSTEM_PROPERTY_REPOSITORY_SNAPSHOT_DIR = "sling.mock.repository.snapshot.dir";
+
+    private static final String DEFAULT_DIR = "target/sling-mock-snapshots";
+    private static final String FILE_EXTENSION = ".snapshot";
+
+    /**
+     * Increase when the way snapshot files are named or written changes.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    private static final Map<Class<?>, String> LIBRARY_VERSIONS = new ConcurrentHashMap<>();
+
+    private static final Logger log = LoggerFactory.getLogger(RepositorySnapshotFiles.class);
+
+    private RepositorySnapshotFiles() {
+        // static methods only
+    }
+
+    /**
+     * Reads a snapshot file that was written by this or another JVM. The file is memory-mapped.
+     * @param adapter Resource resolver type adapter
+     * @param snapshotKey Key describing everything that influences the repository state
+     * @return Snapshot or null if no snapshot file exists or the adapter does not support snapshot files
+     */
+    static @Nullable Object read(@NotNull ResourceResolverTypeAdapter adapter, @NotNull String snapshotKey) {
+        if (!(adapter instanceof RepositorySnapshotSupport snapshotSupport)) {
+            return null;
+        }
+        Path file = getFile(adapter, snapshotKey);
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Object snapshot = snapshotSupport.readSnapshot(data);
+            log.debug("Read repository snapshot from {}: {}", file, snapshot != null);
+            return snapshot;
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Unable to read repository snapshot file {}, ignoring it.", file, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot file if it does not exist yet. The file is written to a temporary file first and then
+     * moved, so concurrent JVMs never read a partially written file.
+     * @param adapter Resource resolver type adapter
+     * @param snapshotKey Key describing everything that influences the repository state
+     * @param snapshot Snapshot
+     */
+    static void write(
+            @NotNull ResourceResolverTypeAdapter adapter, @NotNull String snapshotKey, @NotNull Object snapshot) {
+        if (!(adapter instanceof RepositorySnapshotSupport snapshotSupport)) {
+            return;
+        }
+        Path file = getFile(adapter, snapshotKey);
+        if (file == null || Files.exists(file)) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path tempFile =
+                    Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                if (snapshotSupport.writeSnapshot(snapshot, tempFile)) {
+                    Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    log.debug("Wrote repository snapshot to {}", file);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Unable to write repository snapshot file {}.", file, ex);
+        }
+    }
+
+    /**
+     * @param adapter Resource resolver type adapter
+     * @param snapshotKey Key describing everything that influences the repository state
+     * @return Snapshot file or null if snapshot files are disabled
+     */
+    static @Nullable Path getFile(@NotNull ResourceResolverTypeAdapter adapter, @NotNull String snapshotKey) {
+        Path dir = getDirectory();
+        if (dir == null) {
+            return null;
+        }
+        String fileKey =
+                "format=" + FORMAT_VERSION + ",library=" + getLibraryVersion(adapter.getClass()) + "," + snapshotKey;
+        return dir.resolve(hash(fileKey) + FILE_EXTENSION);
+    }
+
+    /**
+     * Gets the version of the library containing the given class. This is the <code>Implementation-Version</code>
+     * from the JAR manifest if present, otherwise a hash of the JAR file or class file the class was loaded from.
+     * @param clazz Class
+     * @return Library version
+     */
+    static @NotNull String getLibraryVersion(@NotNull Class<?> clazz) {
+        return LIBRARY_VERSIONS.computeIfAbsent(clazz, RepositorySnapshotFiles::detectLibraryVersion);
+    }
+
+    private static @NotNull String detectLibraryVersion(@NotNull Class<?> clazz) {
+        Package pkg = clazz.getPackage();
+        String implementationVersion = pkg != null ? pkg.getImplementationVersion() : null;
+        if (StringUtils.isNotBlank(implementationVersion)) {
+            return implementationVersion;
+        }
+        try {
+            CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+            URL location = codeSource != null ? codeSource.getLocation() : null;
+            if (location != null && "file".equals(location.getProtocol())) {
+                Path path = Path.of(location.toURI());
+                if (Files.isRegularFile(path)) {
+                    try (InputStream is = Files.newInputStream(path)) {
+                        return hash(is);
+                    }
+                }
+            }
+            // classes directory or unknown location: hash the class file itself
+            String classFile = "/" + clazz.getName().replace('.', '/') + ".class";
+            try (InputStream is = clazz.getResourceAsStream(classFile)) {
+                if (is != null) {
+                    return hash(is);
+                }
+            }
+        } catch (IOException | URISyntaxException | RuntimeException ex) {
+            log.debug("Unable to detect library version of {}", clazz.getName(), ex);
+        }
+        return "unknown";
+    }
+
+    private static @Nullable Path getDirectory() {
+        String dir = System.getProperty(SYSTEM_PROPERTY_REPOSITORY_SNAPSHOT_DIR);
+        if (dir == null) {
+            return Files.isDirectory(Path.of("target")) ? Path.of(DEFAULT_DIR) : null;
+        }
+        return StringUtils.isBlank(dir) ? null : Path.of(dir);
+    }
+
+    private static @NotNull String hash(@NotNull String value) {
+        return HexFormat.of().formatHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static @NotNull String hash(@NotNull InputStream is) throws IOException {
+        MessageDigest digest = newDigest();
+        try (DigestInputStream digestStream = new DigestInputStream(is, digest)) {
+            digestStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static @NotNull MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not supported.", ex);
+        }
+    }
+}
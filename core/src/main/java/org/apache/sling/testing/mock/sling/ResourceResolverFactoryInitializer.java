@@ -22,11 +22,13 @@ import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Proxy;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.apache.sling.commons.classloader.DynamicClassLoaderManager;
@@ -38,9 +40,14 @@ import org.apache.sling.serviceusermapping.ServiceUserMapper;
 import org.apache.sling.serviceusermapping.impl.ServiceUserMapperImpl;
 import org.apache.sling.testing.mock.osgi.MockEventAdmin;
 import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.apache.sling.testing.mock.sling.ContextProfile.Phase;
+import org.apache.sling.testing.mock.sling.internal.OptionalClassRegistry;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.event.EventAdmin;
 import org.slf4j.Logger;
@@ -82,16 +89,22 @@ class ResourceResolverFactoryInitializer {
             registerServiceIfNotPresent(bundleContext, SlingRepository.class, slingRepository);
 
             // register JCR node types found in classpath
+            long startTime = System.nanoTime();
             registerJcrNodeTypes(slingRepository, nodeTypeMode);
+            ContextProfile.record(Phase.REGISTER_JCR_NODE_TYPES, startTime);
 
             // initialize JCR resource provider
+            startTime = System.nanoTime();
             ensureJcrResourceProviderDependencies(bundleContext);
             initializeJcrResourceProvider(bundleContext);
+            ContextProfile.record(Phase.INITIALIZE_JCR_RESOURCE_PROVIDER, startTime);
         }
 
         // initialize resource resolver factory activator
+        long startTime = System.nanoTime();
         ensureResourceResolverFactoryActivatorDependencies(bundleContext);
         initializeResourceResolverFactoryActivator(bundleContext);
+        ContextProfile.record(Phase.RESOURCE_RESOLVER_FACTORY_ACTIVATOR, startTime);
 
         ServiceReference<ResourceResolverFactory> factoryRef =
                 bundleContext.getServiceReference(ResourceResolverFactory.class);
@@ -105,16 +118,17 @@ class ResourceResolverFactoryInitializer {
      * Ensure dependencies for JcrResourceProvider are present.
      * @param bundleContext Bundle context
      */
-    @SuppressWarnings("unchecked")
+    @SuppressWarnings({"unchecked", "rawtypes"})
     private static void ensureJcrResourceProviderDependencies(@NotNull BundleContext bundleContext) {
         if (bundleContext.getServiceReference(DynamicClassLoaderManager.class) == null) {
             bundleContext.registerService(DynamicClassLoaderManager.class, new MockDynamicClassLoaderManager(), null);
         }
 
-        try {
-            @SuppressWarnings("rawtypes")
-            Class pathMapperClass = Class.forName("org.apache.sling.jcr.resource.internal.helper.jcr.PathMapper");
-            Object pathMapper = pathMapperClass.getDeclaredConstructor().newInstance();
+        // service was removed in org.apache.sling.jcr.resource 3.0.0
+        Object pathMapper =
+                OptionalClassRegistry.get().newInstance("org.apache.sling.jcr.resource.internal.helper.jcr.PathMapper");
+        if (pathMapper != null) {
+            Class pathMapperClass = pathMapper.getClass();
             // eliminate logger in class to suppress deprecation warnings
             try {
                 Field pathMapperLoggerField = pathMapperClass.getDeclaredField("log");
@@ -129,14 +143,6 @@ class ResourceResolverFactoryInitializer {
                 // ignore
             }
             registerServiceIfNotPresent(bundleContext, pathMapperClass, pathMapper);
-        } catch (ClassNotFoundException
-                | InstantiationException
-                | IllegalAccessException
-                | IllegalArgumentException
-                | InvocationTargetException
-                | NoSuchMethodException
-                | SecurityException ex) {
-            // ignore - service was removed in org.apache.sling.jcr.resource 3.0.0
         }
     }
 
@@ -177,41 +183,71 @@ class ResourceResolverFactoryInitializer {
         // do not required a specific resource provider (otherwise "NONE" will not work)
         config.put("resource.resolver.required.providers", "");
         config.put("resource.resolver.required.providernames", "");
-        MockOsgi.registerInjectActivateService(ResourceResolverFactoryActivator.class, bundleContext, config);
 
         // wait until ResourceResolverFactory appears as service - since SLING-12019 this is done asynchronously
-        final long startTime = System.currentTimeMillis();
-        while (bundleContext.getServiceReference(ResourceResolverFactory.class) == null) {
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-            }
-            if (System.currentTimeMillis() - startTime > RESOURCERESOLVER_FACTORY_ACTIVATOR_TIMEOUT_MS) {
+        final long startTime = System.nanoTime();
+        ResourceResolverFactoryListener listener = new ResourceResolverFactoryListener();
+        bundleContext.addServiceListener(listener);
+        try {
+            MockOsgi.registerInjectActivateService(ResourceResolverFactoryActivator.class, bundleContext, config);
+            if (bundleContext.getServiceReference(ResourceResolverFactory.class) == null
+                    && !listener.await(RESOURCERESOLVER_FACTORY_ACTIVATOR_TIMEOUT_MS)
+                    && bundleContext.getServiceReference(ResourceResolverFactory.class) == null) {
                 throw new IllegalStateException(
                         "ResourceResolverFactoryActivator did not register a ResourceResolverFactory after "
                                 + RESOURCERESOLVER_FACTORY_ACTIVATOR_TIMEOUT_MS + "ms.");
             }
+        } finally {
+            bundleContext.removeServiceListener(listener);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "ResourceResolverFactoryActivator registered ResourceResolverFactory after {}ms, bundleContext={}",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                    bundleContext);
         }
     }
 
-    @SuppressWarnings({"unchecked", "null", "rawtypes"})
+    /**
+     * Signals the registration of the ResourceResolverFactory service, which is registered asynchronously
+     * by the ResourceResolverFactoryActivator.
+     */
+    private static final class ResourceResolverFactoryListener implements ServiceListener {
+
+        private final CountDownLatch registered = new CountDownLatch(1);
+
+        @Override
+        public void serviceChanged(ServiceEvent event) {
+            Object objectClass = event.getServiceReference().getProperty(Constants.OBJECTCLASS);
+            if (event.getType() == ServiceEvent.REGISTERED
+                    && objectClass instanceof String[] objectClassNames
+                    && ArrayUtils.contains(objectClassNames, ResourceResolverFactory.class.getName())) {
+                registered.countDown();
+            }
+        }
+
+        /**
+         * @param timeoutMs Timeout in milliseconds
+         * @return true if the service was registered within the timeout
+         */
+        boolean await(long timeoutMs) {
+            try {
+                return registered.await(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
     private static void registerServiceIfNotPresentByName(
             @NotNull BundleContext bundleContext, @NotNull String interfaceClassName, @NotNull String implClassName) {
-        try {
-            Class<?> interfaceClass = Class.forName(interfaceClassName);
-            Class<?> implClass = Class.forName(implClassName);
-            registerServiceIfNotPresent(
-                    bundleContext,
-                    (Class) interfaceClass,
-                    implClass.getDeclaredConstructor().newInstance());
-        } catch (ClassNotFoundException
-                | InstantiationException
-                | IllegalAccessException
-                | IllegalArgumentException
-                | InvocationTargetException
-                | NoSuchMethodException
-                | SecurityException ex) {
+        Class<?> interfaceClass = OptionalClassRegistry.get().getClass(interfaceClassName);
+        Object instance = interfaceClass != null ? OptionalClassRegistry.get().newInstance(implClassName) : null;
+        if (instance != null) {
+            registerServiceIfNotPresent(bundleContext, (Class) interfaceClass, instance);
+        } else {
             // ignore - probably not the latest sling models impl version
             log.debug(
                     "registerServiceIfNotPresentByName: Skip registering {} ({}), bundleContext={}",
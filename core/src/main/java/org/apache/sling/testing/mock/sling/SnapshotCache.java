@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.annotation.versioning.ProviderType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache for snapshots that are shared within the JVM, bounded by the estimated memory size of the snapshots.
+ * If the maximum size is exceeded, the least recently used snapshots are evicted - the most recently added
+ * snapshot is always kept, even if it exceeds the maximum size alone.
+ * @param <K> Key type
+ * @param <V> Snapshot type
+ */
+@ProviderType
+public final class SnapshotCache<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotCache.class);
+
+    private final @NotNull String name;
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxSize;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * @param name Cache name for logging
+     * @param maxSize Maximum estimated memory size of all snapshots in bytes
+     */
+    public SnapshotCache(@NotNull String name, long maxSize) {
+        this.name = name;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param key Key
+     * @return Snapshot or null if no snapshot was added for this key, or it was evicted
+     */
+    public synchronized @Nullable V get(@NotNull K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.value();
+    }
+
+    /**
+     * Adds a snapshot, replacing an existing snapshot with the same key.
+     * @param key Key
+     * @param value Snapshot
+     * @param estimatedSize Estimated memory size of the snapshot in bytes
+     */
+    public synchronized void put(@NotNull K key, @NotNull V value, long estimatedSize) {
+        Entry<V> previous = entries.put(key, new Entry<>(value, estimatedSize));
+        if (previous != null) {
+            size -= previous.size();
+        }
+        size += estimatedSize;
+        evict(key);
+    }
+
+    /**
+     * Removes a snapshot.
+     * @param key Key
+     */
+    public synchronized void remove(@NotNull K key) {
+        Entry<V> previous = entries.remove(key);
+        if (previous != null) {
+            size -= previous.size();
+        }
+    }
+
+    /**
+     * Removes all snapshots and resets the statistics.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+    private void evict(@NotNull K keep) {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            size -= eldest.getValue().size();
+            evictionCount++;
+            log.debug("Evicted snapshot {} from {} cache, size={}, maxSize={}", eldest.getKey(), name, size, maxSize);
+        }
+    }
+
+    /**
+     * @return Maximum estimated memory size of all snapshots in bytes
+     */
+    public synchronized long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @param maxSize Maximum estimated memory size of all snapshots in bytes
+     */
+    public synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        if (!entries.isEmpty()) {
+            K newest = null;
+            for (K key : entries.keySet()) {
+                newest = key;
+            }
+            evict(newest);
+        }
+    }
+
+    /**
+     * @return Estimated memory size of all snapshots in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * @return Number of snapshots
+     */
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return Number of lookups that returned a snapshot
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return Number of lookups that did not return a snapshot
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return Number of snapshots evicted to stay within the maximum size
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return Ratio of lookups that returned a snapshot, between 0 and 1. 0 if there was no lookup yet.
+     */
+    public synchronized double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0d : (double) hitCount / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SnapshotCache[name=" + name + ",count=" + entries.size() + ",size=" + size + ",maxSize=" + maxSize
+                + ",hitRate=" + getHitRate() + ",evictions=" + evictionCount + "]";
+    }
+
+    private record Entry<V>(@NotNull V value, long size) {}
+}
@@ -18,8 +18,11 @@
  */
 package org.apache.sling.testing.mock.sling.builder;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
@@ -46,11 +49,51 @@ public class ContentBuilder {
      */
     protected final ResourceResolver resourceResolver;
 
+    private final Map<String, Resource> existingResources;
+
     /**
      * @param resourceResolver Resource resolver
      */
     public ContentBuilder(@NotNull ResourceResolver resourceResolver) {
+        this(resourceResolver, false);
+    }
+
+    /**
+     * Creates a content builder that optionally defers all commits until {@link #commit()} is called.
+     * <p>
+     * By default, each missing parent resource is committed directly after it was created. With deferred commits,
+     * nothing is committed by the content builder itself, and all resources that were created or looked up as
+     * parents are cached by their path, so each parent is resolved only once. This speeds up building large
+     * content trees considerably. The cache is cleared on {@link #commit()} - resources should not be deleted
+     * via the resource resolver in between.
+     * </p>
+     * @param resourceResolver Resource resolver
+     * @param deferCommit If true, commits are deferred until {@link #commit()} is called.
+     */
+    public ContentBuilder(@NotNull ResourceResolver resourceResolver, boolean deferCommit) {
         this.resourceResolver = resourceResolver;
+        this.existingResources = deferCommit ? new HashMap<>() : null;
+    }
+
+    /**
+     * @return true if commits are deferred until {@link #commit()} is called.
+     */
+    public final boolean isDeferCommit() {
+        return existingResources != null;
+    }
+
+    /**
+     * Commits all pending changes of the resource resolver and clears the cache of existing resources.
+     */
+    public final void commit() {
+        if (existingResources != null) {
+            existingResources.clear();
+        }
+        try {
+            resourceResolver.commit();
+        } catch (PersistenceException ex) {
+            throw new RuntimeException("Unable to commit changes.", ex);
+        }
     }
 
     /**
@@ -99,6 +142,9 @@ public class ContentBuilder {
         } catch (PersistenceException ex) {
             throw new RuntimeException("Unable to create resource at " + path, ex);
         }
+        if (existingResources != null) {
+            existingResources.put(path, newResource);
+        }
 
         // create child resources
         for (Map.Entry<String, Map<String, Object>> entry : children.entrySet()) {
@@ -165,19 +211,122 @@ public class ContentBuilder {
         return resource(resource, name, MapUtil.toMap(properties));
     }
 
+    /**
+     * Create multiple resources in one pass. If parent resource(s) do not exist they are created
+     * automatically using <code>nt:unstructured</code> nodes.
+     * <p>
+     * The resources are created level by level, with the siblings in the order of the given map, so parent
+     * resources are always created before their children, regardless of the order of the entries. Each parent
+     * resource is resolved only once. The properties must not contain maps representing child resources - use
+     * separate entries for them instead. All changes, including missing parent resources, are committed with a
+     * single commit at the end, unless commits are deferred.
+     * </p>
+     * @param resources Map with resource paths as keys and resource properties as values
+     * @throws IllegalArgumentException if a path has no parent or properties contain maps
+     */
+    public final void resources(@NotNull Map<String, Map<String, Object>> resources) {
+        resources(resources.entrySet());
+    }
+
+    /**
+     * Create multiple resources in one pass. If parent resource(s) do not exist they are created
+     * automatically using <code>nt:unstructured</code> nodes.
+     * <p>
+     * The resources are created level by level, with the siblings in the given order, so parent resources are
+     * always created before their children, regardless of the order of the entries. Each parent resource is
+     * resolved only once. The properties must not contain maps representing child resources - use separate
+     * entries for them instead. All changes, including missing parent resources, are committed with a single
+     * commit at the end, unless commits are deferred.
+     * </p>
+     * @param resources Entries with resource path and resource properties
+     * @throws IllegalArgumentException if a path has no parent or properties contain maps
+     */
+    public final void resources(@NotNull Iterable<Map.Entry<String, Map<String, Object>>> resources) {
+        List<Map.Entry<String, Map<String, Object>>> sortedResources = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> entry : resources) {
+            // validate all entries before creating any resource
+            for (Object value : entry.getValue().values()) {
+                if (value instanceof Map) {
+                    throw new IllegalArgumentException(
+                            "Properties must not contain maps, use separate entries for child resources: "
+                                    + entry.getKey());
+                }
+            }
+            sortedResources.add(entry);
+        }
+        // stable sort keeps the order of siblings
+        sortedResources.sort(Comparator.comparingInt(entry -> StringUtils.countMatches(entry.getKey(), '/')));
+
+        // resources of the previous level, which are the parents of the resources of the current level
+        Map<String, Resource> parentResources = new HashMap<>();
+        Map<String, Resource> levelResources = new HashMap<>();
+        int level = -1;
+        for (Map.Entry<String, Map<String, Object>> entry : sortedResources) {
+            String path = entry.getKey();
+            String parentPath = ResourceUtil.getParent(path);
+            if (parentPath == null) {
+                throw new IllegalArgumentException("Path has no parent: " + path);
+            }
+            int resourceLevel = StringUtils.countMatches(path, '/');
+            if (resourceLevel != level) {
+                parentResources = resourceLevel == level + 1 ? levelResources : new HashMap<>();
+                levelResources = new HashMap<>();
+                level = resourceLevel;
+            }
+            Resource parentResource = parentResources.get(parentPath);
+            if (parentResource == null) {
+                parentResource = ensureResourceExists(parentPath, false);
+                parentResources.put(parentPath, parentResource);
+            }
+            Resource newResource;
+            try {
+                newResource = resourceResolver.create(parentResource, ResourceUtil.getName(path), entry.getValue());
+            } catch (PersistenceException ex) {
+                throw new RuntimeException("Unable to create resource at " + path, ex);
+            }
+            levelResources.put(path, newResource);
+            if (existingResources != null) {
+                existingResources.put(path, newResource);
+            }
+        }
+
+        if (existingResources == null) {
+            commit();
+        }
+    }
+
+    /**
+     * Create a generator for synthetic resource trees, e.g. for scalability tests.
+     * @return Content generator
+     */
+    public final @NotNull ContentGenerator generator() {
+        return new ContentGenerator(this);
+    }
+
     /**
      * Ensure that a resource exists at the given path. If not, it is created
-     * using <code>nt:unstructured</code> node type.
+     * using <code>nt:unstructured</code> node type, and committed unless commits are deferred.
      * @param path Resource path
      * @return Resource at path (existing or newly created)
      */
-    @SuppressWarnings("null")
     protected final @NotNull Resource ensureResourceExists(@NotNull String path) {
+        return ensureResourceExists(path, existingResources == null);
+    }
+
+    @SuppressWarnings("null")
+    private @NotNull Resource ensureResourceExists(@NotNull String path, boolean commit) {
         if (StringUtils.isEmpty(path) || Strings.CS.equals(path, "/")) {
             return resourceResolver.getResource("/");
         }
-        Resource resource = resourceResolver.getResource(path);
+        Resource resource = existingResources != null ? existingResources.get(path) : null;
+        if (resource != null) {
+            return resource;
+        }
+        resource = resourceResolver.getResource(path);
         if (resource != null) {
+            if (existingResources != null) {
+                existingResources.put(path, resource);
+            }
             return resource;
         }
         String parentPath = ResourceUtil.getParent(path);
@@ -185,13 +334,18 @@ public class ContentBuilder {
             throw new IllegalArgumentException("Path has no parent: " + path);
         }
         String name = ResourceUtil.getName(path);
-        Resource parentResource = ensureResourceExists(parentPath);
+        Resource parentResource = ensureResourceExists(parentPath, commit);
         try {
             resource = resourceResolver.create(
                     parentResource,
                     name,
                     ImmutableValueMap.of(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED));
-            resourceResolver.commit();
+            if (existingResources != null) {
+                existingResources.put(path, resource);
+            }
+            if (commit) {
+                resourceResolver.commit();
+            }
             return resource;
         } catch (PersistenceException ex) {
             throw new RuntimeException("Unable to create resource at " + path, ex);
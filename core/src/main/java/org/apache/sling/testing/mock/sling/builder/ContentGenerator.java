@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.builder;
+
+import java.io.InputStream;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TimeZone;
+
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Generates synthetic resource trees with a configurable shape for scalability tests.
+ * <p>
+ * The generated content is deterministic: the same seed and settings always produce the same tree with the same
+ * property values. Resources are streamed into the resource resolver: each resource is created directly below its
+ * parent resource without looking it up, and its properties are computed from the seed while the resource resolver
+ * reads them, so no property maps are held in memory. Changes are committed in regular intervals.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>
+ * long count = context.create().generator()
+ *     .seed(42)
+ *     .depth(3)
+ *     .fanOut(100)
+ *     .propertyCount(5)
+ *     .generate("/content/generated");
+ * </pre>
+ * <p>
+ * Resource names are <code>item-0</code>, <code>item-1</code>, ..., property names are <code>prop0</code>,
+ * <code>prop1</code>, ... with the property types assigned round-robin. Binary data is stored in a
+ * <code>binary</code> property of type {@link InputStream}.
+ * </p>
+ */
+public final class ContentGenerator {
+
+    /**
+     * Property types for generated properties.
+     */
+    public enum PropertyType {
+        /** Random alphanumeric string */
+        STRING,
+        /** Random long value */
+        LONG,
+        /** Random double value between 0 and 1 */
+        DOUBLE,
+        /** Random boolean value */
+        BOOLEAN,
+        /** Random date between 2000 and 2030 in UTC */
+        CALENDAR
+    }
+
+    private static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final long CALENDAR_MIN = 946684800000L; // 2000-01-01T00:00:00Z
+    private static final long CALENDAR_RANGE = 946080000000L; // ~30 years
+
+    private final @NotNull ContentBuilder contentBuilder;
+    private final @NotNull ResourceResolver resourceResolver;
+
+    private long seed;
+    private int depth = 3;
+    private int fanOut = 10;
+    private int propertyCount = 5;
+    private @NotNull List<PropertyType> propertyTypes = List.of(PropertyType.values());
+    private int stringLength = 16;
+    private int binarySize;
+    private int commitInterval = 10000;
+
+    private long resourceCount;
+
+    /**
+     * @param resourceResolver Resource resolver
+     */
+    public ContentGenerator(@NotNull ResourceResolver resourceResolver) {
+        this(new ContentBuilder(resourceResolver));
+    }
+
+    ContentGenerator(@NotNull ContentBuilder contentBuilder) {
+        this.contentBuilder = contentBuilder;
+        this.resourceResolver = contentBuilder.resourceResolver;
+    }
+
+    /**
+     * @param value Seed for the random values (default: 0)
+     * @return this
+     */
+    public @NotNull ContentGenerator seed(long value) {
+        this.seed = value;
+        return this;
+    }
+
+    /**
+     * @param value Number of levels below the root resource (default: 3)
+     * @return this
+     */
+    public @NotNull ContentGenerator depth(int value) {
+        this.depth = requirePositiveOrZero(value, "depth");
+        return this;
+    }
+
+    /**
+     * @param value Number of child resources of each resource, except on the last level (default: 10)
+     * @return this
+     */
+    public @NotNull ContentGenerator fanOut(int value) {
+        this.fanOut = requirePositiveOrZero(value, "fanOut");
+        return this;
+    }
+
+    /**
+     * @param value Number of generated properties of each resource, not counting <code>jcr:primaryType</code>
+     *            and the binary property (default: 5)
+     * @return this
+     */
+    public @NotNull ContentGenerator propertyCount(int value) {
+        this.propertyCount = requirePositiveOrZero(value, "propertyCount");
+        return this;
+    }
+
+    /**
+     * @param values Property types, assigned round-robin to the generated properties (default: all types)
+     * @return this
+     */
+    public @NotNull ContentGenerator propertyTypes(@NotNull PropertyType @NotNull ... values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("No property types given.");
+        }
+        this.propertyTypes = List.of(values);
+        return this;
+    }
+
+    /**
+     * @param value Length of generated string values (default: 16)
+     * @return this
+     */
+    public @NotNull ContentGenerator stringLength(int value) {
+        this.stringLength = requirePositiveOrZero(value, "stringLength");
+        return this;
+    }
+
+    /**
+     * @param value Size of the binary data of each resource in bytes, 0 to create no binary property (default: 0)
+     * @return this
+     */
+    public @NotNull ContentGenerator binarySize(int value) {
+        this.binarySize = requirePositiveOrZero(value, "binarySize");
+        return this;
+    }
+
+    /**
+     * @param value Number of resources after which the changes are committed, 0 to commit only once at the end
+     *            (default: 10000)
+     * @return this
+     */
+    public @NotNull ContentGenerator commitInterval(int value) {
+        this.commitInterval = requirePositiveOrZero(value, "commitInterval");
+        return this;
+    }
+
+    private static int requirePositiveOrZero(int value, @NotNull String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " must not be negative: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Generates the resource tree below the given root resource, which is created if it does not exist yet.
+     * All changes are committed.
+     * @param rootPath Path of the root resource
+     * @return Number of generated resources, not counting the root resource
+     */
+    public long generate(@NotNull String rootPath) {
+        Resource root = contentBuilder.ensureResourceExists(rootPath);
+        resourceCount = 0;
+        try {
+            generateChildren(root, 1);
+            resourceResolver.commit();
+        } catch (PersistenceException ex) {
+            throw new RuntimeException("Unable to generate content at " + rootPath, ex);
+        }
+        return resourceCount;
+    }
+
+    private void generateChildren(@NotNull Resource parent, int level) throws PersistenceException {
+        if (level > depth) {
+            return;
+        }
+        for (int i = 0; i < fanOut; i++) {
+            long resourceSeed = mix(seed + resourceCount);
+            Resource resource = resourceResolver.create(parent, "item-" + i, new GeneratedProperties(resourceSeed));
+            resourceCount++;
+            if (commitInterval > 0 && resourceCount % commitInterval == 0) {
+                resourceResolver.commit();
+            }
+            generateChildren(resource, level + 1);
+        }
+    }
+
+    /**
+     * SplitMix64 finalizer to derive well distributed seeds for each resource.
+     */
+    private static long mix(long value) {
+        long z = value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private @NotNull Object generateValue(@NotNull SplittableRandom random, @NotNull PropertyType type) {
+        return switch (type) {
+            case STRING -> {
+                char[] chars = new char[stringLength];
+                for (int i = 0; i < chars.length; i++) {
+                    chars[i] = CHARACTERS.charAt(random.nextInt(CHARACTERS.length()));
+                }
+                yield new String(chars);
+            }
+            case LONG -> random.nextLong();
+            case DOUBLE -> random.nextDouble();
+            case BOOLEAN -> random.nextBoolean();
+            case CALENDAR -> {
+                Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+                calendar.setTimeInMillis(CALENDAR_MIN + random.nextLong(CALENDAR_RANGE));
+                yield calendar;
+            }
+        };
+    }
+
+    /**
+     * Properties of a generated resource. The values are computed from the resource seed on each iteration,
+     * so the same values are returned each time without storing them.
+     */
+    private final class GeneratedProperties extends AbstractMap<String, Object> {
+
+        private final long resourceSeed;
+
+        GeneratedProperties(long resourceSeed) {
+            this.resourceSeed = resourceSeed;
+        }
+
+        @Override
+        public @NotNull Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public @NotNull Iterator<Entry<String, Object>> iterator() {
+                    return new GeneratedPropertiesIterator(resourceSeed);
+                }
+
+                @Override
+                public int size() {
+                    return 1 + propertyCount + (binarySize > 0 ? 1 : 0);
+                }
+            };
+        }
+    }
+
+    private final class GeneratedPropertiesIterator implements Iterator<Entry<String, Object>> {
+
+        private final SplittableRandom random;
+        private final long binarySeed;
+        private final int size;
+        private int index;
+
+        GeneratedPropertiesIterator(long resourceSeed) {
+            this.random = new SplittableRandom(resourceSeed);
+            this.binarySeed = mix(resourceSeed);
+            this.size = 1 + propertyCount + (binarySize > 0 ? 1 : 0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int current = index++;
+            if (current == 0) {
+                return new SimpleImmutableEntry<>(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED);
+            }
+            int propertyIndex = current - 1;
+            if (propertyIndex < propertyCount) {
+                PropertyType type = propertyTypes.get(propertyIndex % propertyTypes.size());
+                return new SimpleImmutableEntry<>("prop" + propertyIndex, generateValue(random, type));
+            }
+            return new SimpleImmutableEntry<>("binary", new GeneratedInputStream(binarySeed, binarySize));
+        }
+    }
+
+    /**
+     * Stream of pseudo-random bytes, generated on the fly.
+     */
+    private static final class GeneratedInputStream extends InputStream {
+
+        private final SplittableRandom random;
+        private int remaining;
+
+        GeneratedInputStream(long seed, int size) {
+            this.random = new SplittableRandom(seed);
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            if (remaining <= 0) {
+                return -1;
+            }
+            remaining--;
+            return random.nextInt(256);
+        }
+
+        @Override
+        public int read(byte @NotNull [] buffer, int offset, int length) {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = Math.min(length, remaining);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) random.nextInt(256);
+            }
+            remaining -= count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return remaining;
+        }
+    }
+}
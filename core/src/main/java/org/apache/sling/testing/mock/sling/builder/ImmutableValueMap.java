@@ -18,10 +18,15 @@
  */
 package org.apache.sling.testing.mock.sling.builder;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 
 import org.apache.sling.api.resource.ValueMap;
@@ -40,10 +45,21 @@ import org.osgi.annotation.versioning.ProviderType;
  * Static convenience methods provide similar behavior as Guava ImmutableMap
  * variants.
  * </p>
+ * <p>
+ * Small maps with only a few entries are stored compactly in a single
+ * array in insertion order, larger maps are backed by a hash map.
+ * </p>
  */
 @ProviderType
 public final class ImmutableValueMap implements ValueMap {
 
+    /**
+     * Maximum number of entries that are stored in compact form.
+     */
+    static final int MAX_COMPACT_SIZE = 8;
+
+    private static final ImmutableValueMap EMPTY = new ImmutableValueMap(ValueMap.EMPTY);
+
     private final ValueMap map;
 
     /**
@@ -172,7 +188,7 @@ public final class ImmutableValueMap implements ValueMap {
      * @return ImmutableValueMap
      */
     public static @NotNull ImmutableValueMap of() {
-        return new ImmutableValueMap(ValueMap.EMPTY);
+        return EMPTY;
     }
 
     /**
@@ -184,9 +200,8 @@ public final class ImmutableValueMap implements ValueMap {
      * @param v1 Value 1
      * @return ImmutableValueMap
      */
-    @SuppressWarnings("null")
     public static @NotNull ImmutableValueMap of(@NotNull String k1, @NotNull Object v1) {
-        return new ImmutableValueMap(Collections.singletonMap(k1, v1));
+        return compact(k1, v1);
     }
 
     /**
@@ -200,10 +215,7 @@ public final class ImmutableValueMap implements ValueMap {
      */
     public static @NotNull ImmutableValueMap of(
             @NotNull String k1, @NotNull Object v1, @NotNull String k2, @NotNull Object v2) {
-        Map<String, Object> map = new HashMap<>();
-        map.put(k1, v1);
-        map.put(k2, v2);
-        return new ImmutableValueMap(map);
+        return compact(k1, v1, k2, v2);
     }
 
     /**
@@ -224,11 +236,7 @@ public final class ImmutableValueMap implements ValueMap {
             @NotNull Object v2,
             @NotNull String k3,
             @NotNull Object v3) {
-        Map<String, Object> map = new HashMap<>();
-        map.put(k1, v1);
-        map.put(k2, v2);
-        map.put(k3, v3);
-        return new ImmutableValueMap(map);
+        return compact(k1, v1, k2, v2, k3, v3);
     }
 
     /**
@@ -253,12 +261,7 @@ public final class ImmutableValueMap implements ValueMap {
             @NotNull Object v3,
             @NotNull String k4,
             @NotNull Object v4) {
-        Map<String, Object> map = new HashMap<>();
-        map.put(k1, v1);
-        map.put(k2, v2);
-        map.put(k3, v3);
-        map.put(k4, v4);
-        return new ImmutableValueMap(map);
+        return compact(k1, v1, k2, v2, k3, v3, k4, v4);
     }
 
     /**
@@ -287,17 +290,15 @@ public final class ImmutableValueMap implements ValueMap {
             @NotNull Object v4,
             @NotNull String k5,
             @NotNull Object v5) {
-        Map<String, Object> map = new HashMap<>();
-        map.put(k1, v1);
-        map.put(k2, v2);
-        map.put(k3, v3);
-        map.put(k4, v4);
-        map.put(k5, v5);
-        return new ImmutableValueMap(map);
+        return compact(k1, v1, k2, v2, k3, v3, k4, v4, k5, v5);
     }
 
     // looking for of() with > 5 entries? Use the builder instead.
 
+    private static @NotNull ImmutableValueMap compact(@NotNull Object @NotNull ... keysAndValues) {
+        return new ImmutableValueMap(new CompactMap(CompactMap.removeDuplicateKeys(keysAndValues)));
+    }
+
     /**
      * Returns a new builder. The generated builder is equivalent to the builder
      * created by the {@link Builder} constructor.
@@ -313,20 +314,25 @@ public final class ImmutableValueMap implements ValueMap {
      * it is a {@code SortedMap} whose comparator is not <i>consistent with
      * equals</i>), the results of this method are undefined.
      * <p>
-     * Despite the method name, this method attempts to avoid actually copying
-     * the data when it is safe to do so. The exact circumstances under which a
-     * copy will or will not be performed are undocumented and subject to
-     * change.
+     * Entries of plain maps are copied, so later changes of {@code map} are
+     * not visible in the returned map. A {@link ValueMap} is wrapped without
+     * copying to keep its conversion of values in {@code get(name, type)}.
      * </p>
      * @param map Map
      * @return ImmutableValueMap
      * @throws NullPointerException if any key or value in {@code map} is null
      */
     public static @NotNull ImmutableValueMap copyOf(@NotNull Map<String, Object> map) {
-        if (map instanceof ValueMap valueMap) {
+        if (map instanceof ImmutableValueMap immutableValueMap) {
+            return immutableValueMap;
+        } else if (map instanceof ValueMap valueMap) {
             return new ImmutableValueMap(valueMap);
+        } else if (map.isEmpty()) {
+            return EMPTY;
+        } else if (map.size() <= MAX_COMPACT_SIZE) {
+            return new ImmutableValueMap(new CompactMap(CompactMap.toKeysAndValues(map)));
         } else {
-            return new ImmutableValueMap(map);
+            return new ImmutableValueMap(new LinkedHashMap<>(map));
         }
     }
 
@@ -335,7 +341,7 @@ public final class ImmutableValueMap implements ValueMap {
      */
     public static final class Builder {
 
-        private final @NotNull Map<String, Object> map = new HashMap<>();
+        private final @NotNull Map<String, Object> map = new LinkedHashMap<>();
 
         /**
          * Associates {@code key} with {@code value} in the built map. Duplicate
@@ -382,9 +388,159 @@ public final class ImmutableValueMap implements ValueMap {
         public @NotNull ImmutableValueMap build() {
             if (map.isEmpty()) {
                 return ImmutableValueMap.of();
+            } else if (map.size() <= MAX_COMPACT_SIZE) {
+                return new ImmutableValueMap(new CompactMap(CompactMap.toKeysAndValues(map)));
             } else {
-                return new ImmutableValueMap(map);
+                // copy, the builder may be used further
+                return new ImmutableValueMap(new LinkedHashMap<>(map));
+            }
+        }
+    }
+
+    /**
+     * Immutable map that stores keys and values alternating in a single array, in insertion order.
+     * For the small number of entries, scanning the keys is faster than hashing and needs no further objects.
+     */
+    private static final class CompactMap extends AbstractMap<String, Object> implements ValueMap {
+
+        private final Object[] keysAndValues;
+        private int hash;
+
+        CompactMap(@NotNull Object @NotNull [] keysAndValues) {
+            this.keysAndValues = keysAndValues;
+        }
+
+        static @NotNull Object @NotNull [] toKeysAndValues(@NotNull Map<String, Object> map) {
+            Object[] result = new Object[map.size() * 2];
+            int index = 0;
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                result[index++] = entry.getKey();
+                result[index++] = entry.getValue();
+            }
+            return result;
+        }
+
+        /**
+         * Duplicate keys are merged like in a hash map: the first position is kept, with the last value.
+         */
+        static @NotNull Object @NotNull [] removeDuplicateKeys(@NotNull Object @NotNull [] keysAndValues) {
+            for (int i = 2; i < keysAndValues.length; i += 2) {
+                if (indexOf(keysAndValues, i, keysAndValues[i]) >= 0) {
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    for (int j = 0; j < keysAndValues.length; j += 2) {
+                        map.put((String) keysAndValues[j], keysAndValues[j + 1]);
+                    }
+                    return toKeysAndValues(map);
+                }
+            }
+            return keysAndValues;
+        }
+
+        private static int indexOf(@NotNull Object @NotNull [] keysAndValues, int length, Object key) {
+            for (int i = 0; i < length; i += 2) {
+                if (Objects.equals(keysAndValues[i], key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int size() {
+            return keysAndValues.length / 2;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return keysAndValues.length == 0;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(keysAndValues, keysAndValues.length, key) >= 0;
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            for (int i = 1; i < keysAndValues.length; i += 2) {
+                if (Objects.equals(keysAndValues[i], value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Object get(Object key) {
+            int index = indexOf(keysAndValues, keysAndValues.length, key);
+            return index >= 0 ? keysAndValues[index + 1] : null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public @Nullable <T> T get(@NotNull String name, @NotNull Class<T> type) {
+            Object value = get(name);
+            if (value == null) {
+                return null;
+            }
+            if (type.isInstance(value)) {
+                return (T) value;
+            }
+            // other conversions, e.g. from number to string or from single value to array, like ValueMapDecorator
+            return new ValueMapDecorator(Collections.singletonMap(name, value)).get(name, type);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public @NotNull <T> T get(@NotNull String name, @NotNull T defaultValue) {
+            T value = get(name, (Class<T>) defaultValue.getClass());
+            return value != null ? value : defaultValue;
+        }
+
+        @Override
+        public @NotNull Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public @NotNull Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < keysAndValues.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, Object> entry =
+                                    new SimpleImmutableEntry<>((String) keysAndValues[index], keysAndValues[index + 1]);
+                            index += 2;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return CompactMap.this.size();
+                }
+            };
+        }
+
+        @Override
+        public int hashCode() {
+            // computed lazily and cached, as the map does not change
+            int result = hash;
+            if (result == 0) {
+                for (int i = 0; i < keysAndValues.length; i += 2) {
+                    result += Objects.hashCode(keysAndValues[i]) ^ Objects.hashCode(keysAndValues[i + 1]);
+                }
+                hash = result;
             }
+            return result;
         }
     }
 }
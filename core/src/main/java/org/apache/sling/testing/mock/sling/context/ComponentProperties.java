@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.context;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Strings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.framework.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads the service properties of a component from its declarative services metadata
+ * (<code>OSGI-INF/&lt;component name&gt;.xml</code> as generated by bnd), without instantiating it.
+ * Used for services that are registered lazily, so they get the same service properties as with
+ * an eager registration. The properties are read once per class and JVM.
+ */
+final class ComponentProperties {
+
+    private static final ConcurrentMap<Class<?>, Map<String, Object>> CACHE = new ConcurrentHashMap<>();
+
+    private static final Logger log = LoggerFactory.getLogger(ComponentProperties.class);
+
+    private ComponentProperties() {
+        // static methods only
+    }
+
+    /**
+     * @param implClass Component implementation class
+     * @return Service properties including component name and PID, or an empty map if no metadata was found
+     */
+    static @NotNull Map<String, Object> get(@NotNull Class<?> implClass) {
+        return CACHE.computeIfAbsent(implClass, ComponentProperties::read);
+    }
+
+    private static @NotNull Map<String, Object> read(@NotNull Class<?> implClass) {
+        String resourceName = "OSGI-INF/" + implClass.getName() + ".xml";
+        ClassLoader classLoader = implClass.getClassLoader();
+        try (InputStream is = classLoader != null ? classLoader.getResourceAsStream(resourceName) : null) {
+            if (is == null) {
+                log.debug("No OSGi metadata found for {}", implClass.getName());
+                return Collections.emptyMap();
+            }
+            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+            documentBuilderFactory.setNamespaceAware(true);
+            documentBuilderFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            documentBuilderFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            Document document = documentBuilderFactory.newDocumentBuilder().parse(is);
+            Element component = findComponent(document, implClass.getName());
+            return component != null ? toProperties(component) : Collections.emptyMap();
+        } catch (IOException | ParserConfigurationException | SAXException ex) {
+            log.debug("Unable to read OSGi metadata of {}", implClass.getName(), ex);
+            return Collections.emptyMap();
+        }
+    }
+
+    private static @Nullable Element findComponent(@NotNull Document document, @NotNull String implClassName) {
+        NodeList components = document.getElementsByTagNameNS("*", "component");
+        for (int i = 0; i < components.getLength(); i++) {
+            Element component = (Element) components.item(i);
+            NodeList implementations = component.getElementsByTagName("implementation");
+            if (implementations.getLength() > 0
+                    && Strings.CS.equals(((Element) implementations.item(0)).getAttribute("class"), implClassName)) {
+                return component;
+            }
+        }
+        return null;
+    }
+
+    private static @NotNull Map<String, Object> toProperties(@NotNull Element component) {
+        Map<String, Object> properties = new HashMap<>();
+        NodeList propertyElements = component.getElementsByTagName("property");
+        for (int i = 0; i < propertyElements.getLength(); i++) {
+            Element property = (Element) propertyElements.item(i);
+            String type = StringUtils.defaultIfEmpty(property.getAttribute("type"), "String");
+            if (property.hasAttribute("value")) {
+                properties.put(property.getAttribute("name"), toValue(property.getAttribute("value"), type));
+            } else {
+                List<Object> values = new ArrayList<>();
+                for (String line : StringUtils.split(property.getTextContent(), "\r\n")) {
+                    if (StringUtils.isNotBlank(line)) {
+                        values.add(toValue(line.trim(), type));
+                    }
+                }
+                properties.put(property.getAttribute("name"), toArray(values, type));
+            }
+        }
+        String name = component.getAttribute("name");
+        properties.put("component.name", name);
+        String pid = StringUtils.defaultIfEmpty(component.getAttribute("configuration-pid"), name);
+        properties.put(Constants.SERVICE_PID, StringUtils.substringBefore(pid, " "));
+        return Collections.unmodifiableMap(properties);
+    }
+
+    private static @NotNull Object toValue(@NotNull String value, @NotNull String type) {
+        return switch (type) {
+            case "Long" -> Long.valueOf(value);
+            case "Double" -> Double.valueOf(value);
+            case "Float" -> Float.valueOf(value);
+            case "Integer" -> Integer.valueOf(value);
+            case "Byte" -> Byte.valueOf(value);
+            case "Character" -> value.charAt(0);
+            case "Boolean" -> Boolean.valueOf(value);
+            case "Short" -> Short.valueOf(value);
+            default -> value;
+        };
+    }
+
+    private static @NotNull Object toArray(@NotNull List<Object> values, @NotNull String type) {
+        Class<?> componentType = values.isEmpty() ? String.class : values.get(0).getClass();
+        Object array =
+                Array.newInstance(Strings.CS.equals(type, "String") ? String.class : componentType, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            Array.set(array, i, values.get(i));
+        }
+        return array;
+    }
+}
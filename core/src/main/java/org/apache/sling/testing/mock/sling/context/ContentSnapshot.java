@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.commons.lang3.Strings;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.testing.mock.sling.internal.SnapshotValues;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Immutable snapshot of the whole resource tree taken with {@link SlingContextImpl#snapshot(String)}, which can be
+ * restored to the resource resolver of any context afterwards. A snapshot never changes after it was taken, so it
+ * can be shared between any number of test runs and threads.
+ * <p>
+ * Restoring deletes the current resources and creates all resources of the snapshot again, so it takes time
+ * proportional to the size of the content. Binary properties are kept in memory. Properties maintained by a JCR
+ * repository like <code>jcr:created</code> or <code>jcr:uuid</code> are not included.
+ * </p>
+ * <p>
+ * Content mounted by other resource providers (e.g. with <code>ContentLoader.mountJson</code>) is read-only,
+ * it is neither included in the snapshot nor deleted on restore. Resources on the path to a mount point are kept,
+ * only their properties and other children are restored.
+ * </p>
+ */
+final class ContentSnapshot {
+
+    private final @NotNull Node root;
+    private final long estimatedSize;
+
+    private ContentSnapshot(@NotNull Node root) {
+        this.root = root;
+        this.estimatedSize = root.estimateSize();
+    }
+
+    /**
+     * Takes a snapshot of the whole resource tree.
+     * @param resourceResolver Resource resolver
+     * @param mountedPaths Root paths of the resource providers other than the main one, their content is skipped
+     * @return Snapshot
+     * @throws IllegalArgumentException if the root resource does not exist
+     */
+    static @NotNull ContentSnapshot create(
+            @NotNull ResourceResolver resourceResolver, @NotNull Set<String> mountedPaths) {
+        Resource resource = resourceResolver.getResource("/");
+        if (resource == null) {
+            throw new IllegalArgumentException("Root resource does not exist.");
+        }
+        return new ContentSnapshot(toNode(resource, mountedPaths));
+    }
+
+    private static @NotNull Node toNode(@NotNull Resource resource, @NotNull Set<String> mountedPaths) {
+        List<Node> children = new ArrayList<>();
+        for (Resource child : getChildren(resource)) {
+            if (!isMounted(child.getPath(), mountedPaths)) {
+                children.add(toNode(child, mountedPaths));
+            }
+        }
+        boolean synthetic = ResourceUtil.isSyntheticResource(resource);
+        return new Node(
+                resource.getName(),
+                synthetic ? Collections.emptyMap() : copyProperties(resource.getValueMap()),
+                List.copyOf(children),
+                synthetic);
+    }
+
+    /**
+     * @param path Resource path
+     * @param mountedPaths Root paths of the resource providers other than the main one
+     * @return true if the resource is provided by another resource provider
+     */
+    private static boolean isMounted(@NotNull String path, @NotNull Set<String> mountedPaths) {
+        for (String mountedPath : mountedPaths) {
+            if (Strings.CS.equals(path, mountedPath) || Strings.CS.startsWith(path, mountedPath + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param path Resource path
+     * @param mountedPaths Root paths of the resource providers other than the main one
+     * @return true if there is a resource provider mounted below the resource
+     */
+    private static boolean hasMountedDescendants(@NotNull String path, @NotNull Set<String> mountedPaths) {
+        for (String mountedPath : mountedPaths) {
+            if (Strings.CS.startsWith(mountedPath, path + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static @NotNull List<Resource> getChildren(@NotNull Resource resource) {
+        List<Resource> children = new ArrayList<>();
+        for (Resource child : resource.getChildren()) {
+            // node type definitions and other repository internals are never touched by the tests
+            if (!Strings.CS.equals(child.getPath(), "/jcr:system")) {
+                children.add(child);
+            }
+        }
+        return children;
+    }
+
+    private static @NotNull Map<String, Object> copyProperties(@NotNull Map<String, Object> properties) {
+        Map<String, Object> copy = new HashMap<>();
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            if (entry.getValue() != null && !SnapshotValues.isProtectedProperty(entry.getKey())) {
+                copy.put(entry.getKey(), SnapshotValues.copyValue(entry.getValue()));
+            }
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Replaces all children of the root resource with the resources of the snapshot. All changes are committed.
+     * @param resourceResolver Resource resolver
+     * @param mountedPaths Root paths of the resource providers other than the main one, their content is kept
+     * @throws PersistenceException if the content could not be restored
+     */
+    void restore(@NotNull ResourceResolver resourceResolver, @NotNull Set<String> mountedPaths)
+            throws PersistenceException {
+        Resource rootResource = resourceResolver.getResource("/");
+        if (rootResource == null) {
+            throw new PersistenceException("Root resource does not exist.");
+        }
+        deleteChildren(resourceResolver, rootResource, mountedPaths);
+        createChildren(resourceResolver, rootResource, root, mountedPaths);
+        resourceResolver.commit();
+    }
+
+    private static void deleteChildren(
+            @NotNull ResourceResolver resourceResolver, @NotNull Resource resource, @NotNull Set<String> mountedPaths)
+            throws PersistenceException {
+        for (Resource child : getChildren(resource)) {
+            if (isMounted(child.getPath(), mountedPaths)) {
+                continue;
+            }
+            if (ResourceUtil.isSyntheticResource(child) || hasMountedDescendants(child.getPath(), mountedPaths)) {
+                // keep the path to the mount point
+                deleteChildren(resourceResolver, child, mountedPaths);
+            } else {
+                resourceResolver.delete(child);
+            }
+        }
+    }
+
+    private static void createChildren(
+            @NotNull ResourceResolver resourceResolver,
+            @NotNull Resource resource,
+            @NotNull Node node,
+            @NotNull Set<String> mountedPaths)
+            throws PersistenceException {
+        for (Node child : node.children()) {
+            Resource childResource = resource.getChild(child.name());
+            if (childResource == null) {
+                childResource = resourceResolver.create(resource, child.name(), child.newProperties());
+            } else if (isMounted(childResource.getPath(), mountedPaths)) {
+                continue;
+            } else if (!child.synthetic() && !ResourceUtil.isSyntheticResource(childResource)) {
+                // resource on the path to a mount point was kept
+                restoreProperties(childResource, child);
+            }
+            createChildren(resourceResolver, childResource, child, mountedPaths);
+        }
+    }
+
+    private static void restoreProperties(@NotNull Resource resource, @NotNull Node node) throws PersistenceException {
+        ModifiableValueMap properties = resource.adaptTo(ModifiableValueMap.class);
+        if (properties == null) {
+            throw new PersistenceException("Unable to restore properties of resource: " + resource.getPath());
+        }
+        Map<String, Object> currentProperties = copyProperties(properties);
+        for (String name : currentProperties.keySet()) {
+            if (!node.properties().containsKey(name)) {
+                properties.remove(name);
+            }
+        }
+        for (Map.Entry<String, Object> entry : node.properties().entrySet()) {
+            if (!Objects.deepEquals(entry.getValue(), currentProperties.get(entry.getKey()))) {
+                properties.put(entry.getKey(), SnapshotValues.toWritableValue(entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * @return Estimated memory size of the snapshot in bytes
+     */
+    long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * Immutable resource in the snapshot.
+     */
+    private record Node(
+            @NotNull String name,
+            @NotNull Map<String, Object> properties,
+            @NotNull List<Node> children,
+            boolean synthetic) {
+
+        long estimateSize() {
+            long size = 96L + SnapshotValues.estimateSize(name);
+            for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                size += 32L
+                        + SnapshotValues.estimateSize(entry.getKey())
+                        + SnapshotValues.estimateSize(entry.getValue());
+            }
+            for (Node child : children) {
+                size += child.estimateSize();
+            }
+            return size;
+        }
+
+        /**
+         * @return Copy of the properties that can be passed to a resource resolver which might modify them
+         */
+        @NotNull
+        Map<String, Object> newProperties() {
+            Map<String, Object> result = new HashMap<>();
+            for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                result.put(entry.getKey(), SnapshotValues.toWritableValue(entry.getValue()));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.context;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObjectBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.testing.mock.sling.ContextProfile;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends context profiles as JSON lines to the file defined by a system property,
+ * to allow aggregating the timings of all tests of a test run.
+ */
+final class ContextProfileWriter {
+
+    static final String SYSTEM_PROPERTY_CONTEXT_PROFILE_FILE = "sling.mock.context.profile.file";
+
+    private static final Logger log = LoggerFactory.getLogger(ContextProfileWriter.class);
+
+    private static final Object WRITE_LOCK = new Object();
+
+    private ContextProfileWriter() {
+        // static methods only
+    }
+
+    /**
+     * Appends the profile to the file defined by the system property. Does nothing if the system property is not set.
+     * @param profile Context profile
+     * @param testName Test name
+     * @param resourceResolverType Resource resolver type
+     */
+    static void write(
+            @NotNull ContextProfile profile,
+            @Nullable String testName,
+            @Nullable ResourceResolverType resourceResolverType) {
+        String fileName = System.getProperty(SYSTEM_PROPERTY_CONTEXT_PROFILE_FILE);
+        if (StringUtils.isBlank(fileName)) {
+            return;
+        }
+        String line = toJson(profile, testName, resourceResolverType) + "\n";
+        synchronized (WRITE_LOCK) {
+            try {
+                Files.writeString(
+                        Path.of(fileName),
+                        line,
+                        StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+            } catch (IOException ex) {
+                log.warn("Unable to write context profile to {}", fileName, ex);
+            }
+        }
+    }
+
+    static @NotNull String toJson(
+            @NotNull ContextProfile profile,
+            @Nullable String testName,
+            @Nullable ResourceResolverType resourceResolverType) {
+        JsonObjectBuilder phases = Json.createObjectBuilder();
+        profile.getDurations().forEach((phase, duration) -> phases.add(phase.name(), duration.toNanos() / 1000000d));
+        JsonObjectBuilder json = Json.createObjectBuilder();
+        if (testName != null) {
+            json.add("test", testName);
+        }
+        if (resourceResolverType != null) {
+            json.add("resourceResolverType", resourceResolverType.name());
+        }
+        json.add("phasesMs", phases);
+        return json.build().toString();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.context;
+
+/**
+ * Groups of default services registered by {@link SlingContextImpl} that can be disabled individually.
+ * Basic services like Sling settings, MIME type service and resource builder factory are always registered.
+ */
+public enum DefaultServiceGroup {
+
+    /**
+     * Scripting services like script engine manager and bindings values providers.
+     * The scripting core services are registered as well if {@link #SLING_MODELS} is enabled,
+     * because they are required by the Sling Models implementation.
+     */
+    SCRIPTING,
+
+    /**
+     * Sling Models implementation with injectors and via providers, and Sling Models found in classpath.
+     */
+    SLING_MODELS,
+
+    /**
+     * XSS filter and XSS API.
+     */
+    XSS,
+
+    /**
+     * Resource bundle provider.
+     */
+    I18N,
+
+    /**
+     * Feature flags manager.
+     */
+    FEATURE_FLAGS
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.context;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Predefined sets of {@link DefaultServiceGroup}s registered by {@link SlingContextImpl}.
+ */
+public enum DefaultServicesProfile {
+
+    /**
+     * Only basic services required for reading and writing resources.
+     * This is the fastest option for tests that only manipulate resources.
+     */
+    RESOURCES_ONLY(EnumSet.noneOf(DefaultServiceGroup.class)),
+
+    /**
+     * Basic services plus Sling Models and scripting services.
+     */
+    MODELS(EnumSet.of(DefaultServiceGroup.SCRIPTING, DefaultServiceGroup.SLING_MODELS)),
+
+    /**
+     * All default services (default).
+     */
+    FULL(EnumSet.allOf(DefaultServiceGroup.class));
+
+    private final Set<DefaultServiceGroup> serviceGroups;
+
+    DefaultServicesProfile(Set<DefaultServiceGroup> serviceGroups) {
+        this.serviceGroups = Collections.unmodifiableSet(serviceGroups);
+    }
+
+    /**
+     * @return Default service groups that are registered with this profile
+     */
+    public @NotNull Set<DefaultServiceGroup> getServiceGroups() {
+        return serviceGroups;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.context;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.jetbrains.annotations.NotNull;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.ServiceFactory;
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Service factory that creates the service instance on first lookup or reference binding.
+ * The instance is shared by all consumers, it is deactivated with {@link #dispose()} on context teardown.
+ * @param <T> Service type
+ */
+final class LazyServiceFactory<T> implements ServiceFactory<T> {
+
+    private final @NotNull Supplier<T> serviceSupplier;
+    private final @NotNull Consumer<T> serviceDeactivator;
+    private T service;
+
+    /**
+     * @param serviceSupplier Creates and activates the service instance
+     * @param serviceDeactivator Deactivates the service instance
+     */
+    LazyServiceFactory(@NotNull Supplier<T> serviceSupplier, @NotNull Consumer<T> serviceDeactivator) {
+        this.serviceSupplier = serviceSupplier;
+        this.serviceDeactivator = serviceDeactivator;
+    }
+
+    @Override
+    public synchronized T getService(Bundle bundle, ServiceRegistration<T> registration) {
+        if (service == null) {
+            service = serviceSupplier.get();
+        }
+        return service;
+    }
+
+    @Override
+    public void ungetService(Bundle bundle, ServiceRegistration<T> registration, T serviceInstance) {
+        // keep instance - it is shared by all consumers
+    }
+
+    /**
+     * Deactivates the service instance if it was created.
+     */
+    synchronized void dispose() {
+        if (service != null) {
+            T instance = service;
+            service = null;
+            serviceDeactivator.accept(instance);
+        }
+    }
+}
@@ -131,25 +131,41 @@ final class ModelAdapterFactoryUtil {
         }
     }
 
+    /**
+     * Scans the classpath for the model classes declared in MANIFEST.MF and caches the result,
+     * without registering them. Can be called from a background thread to speed up a later
+     * call of {@link #addModelsForManifestEntries(BundleContext)}.
+     */
+    static void prefetchModelsForManifestEntries() {
+        if (MODELS_PACKAGES_FROM_MANIFEST.length > 0) {
+            getModelClassUrlsForPackages(StringUtils.join(MODELS_PACKAGES_FROM_MANIFEST, ","));
+        }
+        if (MODELS_CLASSES_FROM_MANIFEST.length > 0) {
+            getModelClassUrlsForClasses(StringUtils.join(MODELS_CLASSES_FROM_MANIFEST, ","));
+        }
+    }
+
     /**
      * Get model classes in list of packages (and subpackages), and cache result in static map.
+     * Concurrent calls for the same package names wait for a scan already in progress.
      * @param packageNames Package names
      * @return List of URLs
      */
     private static Collection<URL> getModelClassUrlsForPackages(String packageNames) {
-        List<URL> urls = MODEL_URLS_FOR_PACKAGES.get(packageNames);
-        if (urls == null) {
-            urls = new ArrayList<>();
-            // add "." to each package name because it's a prefix, not a package name
-            ConfigurationBuilder reflectionsConfig = new ConfigurationBuilder();
-            Stream.of(StringUtils.split(packageNames, ","))
-                    .forEach(packageName -> reflectionsConfig.addUrls(ClasspathHelper.forPackage(packageName + ".")));
-            Reflections reflections = new Reflections(reflectionsConfig);
-            Set<Class<?>> classes = reflections.getTypesAnnotatedWith(Model.class);
-            for (Class<?> clazz : classes) {
-                urls.add(classToUrl(clazz));
-            }
-            MODEL_URLS_FOR_PACKAGES.putIfAbsent(packageNames, urls);
+        return MODEL_URLS_FOR_PACKAGES.computeIfAbsent(
+                packageNames, ModelAdapterFactoryUtil::scanModelClassUrlsForPackages);
+    }
+
+    private static List<URL> scanModelClassUrlsForPackages(String packageNames) {
+        List<URL> urls = new ArrayList<>();
+        // add "." to each package name because it's a prefix, not a package name
+        ConfigurationBuilder reflectionsConfig = new ConfigurationBuilder();
+        Stream.of(StringUtils.split(packageNames, ","))
+                .forEach(packageName -> reflectionsConfig.addUrls(ClasspathHelper.forPackage(packageName + ".")));
+        Reflections reflections = new Reflections(reflectionsConfig);
+        Set<Class<?>> classes = reflections.getTypesAnnotatedWith(Model.class);
+        for (Class<?> clazz : classes) {
+            urls.add(classToUrl(clazz));
         }
         return urls;
     }
@@ -160,21 +176,22 @@ final class ModelAdapterFactoryUtil {
      * @return List of URLs
      */
     private static Collection<URL> getModelClassUrlsForClasses(String classNames) {
-        List<URL> urls = MODEL_URLS_FOR_CLASSES.get(classNames);
-        if (urls == null) {
-            urls = new ArrayList<>();
-            String[] packageNameArray = StringUtils.split(classNames, ",");
-            for (String className : packageNameArray) {
-                try {
-                    Class<?> clazz = Class.forName(className);
-                    if (clazz.isAnnotationPresent(Model.class)) {
-                        urls.add(classToUrl(clazz));
-                    }
-                } catch (ClassNotFoundException e) {
-                    // ignore
+        return MODEL_URLS_FOR_CLASSES.computeIfAbsent(
+                classNames, ModelAdapterFactoryUtil::scanModelClassUrlsForClasses);
+    }
+
+    private static List<URL> scanModelClassUrlsForClasses(String classNames) {
+        List<URL> urls = new ArrayList<>();
+        String[] packageNameArray = StringUtils.split(classNames, ",");
+        for (String className : packageNameArray) {
+            try {
+                Class<?> clazz = Class.forName(className);
+                if (clazz.isAnnotationPresent(Model.class)) {
+                    urls.add(classToUrl(clazz));
                 }
+            } catch (ClassNotFoundException e) {
+                // ignore
             }
-            MODEL_URLS_FOR_CLASSES.putIfAbsent(classNames, urls);
         }
         return urls;
     }
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs independent warm-up tasks of a context setup concurrently on a small JVM-wide thread pool.
+ * The tasks only fill caches (classpath scans, class loading, parsing) - all OSGi service registrations
+ * stay on the calling thread, so registration order and service ranking are the same as in a serial setup.
+ * A failing task is only logged, the serial setup does the same work again and reports the error.
+ */
+final class ParallelSetUp {
+
+    private static final int MAX_THREADS = 4;
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelSetUp.class);
+
+    private final List<Future<?>> futures = new ArrayList<>();
+
+    /**
+     * Submits a task to the thread pool.
+     * @param name Task name for logging
+     * @param task Task
+     */
+    void submit(@NotNull String name, @NotNull Runnable task) {
+        futures.add(ExecutorHolder.EXECUTOR.submit(() -> {
+            long startTime = System.nanoTime();
+            try {
+                task.run();
+            } catch (RuntimeException | LinkageError ex) {
+                log.debug("Parallel setup task failed: {}", name, ex);
+            }
+            log.debug("Parallel setup task {} took {}ms", name, (System.nanoTime() - startTime) / 1_000_000L);
+        }));
+    }
+
+    /**
+     * Waits until all submitted tasks are finished.
+     */
+    void join() {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException ex) {
+                log.debug("Parallel setup task failed.", ex.getCause());
+            }
+        }
+        futures.clear();
+    }
+
+    /**
+     * Creates the thread pool on first use only.
+     */
+    private static final class ExecutorHolder {
+
+        private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors())),
+                new DaemonThreadFactory());
+
+        private ExecutorHolder() {
+            // static fields only
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NotNull Runnable runnable) {
+            Thread thread = new Thread(runnable, "sling-mock-setup-" + threadNumber.incrementAndGet());
+            // do not keep the JVM alive after the tests are finished
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.context;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.commons.lang3.Strings;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.testing.mock.osgi.MapUtil;
+import org.apache.sling.testing.mock.sling.internal.SnapshotValues;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the state of a pooled {@link SlingContextImpl} directly after setup (or of a class-scoped context
+ * after the class-level setup), and restores it after each test run.
+ * The content is rolled back by removing all resources that were not present after setup. If the properties are
+ * remembered as well, removed resources are created again and property changes on existing resources are reverted -
+ * except for protected JCR properties. Binary properties are remembered as byte arrays. The OSGi service registry
+ * cannot be rolled back in place - if any service was registered, unregistered or modified since the baseline was
+ * taken, {@link #restore(ResourceResolver)} reports this, and the context has to be rebuilt. For a checkpoint,
+ * the services registered after the context setup are remembered, so they can be registered again in the rebuilt
+ * context with {@link #restore(BundleContext, ResourceResolver)}.
+ * <p>
+ * Restoring walks the whole resource tree and compares all properties, so it takes time proportional to the size
+ * of the content, not to the number of changes.
+ * </p>
+ */
+final class PooledContextBaseline implements ServiceListener {
+
+    /**
+     * OSGi service property to set to "true" on services that are registered internally by the context
+     * and removed again on reset, so they do not invalidate the baseline.
+     */
+    static final String SERVICE_PROPERTY_POOLED_CONTEXT_IGNORE = "PooledContextBaseline-ignore";
+
+    /**
+     * Service properties maintained by the OSGi framework.
+     */
+    private static final Set<String> SERVICE_FRAMEWORK_PROPERTY_NAMES =
+            Set.of(Constants.OBJECTCLASS, Constants.SERVICE_ID, Constants.SERVICE_BUNDLEID, Constants.SERVICE_SCOPE);
+
+    private static final Logger log = LoggerFactory.getLogger(PooledContextBaseline.class);
+
+    private final @NotNull BundleContext bundleContext;
+    private final @NotNull Map<String, Map<String, Object>> resources;
+    private final @NotNull List<ServiceState> services;
+    private final boolean restoreProperties;
+    private volatile boolean serviceRegistryChanged;
+
+    /**
+     * @param bundleContext Bundle context of the pooled context
+     * @param resourceResolver Resource resolver to read the content baseline from, or null if the
+     *            context has no resource resolver
+     */
+    PooledContextBaseline(@NotNull BundleContext bundleContext, @Nullable ResourceResolver resourceResolver) {
+        this(bundleContext, resourceResolver, false, null);
+    }
+
+    /**
+     * Creates a checkpoint that remembers the resource properties as well, so removed resources and property
+     * changes can be restored, and the services registered after the context setup.
+     * @param bundleContext Bundle context of the context
+     * @param resourceResolver Resource resolver to read the content baseline from, or null if the
+     *            context has no resource resolver
+     * @param setUpServiceIds IDs of the services registered by the context setup
+     */
+    PooledContextBaseline(
+            @NotNull BundleContext bundleContext,
+            @Nullable ResourceResolver resourceResolver,
+            @NotNull Set<Long> setUpServiceIds) {
+        this(bundleContext, resourceResolver, true, setUpServiceIds);
+    }
+
+    private PooledContextBaseline(
+            @NotNull BundleContext bundleContext,
+            @Nullable ResourceResolver resourceResolver,
+            boolean restoreProperties,
+            @Nullable Set<Long> setUpServiceIds) {
+        this.bundleContext = bundleContext;
+        this.restoreProperties = restoreProperties;
+        this.resources = resourceResolver != null ? getResources(resourceResolver) : Collections.emptyMap();
+        this.services = setUpServiceIds != null ? getServices(bundleContext, setUpServiceIds) : List.of();
+        bundleContext.addServiceListener(this);
+    }
+
+    private static @NotNull List<ServiceState> getServices(
+            @NotNull BundleContext bundleContext, @NotNull Set<Long> setUpServiceIds) {
+        List<ServiceState> result = new ArrayList<>();
+        ServiceReference<?>[] references = getServiceReferences(bundleContext);
+        // keep registration order
+        Arrays.sort(references, Comparator.comparing((ServiceReference<?> reference) ->
+                (Long) reference.getProperty(Constants.SERVICE_ID)));
+        for (ServiceReference<?> reference : references) {
+            if (setUpServiceIds.contains(reference.getProperty(Constants.SERVICE_ID))
+                    || Boolean.TRUE.equals(reference.getProperty(SERVICE_PROPERTY_POOLED_CONTEXT_IGNORE))) {
+                continue;
+            }
+            Object service = bundleContext.getService(reference);
+            if (service == null) {
+                continue;
+            }
+            Map<String, Object> properties = new HashMap<>();
+            for (String key : reference.getPropertyKeys()) {
+                if (!SERVICE_FRAMEWORK_PROPERTY_NAMES.contains(key)) {
+                    properties.put(key, reference.getProperty(key));
+                }
+            }
+            result.add(new ServiceState((String[]) reference.getProperty(Constants.OBJECTCLASS), service, properties));
+        }
+        return result;
+    }
+
+    /**
+     * @param bundleContext Bundle context
+     * @return IDs of all services registered in the bundle context
+     */
+    static @NotNull Set<Long> getServiceIds(@NotNull BundleContext bundleContext) {
+        Set<Long> result = new HashSet<>();
+        for (ServiceReference<?> reference : getServiceReferences(bundleContext)) {
+            result.add((Long) reference.getProperty(Constants.SERVICE_ID));
+        }
+        return result;
+    }
+
+    private static @NotNull ServiceReference<?>[] getServiceReferences(@NotNull BundleContext bundleContext) {
+        try {
+            ServiceReference<?>[] references = bundleContext.getServiceReferences((String) null, null);
+            return references != null ? references : new ServiceReference<?>[0];
+        } catch (InvalidSyntaxException ex) {
+            throw new RuntimeException("Unable to get service references.", ex);
+        }
+    }
+
+    private @NotNull Map<String, Map<String, Object>> getResources(@NotNull ResourceResolver resourceResolver) {
+        // keep insertion order, so parents are restored before their children
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        Resource root = resourceResolver.getResource("/");
+        if (root != null) {
+            collectResources(root, result);
+        }
+        return result;
+    }
+
+    private void collectResources(@NotNull Resource resource, @NotNull Map<String, Map<String, Object>> result) {
+        result.put(resource.getPath(), restoreProperties ? getProperties(resource) : Collections.emptyMap());
+        for (Resource child : resource.getChildren()) {
+            if (!isSystemResource(child)) {
+                collectResources(child, result);
+            }
+        }
+    }
+
+    private static @NotNull Map<String, Object> getProperties(@NotNull Resource resource) {
+        Map<String, Object> properties = new HashMap<>();
+        for (Map.Entry<String, Object> entry : resource.getValueMap().entrySet()) {
+            if (!SnapshotValues.isProtectedProperty(entry.getKey())) {
+                properties.put(entry.getKey(), SnapshotValues.copyValue(entry.getValue()));
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * @param properties Remembered properties
+     * @return Properties to write, with binary data as input stream
+     */
+    private static @NotNull Map<String, Object> toWritableProperties(@NotNull Map<String, Object> properties) {
+        Map<String, Object> result = new HashMap<>(properties);
+        result.replaceAll((name, value) -> SnapshotValues.toWritableValue(value));
+        return result;
+    }
+
+    private static boolean isSystemResource(@NotNull Resource resource) {
+        // node type definitions and other repository internals are never touched by the tests
+        return Strings.CS.equals(resource.getPath(), "/jcr:system");
+    }
+
+    @Override
+    public void serviceChanged(ServiceEvent event) {
+        if (!Boolean.TRUE.equals(event.getServiceReference().getProperty(SERVICE_PROPERTY_POOLED_CONTEXT_IGNORE))) {
+            serviceRegistryChanged = true;
+        }
+    }
+
+    /**
+     * Restores the baseline state.
+     * @param resourceResolver Resource resolver to roll back content with, or null if the context has
+     *            no resource resolver
+     * @return true if the baseline was restored, false if the context has to be rebuilt
+     */
+    boolean restore(@Nullable ResourceResolver resourceResolver) {
+        if (serviceRegistryChanged && !restoreProperties) {
+            // pooled context is rebuilt anyway
+            return false;
+        }
+        boolean restored = resourceResolver == null || restoreContent(resourceResolver);
+        return restored && !serviceRegistryChanged;
+    }
+
+    /**
+     * Restores the checkpoint state in a context that was rebuilt after the OSGi service registry was changed:
+     * Registers the remembered services again and restores the content.
+     * @param targetBundleContext Bundle context of the rebuilt context
+     * @param resourceResolver Resource resolver of the rebuilt context, or null if the context has no resource
+     *            resolver
+     * @return true if the content was restored
+     */
+    boolean restore(@NotNull BundleContext targetBundleContext, @Nullable ResourceResolver resourceResolver) {
+        for (ServiceState serviceState : services) {
+            targetBundleContext.registerService(
+                    serviceState.objectClass(),
+                    serviceState.service(),
+                    MapUtil.toDictionary(serviceState.properties()));
+        }
+        return resourceResolver == null || restoreContent(resourceResolver);
+    }
+
+    private boolean restoreContent(@NotNull ResourceResolver resourceResolver) {
+        Resource root = resourceResolver.getResource("/");
+        if (root == null) {
+            return true;
+        }
+        List<Resource> newResources = new ArrayList<>();
+        collectNewResources(root, newResources);
+        try {
+            for (Resource resource : newResources) {
+                resourceResolver.delete(resource);
+            }
+            if (restoreProperties) {
+                restoreProperties(resourceResolver);
+            }
+            if (resourceResolver.hasChanges()) {
+                resourceResolver.commit();
+            }
+            return true;
+        } catch (PersistenceException | RuntimeException ex) {
+            log.debug("Unable to roll back content of context, bundleContext={}", bundleContext, ex);
+            return false;
+        }
+    }
+
+    private void restoreProperties(@NotNull ResourceResolver resourceResolver) throws PersistenceException {
+        for (Map.Entry<String, Map<String, Object>> entry : resources.entrySet()) {
+            String path = entry.getKey();
+            Map<String, Object> properties = entry.getValue();
+            Resource resource = resourceResolver.getResource(path);
+            if (resource == null) {
+                Resource parent = resourceResolver.getResource(ResourceUtil.getParent(path));
+                if (parent == null) {
+                    throw new PersistenceException("Unable to restore resource without parent: " + path);
+                }
+                resourceResolver.create(parent, ResourceUtil.getName(path), toWritableProperties(properties));
+            } else if (!hasProperties(resource, properties)) {
+                ModifiableValueMap modifiableProperties = resource.adaptTo(ModifiableValueMap.class);
+                if (modifiableProperties == null) {
+                    throw new PersistenceException("Unable to restore properties of resource: " + path);
+                }
+                List<String> removedNames = new ArrayList<>();
+                for (String name : modifiableProperties.keySet()) {
+                    if (!properties.containsKey(name) && !SnapshotValues.isProtectedProperty(name)) {
+                        removedNames.add(name);
+                    }
+                }
+                removedNames.forEach(modifiableProperties::remove);
+                Map<String, Object> currentProperties = getProperties(resource);
+                properties.forEach((name, value) -> {
+                    if (!Objects.deepEquals(value, currentProperties.get(name))) {
+                        modifiableProperties.put(name, SnapshotValues.toWritableValue(value));
+                    }
+                });
+            }
+        }
+    }
+
+    private static boolean hasProperties(@NotNull Resource resource, @NotNull Map<String, Object> properties) {
+        Map<String, Object> currentProperties = getProperties(resource);
+        if (!currentProperties.keySet().equals(properties.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            if (!Objects.deepEquals(entry.getValue(), currentProperties.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void collectNewResources(@NotNull Resource resource, @NotNull List<Resource> newResources) {
+        for (Resource child : resource.getChildren()) {
+            if (!resources.containsKey(child.getPath())) {
+                // deleting the topmost new resource removes its whole subtree
+                newResources.add(child);
+            } else if (!isSystemResource(child)) {
+                collectNewResources(child, newResources);
+            }
+        }
+    }
+
+    /**
+     * Service registered after the context setup.
+     * @param objectClass Service interfaces
+     * @param service Service instance
+     * @param properties Service properties without the properties maintained by the framework
+     */
+    private record ServiceState(
+            @NotNull String[] objectClass,
+            @NotNull Object service,
+            @NotNull Map<String, Object> properties) {}
+
+    /**
+     * Stop tracking changes in the service registry.
+     */
+    void close() {
+        bundleContext.removeServiceListener(this);
+    }
+}
@@ -21,18 +21,25 @@ package org.apache.sling.testing.mock.sling.context;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 
-import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
+import org.apache.commons.lang3.Strings;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.sling.api.SlingJakartaHttpServletRequest;
 import org.apache.sling.api.adapter.AdapterFactory;
 import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
@@ -40,6 +47,7 @@ import org.apache.sling.api.scripting.SlingBindings;
 import org.apache.sling.api.scripting.SlingScriptHelper;
 import org.apache.sling.commons.mime.MimeTypeService;
 import org.apache.sling.featureflags.impl.FeatureManager;
+import org.apache.sling.i18n.ResourceBundleProvider;
 import org.apache.sling.jcr.resource.internal.scripting.JcrObjectsBindingsValuesProvider;
 import org.apache.sling.models.impl.ModelAdapterFactory;
 import org.apache.sling.resourcebuilder.api.ResourceBuilder;
@@ -47,28 +55,43 @@ import org.apache.sling.resourcebuilder.api.ResourceBuilderFactory;
 import org.apache.sling.resourcebuilder.impl.ResourceBuilderFactoryService;
 import org.apache.sling.scripting.core.impl.BindingsValuesProvidersByContextImpl;
 import org.apache.sling.settings.SlingSettingsService;
+import org.apache.sling.spi.resource.provider.ResourceProvider;
+import org.apache.sling.testing.mock.osgi.MapUtil;
 import org.apache.sling.testing.mock.osgi.MockOsgi;
 import org.apache.sling.testing.mock.osgi.context.OsgiContextImpl;
+import org.apache.sling.testing.mock.sling.ContextProfile;
+import org.apache.sling.testing.mock.sling.ContextProfile.Phase;
 import org.apache.sling.testing.mock.sling.MockResourceBundleProvider;
 import org.apache.sling.testing.mock.sling.MockSling;
 import org.apache.sling.testing.mock.sling.MockXSSFilter;
+import org.apache.sling.testing.mock.sling.NodeTypeDefinitionScanner;
+import org.apache.sling.testing.mock.sling.NodeTypeMode;
 import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.SnapshotCache;
 import org.apache.sling.testing.mock.sling.builder.ContentBuilder;
+import org.apache.sling.testing.mock.sling.internal.OptionalClassRegistry;
 import org.apache.sling.testing.mock.sling.loader.ContentLoader;
 import org.apache.sling.testing.mock.sling.services.MockMimeTypeService;
 import org.apache.sling.testing.mock.sling.services.MockSlingSettingService;
 import org.apache.sling.testing.mock.sling.servlet.MockRequestPathInfo;
 import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletRequest;
 import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletResponse;
+import org.apache.sling.xss.XSSAPI;
+import org.apache.sling.xss.XSSFilter;
 import org.apache.sling.xss.impl.XSSAPIImpl;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.osgi.annotation.versioning.ConsumerType;
 import org.osgi.framework.Constants;
+import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.event.EventHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static org.apache.sling.testing.mock.sling.context.MockSlingBindings.SERVICE_PROPERTY_MOCK_SLING_BINDINGS_IGNORE;
+import static org.apache.sling.testing.mock.sling.context.PooledContextBaseline.SERVICE_PROPERTY_POOLED_CONTEXT_IGNORE;
 import static org.osgi.service.event.EventConstants.EVENT_TOPIC;
 
 /**
@@ -89,6 +112,39 @@ public class SlingContextImpl extends OsgiContextImpl {
     private static final @NotNull String RESOURCERESOLVERFACTORYACTIVATOR_PID =
             "org.apache.sling.jcr.resource.internal.JcrResourceResolverFactoryImpl";
 
+    private static final @NotNull String @NotNull [] SCRIPTING_SERVICE_CLASS_NAMES = {
+        "org.apache.sling.scripting.core.impl.ScriptEngineManagerFactory",
+        "org.apache.sling.scripting.core.impl.jsr223.SlingScriptEngineManager"
+    };
+
+    private static final @NotNull String @NotNull [] SLING_MODELS_SERVICE_CLASS_NAMES = {
+        "org.apache.sling.models.impl.FirstImplementationPicker",
+        "org.apache.sling.models.impl.ResourceTypeBasedResourcePicker",
+        "org.apache.sling.models.impl.injectors.BindingsInjector",
+        "org.apache.sling.models.impl.injectors.ChildResourceInjector",
+        "org.apache.sling.models.impl.injectors.OSGiServiceInjector",
+        "org.apache.sling.models.impl.injectors.RequestAttributeInjector",
+        "org.apache.sling.models.impl.injectors.ResourcePathInjector",
+        "org.apache.sling.models.impl.injectors.SelfInjector",
+        "org.apache.sling.models.impl.injectors.SlingObjectInjector",
+        "org.apache.sling.models.impl.injectors.ValueMapInjector",
+        "org.apache.sling.models.impl.via.BeanPropertyViaProvider",
+        "org.apache.sling.models.impl.via.ChildResourceViaProvider",
+        "org.apache.sling.models.impl.via.ForcedResourceTypeViaProvider",
+        "org.apache.sling.models.impl.via.ResourceSuperTypeViaProvider"
+    };
+
+    private static final String SYSTEM_PROPERTY_SNAPSHOT_CACHE_SIZE_MB = "sling.mock.context.snapshot.cache.size.mb";
+
+    /**
+     * Snapshots taken with {@link #snapshot(String)}, shared by all contexts in the JVM.
+     */
+    private static final SnapshotCache<SnapshotKey, ContentSnapshot> SNAPSHOTS = new SnapshotCache<>(
+            "context snapshots",
+            NumberUtils.toLong(System.getProperty(SYSTEM_PROPERTY_SNAPSHOT_CACHE_SIZE_MB), 128L) * 1024L * 1024L);
+
+    private static final Logger log = LoggerFactory.getLogger(SlingContextImpl.class);
+
     /**
      * Resource resolver factory
      */
@@ -164,6 +220,20 @@ public class SlingContextImpl extends OsgiContextImpl {
 
     private Map<String, Object> resourceResolverFactoryActivatorProps;
     private boolean registerSlingModelsFromClassPath = true;
+    private boolean pooled;
+    private boolean lazyDefaultServices;
+    private boolean parallelSetUp;
+    private ParallelSetUp parallelSetUpTasks;
+    private Set<DefaultServiceGroup> defaultServiceGroups = EnumSet.allOf(DefaultServiceGroup.class);
+    private PooledContextBaseline pooledContextBaseline;
+    private Set<String> pooledContextRunModes;
+    private PooledContextBaseline checkpoint;
+    private final List<LazyServiceFactory<?>> lazyServiceFactories = new ArrayList<>();
+    private Set<String> checkpointRunModes;
+    private Set<Long> setUpServiceIds;
+    private final List<ServiceRegistration<EventHandler>> slingBindingsRegistrations = new ArrayList<>();
+    private final ContextProfile profile = new ContextProfile();
+    private String testName;
 
     /**
      * @param resourceResolverType Resource resolver type
@@ -190,28 +260,177 @@ public class SlingContextImpl extends OsgiContextImpl {
         this.registerSlingModelsFromClassPath = registerSlingModelsFromClassPath;
     }
 
+    /**
+     * @param pooled Keep the context initialized after a test run and reset it to the state after setup
+     *            instead of tearing it down. This only pays off if the same context instance is used for
+     *            multiple test runs. The JUnit rule or extension drives the pooled context via
+     *            {@link #reusePooledContext()}, {@link #initPooledContext()} and {@link #resetPooledContext()},
+     *            and tears it down with {@link #tearDown()} after the last test run.
+     */
+    protected void setPooled(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    /**
+     * @param defaultServiceGroups Groups of default services to register on setup.
+     *            Basic services required for resource handling are always registered.
+     */
+    protected void setDefaultServiceGroups(@NotNull Set<DefaultServiceGroup> defaultServiceGroups) {
+        this.defaultServiceGroups = defaultServiceGroups.isEmpty()
+                ? EnumSet.noneOf(DefaultServiceGroup.class)
+                : EnumSet.copyOf(defaultServiceGroups);
+    }
+
+    /**
+     * @param lazyDefaultServices Register default services that are not required by other default services as
+     *            deferred registrations, which are instantiated and activated only on first lookup or reference binding.
+     */
+    protected void setLazyDefaultServices(boolean lazyDefaultServices) {
+        this.lazyDefaultServices = lazyDefaultServices;
+    }
+
+    /**
+     * @param parallelSetUp Run independent parts of the setup like classpath scanning and parsing of
+     *            node type definitions concurrently on a bounded thread pool. Services are still registered
+     *            in the same order as in a serial setup.
+     */
+    protected void setParallelSetUp(boolean parallelSetUp) {
+        this.parallelSetUp = parallelSetUp;
+    }
+
+    /**
+     * @param testName Name of the test run the context is used for. Used when writing the context profile.
+     */
+    protected void setTestName(@Nullable String testName) {
+        this.testName = testName;
+    }
+
     /**
      * Setup actions before test method execution
      */
     @Override
     protected void setUp() {
-        super.setUp();
-        MockSling.setAdapterManagerBundleContext(bundleContext());
+        this.profile.reset();
+        this.profile.bindToCurrentThread();
+        long startTime = System.nanoTime();
+        try {
+            setUpSlingContext();
+        } finally {
+            ContextProfile.record(Phase.SET_UP, startTime);
+            ContextProfile.unbindFromCurrentThread();
+        }
+    }
+
+    private void setUpSlingContext() {
+        if (this.parallelSetUp) {
+            this.parallelSetUpTasks = startParallelSetUpTasks();
+        }
+        try {
+            super.setUp();
+            MockSling.setAdapterManagerBundleContext(bundleContext());
+
+            if (this.resourceResolverFactoryActivatorProps != null) {
+                // use OSGi ConfigurationAdmin to pass over customized configuration to Resource Resolver Factory
+                // Activator service
+                MockOsgi.setConfigForPid(
+                        bundleContext(),
+                        RESOURCERESOLVERFACTORYACTIVATOR_PID,
+                        this.resourceResolverFactoryActivatorProps);
+            }
+
+            // automatically register resource resolver factory when ResourceResolverType != NONE,
+            // so the ResourceResolverFactory is available as OSGi service immediately
+            if (resourceResolverType != ResourceResolverType.NONE) {
+                resourceResolverFactory();
+            }
 
-        if (this.resourceResolverFactoryActivatorProps != null) {
-            // use OSGi ConfigurationAdmin to pass over customized configuration to Resource Resolver Factory Activator
-            // service
-            MockOsgi.setConfigForPid(
-                    bundleContext(), RESOURCERESOLVERFACTORYACTIVATOR_PID, this.resourceResolverFactoryActivatorProps);
+            long startTime = System.nanoTime();
+            registerDefaultServices();
+            ContextProfile.record(Phase.REGISTER_DEFAULT_SERVICES, startTime);
+
+            // remember services registered by the setup, a checkpoint restores only the services registered later
+            this.setUpServiceIds = PooledContextBaseline.getServiceIds(bundleContext());
+        } finally {
+            if (this.parallelSetUpTasks != null) {
+                this.parallelSetUpTasks.join();
+                this.parallelSetUpTasks = null;
+            }
+        }
+    }
+
+    /**
+     * Prepares a pooled context that is still set up from a previous test run for the next test run.
+     * In this case, neither {@link #setUp()} nor the setup callbacks of the context plugins have to be called.
+     * @return true if the pooled context is reused, false if the context has to be set up
+     */
+    protected final boolean reusePooledContext() {
+        if (this.pooledContextBaseline == null) {
+            return false;
         }
+        this.profile.reset();
+        MockSling.setAdapterManagerBundleContext(bundleContext());
+        return true;
+    }
 
-        // automatically register resource resolver factory when ResourceResolverType != NONE,
-        // so the ResourceResolverFactory is available as OSGi service immediately
-        if (resourceResolverType != ResourceResolverType.NONE) {
-            resourceResolverFactory();
+    /**
+     * Remembers the state of a pooled context as baseline to reset it to after each test run.
+     * Has to be called after {@link #setUp()} and the after setup callbacks of the context plugins, so changes
+     * done by the callbacks are part of the baseline. Pending changes in the resource resolver are committed before.
+     * Does nothing if the context is not pooled.
+     */
+    protected final void initPooledContext() {
+        if (!this.pooled || this.pooledContextBaseline != null) {
+            return;
+        }
+        ResourceResolver contentResourceResolver = null;
+        if (this.resourceResolverType != ResourceResolverType.NONE) {
+            contentResourceResolver = resourceResolver();
+            commitPendingChanges(contentResourceResolver, "pooled context baseline");
         }
+        this.pooledContextBaseline = new PooledContextBaseline(bundleContext(), contentResourceResolver);
+        this.pooledContextRunModes = getRunModes();
+    }
 
-        registerDefaultServices();
+    /**
+     * @return true if this is a pooled context that is set up and kept for the next test run
+     */
+    protected final boolean isPooledContextSetUp() {
+        return this.pooledContextBaseline != null;
+    }
+
+    /**
+     * Starts warm-up tasks that only fill JVM-wide caches and do not depend on each other.
+     * @return Parallel setup tasks
+     */
+    private @NotNull ParallelSetUp startParallelSetUpTasks() {
+        ParallelSetUp tasks = new ParallelSetUp();
+        if (resourceResolverType.getNodeTypeMode() != NodeTypeMode.NOT_SUPPORTED) {
+            tasks.submit("node type definitions", () -> NodeTypeDefinitionScanner.get()
+                    .preload());
+        }
+        if (registerSlingModelsFromClassPath && isDefaultServiceGroupEnabled(DefaultServiceGroup.SLING_MODELS)) {
+            tasks.submit("sling models from classpath", ModelAdapterFactoryUtil::prefetchModelsForManifestEntries);
+        }
+        List<String> classNames = new ArrayList<>();
+        if (isDefaultServiceGroupEnabled(DefaultServiceGroup.SCRIPTING)
+                || isDefaultServiceGroupEnabled(DefaultServiceGroup.SLING_MODELS)) {
+            classNames.addAll(Arrays.asList(SCRIPTING_SERVICE_CLASS_NAMES));
+        }
+        if (isDefaultServiceGroupEnabled(DefaultServiceGroup.SLING_MODELS)) {
+            classNames.addAll(Arrays.asList(SLING_MODELS_SERVICE_CLASS_NAMES));
+        }
+        if (isDefaultServiceGroupEnabled(DefaultServiceGroup.XSS)) {
+            classNames.add(MockXSSFilter.class.getName());
+            classNames.add(XSSAPIImpl.class.getName());
+        }
+        if (!classNames.isEmpty()) {
+            tasks.submit("optional service classes", () -> {
+                for (String className : classNames) {
+                    OptionalClassRegistry.get().getClass(className);
+                }
+            });
+        }
+        return tasks;
     }
 
     /**
@@ -235,71 +454,327 @@ public class SlingContextImpl extends OsgiContextImpl {
     protected void registerDefaultServices() {
 
         // scripting services (required by sling models impl since 1.3.6)
-        registerInjectActivateServiceByClassName(
-                "org.apache.sling.scripting.core.impl.ScriptEngineManagerFactory",
-                "org.apache.sling.scripting.core.impl.jsr223.SlingScriptEngineManager");
-        registerInjectActivateService(new BindingsValuesProvidersByContextImpl());
+        if (isDefaultServiceGroupEnabled(DefaultServiceGroup.SCRIPTING)
+                || isDefaultServiceGroupEnabled(DefaultServiceGroup.SLING_MODELS)) {
+            registerInjectActivateServiceByClassName(SCRIPTING_SERVICE_CLASS_NAMES);
+            registerInjectActivateService(new BindingsValuesProvidersByContextImpl());
+        }
 
         // sling models
-        registerInjectActivateService(new ModelAdapterFactory());
-        registerInjectActivateServiceByClassName(
-                "org.apache.sling.models.impl.FirstImplementationPicker",
-                "org.apache.sling.models.impl.ResourceTypeBasedResourcePicker",
-                "org.apache.sling.models.impl.injectors.BindingsInjector",
-                "org.apache.sling.models.impl.injectors.ChildResourceInjector",
-                "org.apache.sling.models.impl.injectors.OSGiServiceInjector",
-                "org.apache.sling.models.impl.injectors.RequestAttributeInjector",
-                "org.apache.sling.models.impl.injectors.ResourcePathInjector",
-                "org.apache.sling.models.impl.injectors.SelfInjector",
-                "org.apache.sling.models.impl.injectors.SlingObjectInjector",
-                "org.apache.sling.models.impl.injectors.ValueMapInjector",
-                "org.apache.sling.models.impl.via.BeanPropertyViaProvider",
-                "org.apache.sling.models.impl.via.ChildResourceViaProvider",
-                "org.apache.sling.models.impl.via.ForcedResourceTypeViaProvider",
-                "org.apache.sling.models.impl.via.ResourceSuperTypeViaProvider");
+        if (isDefaultServiceGroupEnabled(DefaultServiceGroup.SLING_MODELS)) {
+            registerInjectActivateService(new ModelAdapterFactory());
+            registerInjectActivateServiceByClassName(SLING_MODELS_SERVICE_CLASS_NAMES);
+        }
 
         // other services
         registerService(SlingSettingsService.class, new MockSlingSettingService(DEFAULT_RUN_MODES));
-        registerService(MimeTypeService.class, new MockMimeTypeService());
-        registerInjectActivateService(new ResourceBuilderFactoryService());
-        registerInjectActivateService(
-                new JcrObjectsBindingsValuesProvider(), SERVICE_PROPERTY_MOCK_SLING_BINDINGS_IGNORE, true);
-        registerInjectActivateService(new MockResourceBundleProvider());
-        registerInjectActivateService(MockXSSFilter.class);
-        registerInjectActivateService(XSSAPIImpl.class);
-        registerInjectActivateService(new FeatureManager());
+        if (this.lazyDefaultServices) {
+            registerLazyService(
+                    MimeTypeService.class, MockMimeTypeService.class, MockMimeTypeService::new, service -> {});
+            registerLazyInjectActivateService(ResourceBuilderFactory.class, ResourceBuilderFactoryService.class);
+        } else {
+            registerService(MimeTypeService.class, new MockMimeTypeService());
+            registerInjectActivateService(new ResourceBuilderFactoryService());
+        }
+        if (isDefaultServiceGroupEnabled(DefaultServiceGroup.SCRIPTING)) {
+            registerInjectActivateService(
+                    new JcrObjectsBindingsValuesProvider(), SERVICE_PROPERTY_MOCK_SLING_BINDINGS_IGNORE, true);
+        }
+        if (isDefaultServiceGroupEnabled(DefaultServiceGroup.I18N)) {
+            if (this.lazyDefaultServices) {
+                registerLazyInjectActivateService(ResourceBundleProvider.class, MockResourceBundleProvider.class);
+            } else {
+                registerInjectActivateService(new MockResourceBundleProvider());
+            }
+        }
+        if (isDefaultServiceGroupEnabled(DefaultServiceGroup.XSS)) {
+            if (this.lazyDefaultServices) {
+                registerLazyInjectActivateService(XSSFilter.class, MockXSSFilter.class);
+                registerLazyInjectActivateService(XSSAPI.class, XSSAPIImpl.class);
+            } else {
+                registerInjectActivateService(MockXSSFilter.class);
+                registerInjectActivateService(XSSAPIImpl.class);
+            }
+        }
+        if (isDefaultServiceGroupEnabled(DefaultServiceGroup.FEATURE_FLAGS)) {
+            registerInjectActivateService(new FeatureManager());
+        }
 
         // scan for models defined via bundle headers in classpath
-        if (registerSlingModelsFromClassPath) {
+        if (registerSlingModelsFromClassPath && isDefaultServiceGroupEnabled(DefaultServiceGroup.SLING_MODELS)) {
+            long startTime = System.nanoTime();
             ModelAdapterFactoryUtil.addModelsForManifestEntries(this.bundleContext());
+            ContextProfile.record(Phase.REGISTER_MODELS_FROM_CLASSPATH, startTime);
         }
     }
 
-    @SuppressWarnings("null")
+    /**
+     * @param serviceGroup Default service group
+     * @return true if the default services of this group are registered on setup
+     */
+    protected final boolean isDefaultServiceGroupEnabled(@NotNull DefaultServiceGroup serviceGroup) {
+        return this.defaultServiceGroups.contains(serviceGroup);
+    }
+
+    /**
+     * Registers a service that is instantiated on first lookup or reference binding.
+     * The service properties are read from the OSGi metadata of the implementation class.
+     * @param serviceClass Service interface
+     * @param implClass Service implementation class
+     * @param serviceSupplier Creates the service instance
+     * @param serviceDeactivator Deactivates the service instance on teardown
+     */
+    private <T> void registerLazyService(
+            @NotNull Class<T> serviceClass,
+            @NotNull Class<? extends T> implClass,
+            @NotNull Supplier<T> serviceSupplier,
+            @NotNull Consumer<T> serviceDeactivator) {
+        LazyServiceFactory<T> serviceFactory = new LazyServiceFactory<>(serviceSupplier, serviceDeactivator);
+        this.lazyServiceFactories.add(serviceFactory);
+        bundleContext()
+                .registerService(
+                        serviceClass.getName(),
+                        serviceFactory,
+                        MapUtil.toDictionary(new HashMap<>(ComponentProperties.get(implClass))));
+    }
+
+    /**
+     * Registers a service that is instantiated, injected and activated on first lookup or reference binding.
+     * @param serviceClass Service interface
+     * @param implClass Service implementation class
+     */
+    private <T> void registerLazyInjectActivateService(
+            @NotNull Class<T> serviceClass, @NotNull Class<? extends T> implClass) {
+        Map<String, Object> properties = ComponentProperties.get(implClass);
+        registerLazyService(
+                serviceClass,
+                implClass,
+                () -> MockOsgi.activateInjectServices(implClass, bundleContext(), new HashMap<>(properties)),
+                service -> MockOsgi.deactivate(service, bundleContext()));
+    }
+
     private void registerInjectActivateServiceByClassName(@NotNull String @NotNull ... classNames) {
         for (String className : classNames) {
-            try {
-                Class<?> clazz = Class.forName(className);
-                registerInjectActivateService(clazz.getDeclaredConstructor().newInstance());
-            } catch (ClassNotFoundException
-                    | InstantiationException
-                    | IllegalAccessException
-                    | IllegalArgumentException
-                    | InvocationTargetException
-                    | NoSuchMethodException
-                    | SecurityException e) {
-                // ignore - probably not the latest sling models impl version
+            Object service = OptionalClassRegistry.get().newInstance(className);
+            if (service != null) {
+                registerInjectActivateService(service);
             }
+            // otherwise ignore - probably not the latest sling models impl version
         }
     }
 
     /**
      * Teardown actions after test method execution
      */
-    @SuppressWarnings("deprecation")
     @Override
     protected void tearDown() {
+        this.profile.bindToCurrentThread();
+        long startTime = System.nanoTime();
+        try {
+            tearDownSlingContext();
+        } finally {
+            ContextProfile.record(Phase.TEAR_DOWN, startTime);
+            ContextProfile.unbindFromCurrentThread();
+        }
+        ContextProfileWriter.write(this.profile, this.testName, this.resourceResolverType);
+    }
+
+    private void tearDownSlingContext() {
+        for (LazyServiceFactory<?> serviceFactory : this.lazyServiceFactories) {
+            serviceFactory.dispose();
+        }
+        this.lazyServiceFactories.clear();
+        if (this.pooledContextBaseline != null) {
+            this.pooledContextBaseline.close();
+            this.pooledContextBaseline = null;
+        }
+        if (this.checkpoint != null) {
+            this.checkpoint.close();
+            this.checkpoint = null;
+        }
+
+        tearDownSlingBindings();
+
+        if (this.resourceResolver != null) {
+            revertResourceResolver();
+
+            // close resource resolver
+            this.resourceResolver.close();
+        }
+
+        clearContextObjects();
+        this.resourceResolverFactory = null;
+
+        super.tearDown();
+
+        MockSling.clearAdapterManagerBundleContext();
+    }
 
+    /**
+     * Resets a pooled context to the state after setup instead of tearing it down.
+     * If the OSGi service registry was changed during the test run, the baseline is discarded and the context
+     * has to be torn down with {@link #tearDown()}, it is set up again on the next test run.
+     * @return true if the pooled context was reset, false if it has to be torn down
+     */
+    protected final boolean resetPooledContext() {
+        if (this.pooledContextBaseline == null) {
+            return false;
+        }
+        this.profile.bindToCurrentThread();
+        long startTime = System.nanoTime();
+        boolean restored;
+        try {
+            restored = restoreBaseline(this.pooledContextBaseline);
+            MockSling.clearAdapterManagerBundleContext();
+            if (restored) {
+                runMode(this.pooledContextRunModes.toArray(new String[0]));
+            }
+        } finally {
+            ContextProfile.record(Phase.TEAR_DOWN, startTime);
+            ContextProfile.unbindFromCurrentThread();
+        }
+        if (!restored) {
+            log.debug("Discarding pooled context after service registry changes, bundleContext={}", bundleContext());
+            this.pooledContextBaseline.close();
+            this.pooledContextBaseline = null;
+            return false;
+        }
+        ContextProfileWriter.write(this.profile, this.testName, this.resourceResolverType);
+        return true;
+    }
+
+    /**
+     * Remembers the current state of the context as checkpoint to return to with {@link #restoreCheckpoint()}:
+     * The resource tree including all properties, the run modes and the OSGi service registry.
+     * Pending changes in the resource resolver are committed before.
+     */
+    protected void createCheckpoint() {
+        if (this.checkpoint != null) {
+            this.checkpoint.close();
+        }
+        ResourceResolver contentResourceResolver = null;
+        if (this.resourceResolverType != ResourceResolverType.NONE) {
+            contentResourceResolver = resourceResolver();
+            commitPendingChanges(contentResourceResolver, "checkpoint");
+        }
+        this.checkpoint = new PooledContextBaseline(bundleContext(), contentResourceResolver, this.setUpServiceIds);
+        this.checkpointRunModes = getRunModes();
+    }
+
+    /**
+     * Restores the state remembered by {@link #createCheckpoint()}. Context objects like request and response
+     * are created again on next access.
+     * <p>
+     * If OSGi services were registered, unregistered or modified since the checkpoint was created, the registry
+     * cannot be rolled back in place. In this case the context is rebuilt: it is torn down and set up again,
+     * the services that were registered after the setup at checkpoint time are registered again with the same
+     * instances and properties, and the content is restored. The callbacks of the context plugins are not
+     * executed again, services they registered are restored like all others.
+     * </p>
+     * <p>
+     * Restoring walks the whole resource tree, so it takes time proportional to the size of the content.
+     * </p>
+     * @throws IllegalStateException if no checkpoint was created, or the content could not be restored even
+     *             in the rebuilt context. In the latter case a new checkpoint is created from the current state,
+     *             so the following test runs are not affected.
+     */
+    protected void restoreCheckpoint() {
+        if (this.checkpoint == null) {
+            throw new IllegalStateException("No checkpoint created.");
+        }
+        // keep unique root paths created before the checkpoint
+        UniqueRoot checkpointUniqueRoot = this.uniqueRoot;
+        this.uniqueRoot = null;
+        boolean restored = restoreBaseline(this.checkpoint);
+        if (!restored) {
+            restored = rebuildFromCheckpoint();
+        }
+        this.uniqueRoot = checkpointUniqueRoot;
+        runMode(this.checkpointRunModes.toArray(new String[0]));
+
+        if (!restored) {
+            createCheckpoint();
+            throw new IllegalStateException(
+                    "Unable to restore context checkpoint: The content could not be rolled back.");
+        }
+    }
+
+    /**
+     * Tears down the context and sets it up again with the services and content remembered in the checkpoint.
+     * @return true if the content was restored
+     */
+    private boolean rebuildFromCheckpoint() {
+        log.debug("Rebuilding context after service registry changes, bundleContext={}", bundleContext());
+        PooledContextBaseline previousCheckpoint = this.checkpoint;
+        Set<String> previousCheckpointRunModes = this.checkpointRunModes;
+        this.checkpoint = null;
+        previousCheckpoint.close();
+
+        this.profile.bindToCurrentThread();
+        try {
+            tearDownSlingContext();
+            setUpSlingContext();
+        } finally {
+            ContextProfile.unbindFromCurrentThread();
+        }
+
+        ResourceResolver contentResourceResolver = null;
+        if (this.resourceResolverType != ResourceResolverType.NONE) {
+            contentResourceResolver = resourceResolver();
+        }
+        boolean restored = previousCheckpoint.restore(bundleContext(), contentResourceResolver);
+        runMode(previousCheckpointRunModes.toArray(new String[0]));
+        if (restored) {
+            createCheckpoint();
+        }
+        if (contentResourceResolver != null) {
+            contentResourceResolver.close();
+        }
+        clearContextObjects();
+        return restored;
+    }
+
+    private static void commitPendingChanges(@NotNull ResourceResolver resourceResolver, @NotNull String purpose) {
+        if (resourceResolver.hasChanges()) {
+            try {
+                resourceResolver.commit();
+            } catch (PersistenceException ex) {
+                throw new RuntimeException("Unable to commit changes before creating " + purpose + ".", ex);
+            }
+        }
+    }
+
+    private boolean restoreBaseline(@NotNull PooledContextBaseline baseline) {
+        tearDownSlingBindings();
+        for (ServiceRegistration<EventHandler> registration : this.slingBindingsRegistrations) {
+            registration.unregister();
+        }
+        this.slingBindingsRegistrations.clear();
+
+        ResourceResolver contentResourceResolver = null;
+        if (this.resourceResolverType != ResourceResolverType.NONE) {
+            contentResourceResolver = resourceResolver();
+            revertResourceResolver();
+        }
+        boolean restored = baseline.restore(contentResourceResolver);
+        if (contentResourceResolver != null) {
+            contentResourceResolver.close();
+        }
+
+        clearContextObjects();
+        return restored;
+    }
+
+    private @NotNull Set<String> getRunModes() {
+        ServiceReference<SlingSettingsService> ref = bundleContext().getServiceReference(SlingSettingsService.class);
+        if (ref != null) {
+            return new HashSet<>(bundleContext().getService(ref).getRunModes());
+        }
+        return DEFAULT_RUN_MODES;
+    }
+
+    @SuppressWarnings("deprecation")
+    private void tearDownSlingBindings() {
         if (this.request != null) {
             SlingBindings slingBindings = (SlingBindings) this.request.getAttribute(SlingBindings.class.getName());
             if (slingBindings instanceof MockSlingBindings mockSlingBindings) {
@@ -313,35 +788,41 @@ public class SlingContextImpl extends OsgiContextImpl {
                 mockSlingBindings.tearDown();
             }
         }
+    }
 
-        if (this.resourceResolver != null) {
-
-            // revert potential unsaved changes in resource resolver/JCR session
+    /**
+     * Revert potential unsaved changes in resource resolver/JCR session and remove unique roots.
+     */
+    private void revertResourceResolver() {
+        long startTime = System.nanoTime();
+        try {
+            this.resourceResolver.revert();
+        } catch (UnsupportedOperationException ex) {
+            // ignore - this may happen when jcr-mock is used
+        }
+        Session session = this.resourceResolver.adaptTo(Session.class);
+        if (session != null) {
             try {
-                this.resourceResolver.revert();
+                session.refresh(false);
+            } catch (RepositoryException ex) {
+                // ignore
             } catch (UnsupportedOperationException ex) {
                 // ignore - this may happen when jcr-mock is used
             }
-            Session session = this.resourceResolver.adaptTo(Session.class);
-            if (session != null) {
-                try {
-                    session.refresh(false);
-                } catch (RepositoryException ex) {
-                    // ignore
-                } catch (UnsupportedOperationException ex) {
-                    // ignore - this may happen when jcr-mock is used
-                }
-            }
+        }
 
-            // remove unique roots
-            if (this.uniqueRoot != null) {
-                this.uniqueRoot.cleanUp();
-            }
+        ContextProfile.record(Phase.REVERT_RESOURCE_RESOLVER, startTime);
 
-            // close resource resolver
-            this.resourceResolver.close();
+        // remove unique roots
+        if (this.uniqueRoot != null) {
+            startTime = System.nanoTime();
+            this.uniqueRoot.cleanUp();
+            ContextProfile.record(Phase.UNIQUE_ROOT_CLEANUP, startTime);
         }
+    }
 
+    @SuppressWarnings("deprecation")
+    private void clearContextObjects() {
         this.resourceResolver = null;
         this.request = null;
         this.jakartaRequest = null;
@@ -353,11 +834,7 @@ public class SlingContextImpl extends OsgiContextImpl {
         this.contentBuilder = null;
         this.resourceBuilder = null;
         this.uniqueRoot = null;
-        this.resourceResolverFactory = null;
-
-        super.tearDown();
-
-        MockSling.clearAdapterManagerBundleContext();
+        this.slingBindingsRegistrations.clear();
     }
 
     /**
@@ -399,11 +876,7 @@ public class SlingContextImpl extends OsgiContextImpl {
             MockSlingBindings bindings = new MockSlingBindings(this);
 
             // register as OSGi event handler to get notified on events fired by BindingsValuesProvidersByContextImpl
-            this.registerService(
-                    EventHandler.class,
-                    bindings,
-                    EVENT_TOPIC,
-                    "org/apache/sling/scripting/core/BindingsValuesProvider/*");
+            registerSlingBindingsEventHandler(bindings);
 
             this.request.setAttribute(SlingBindings.class.getName(), bindings);
         }
@@ -421,17 +894,21 @@ public class SlingContextImpl extends OsgiContextImpl {
             MockSlingBindings bindings = new MockSlingBindings(this);
 
             // register as OSGi event handler to get notified on events fired by BindingsValuesProvidersByContextImpl
-            this.registerService(
-                    EventHandler.class,
-                    bindings,
-                    EVENT_TOPIC,
-                    "org/apache/sling/scripting/core/BindingsValuesProvider/*");
+            registerSlingBindingsEventHandler(bindings);
 
             this.jakartaRequest.setAttribute(SlingBindings.class.getName(), bindings);
         }
         return this.jakartaRequest;
     }
 
+    private void registerSlingBindingsEventHandler(@NotNull MockSlingBindings bindings) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(EVENT_TOPIC, "org/apache/sling/scripting/core/BindingsValuesProvider/*");
+        props.put(SERVICE_PROPERTY_POOLED_CONTEXT_IGNORE, true);
+        this.slingBindingsRegistrations.add(
+                bundleContext().registerService(EventHandler.class, bindings, MapUtil.toDictionary(props)));
+    }
+
     /**
      * Dynamically resolve property request for current request {@link SlingBindings}.
      * @param property Property key
@@ -657,6 +1134,112 @@ public class SlingContextImpl extends OsgiContextImpl {
         return uniqueRoot;
     }
 
+    /**
+     * Takes a snapshot of the whole resource tree and keeps it under the given name, so it can be restored with
+     * {@link #restore(String)} by this or any other context in the same JVM - e.g. after an expensive content import.
+     * Pending changes are committed before. The snapshots are kept in a cache with a maximum memory size that can be
+     * set with the system property <code>sling.mock.context.snapshot.cache.size.mb</code> (default: 128), the least
+     * recently used snapshots are evicted if it is exceeded.
+     * <p>
+     * The snapshot is a copy of all resources and properties, binary data is kept in memory. Properties maintained
+     * by a JCR repository like <code>jcr:created</code> or <code>jcr:uuid</code> are not included. Read-only content
+     * mounted by other resource providers is not included, and kept as it is on restore.
+     * </p>
+     * <p>
+     * Snapshot names are scoped by the resource resolver type: A snapshot can only be restored by contexts with the
+     * same resource resolver type.
+     * </p>
+     * @param name Snapshot name
+     * @throws IllegalStateException if the resource resolver type is {@link ResourceResolverType#NONE}
+     */
+    public final void snapshot(@NotNull String name) {
+        ensureSnapshotsSupported();
+        ResourceResolver contentResourceResolver = resourceResolver();
+        commitPendingChanges(contentResourceResolver, "snapshot " + name);
+        ContentSnapshot snapshot = ContentSnapshot.create(contentResourceResolver, getMountedPaths());
+        SNAPSHOTS.put(new SnapshotKey(this.resourceResolverType, name), snapshot, snapshot.getEstimatedSize());
+    }
+
+    /**
+     * Replaces the resource tree with the snapshot taken with {@link #snapshot(String)} under the given name.
+     * Allows to share a fixture between test classes:
+     * <pre>
+     * if (!context.restore("fixture")) {
+     *     context.load().json("/fixture.json", "/content/fixture");
+     *     context.snapshot("fixture");
+     * }
+     * </pre>
+     * @param name Snapshot name
+     * @return true if the snapshot was restored, false if no snapshot with this name was taken yet or it was
+     *         evicted from the cache
+     * @throws IllegalStateException if the resource resolver type is {@link ResourceResolverType#NONE}
+     */
+    public final boolean restore(@NotNull String name) {
+        ensureSnapshotsSupported();
+        ContentSnapshot snapshot = SNAPSHOTS.get(new SnapshotKey(this.resourceResolverType, name));
+        if (snapshot == null) {
+            return false;
+        }
+        try {
+            snapshot.restore(resourceResolver(), getMountedPaths());
+        } catch (PersistenceException ex) {
+            throw new RuntimeException("Unable to restore snapshot: " + name, ex);
+        }
+        return true;
+    }
+
+    private void ensureSnapshotsSupported() {
+        if (this.resourceResolverType == ResourceResolverType.NONE) {
+            throw new IllegalStateException(
+                    "Snapshots are not supported with resource resolver type " + ResourceResolverType.NONE + ".");
+        }
+    }
+
+    /**
+     * @return Cache with the snapshots taken with {@link #snapshot(String)}, shared by all contexts in the JVM
+     */
+    public static @NotNull SnapshotCache<?, ?> snapshotCache() {
+        return SNAPSHOTS;
+    }
+
+    /**
+     * @return Root paths of the resource providers registered in addition to the one of the resource resolver type,
+     *         e.g. for mounted content
+     */
+    private @NotNull Set<String> getMountedPaths() {
+        Set<String> result = new HashSet<>();
+        try {
+            for (ServiceReference<ResourceProvider> reference :
+                    bundleContext().getServiceReferences(ResourceProvider.class, null)) {
+                Object root = reference.getProperty(ResourceProvider.PROPERTY_ROOT);
+                if (root instanceof String path && !Strings.CS.equals(path, "/")) {
+                    result.add(path);
+                }
+            }
+        } catch (InvalidSyntaxException ex) {
+            throw new RuntimeException("Unable to get resource providers.", ex);
+        }
+        return result;
+    }
+
+    /**
+     * Snapshots are kept per resource resolver type, as the content of one type cannot be restored to another
+     * type in every case - e.g. node types are only supported by JCR.
+     */
+    private record SnapshotKey(
+            @NotNull ResourceResolverType resourceResolverType,
+            @NotNull String name) {}
+
+    /**
+     * Time spent in the phases of the last setup and teardown of this context.
+     * If the system property <code>sling.mock.context.profile.file</code> is set, the profile of each test run
+     * is appended as JSON line to the given file after teardown.
+     * @return Context profile
+     */
+    public @NotNull ContextProfile profile() {
+        return profile;
+    }
+
     /**
      * Create a Sling AdapterFactory on the fly which can adapt from <code>adaptableClass</code>
      * to <code>adapterClass</code> and just returns the given value as result.
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.internal;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Singleton class that resolves classes of optional services by name, which may or may not be present
+ * in the classpath depending on the versions of the Sling bundles used.
+ * Each class is resolved only once per JVM - both found classes including their default constructor
+ * and missing classes are remembered.
+ * <p>
+ * This is an internal helper, the package is not exported.
+ * </p>
+ */
+public final class OptionalClassRegistry {
+
+    private static final OptionalClassRegistry SINGLETON = new OptionalClassRegistry();
+
+    private static final Logger log = LoggerFactory.getLogger(OptionalClassRegistry.class);
+
+    private final ConcurrentMap<String, ClassEntry> classEntries = new ConcurrentHashMap<>();
+    private final Set<String> skippedClassNames = ConcurrentHashMap.newKeySet();
+
+    private OptionalClassRegistry() {
+        // singleton
+    }
+
+    /**
+     * @param className Class name
+     * @return Class or null if the class is not present in classpath
+     */
+    public @Nullable Class<?> getClass(@NotNull String className) {
+        ClassEntry entry = getClassEntry(className);
+        if (entry.clazz() == null) {
+            skippedClassNames.add(className);
+        }
+        return entry.clazz();
+    }
+
+    /**
+     * Creates a new instance of the given class using its default constructor.
+     * @param className Class name
+     * @return New instance or null if the class is not present in classpath or cannot be instantiated
+     */
+    public @Nullable Object newInstance(@NotNull String className) {
+        ClassEntry entry = getClassEntry(className);
+        if (entry.constructor() == null) {
+            skippedClassNames.add(className);
+            return null;
+        }
+        try {
+            return entry.constructor().newInstance();
+        } catch (InstantiationException
+                | IllegalAccessException
+                | IllegalArgumentException
+                | InvocationTargetException ex) {
+            log.debug("Unable to instantiate {}", className, ex);
+            skippedClassNames.add(className);
+            return null;
+        }
+    }
+
+    /**
+     * @return Names of all classes that were requested, but were not present in classpath or
+     *         could not be instantiated.
+     */
+    public @NotNull Set<String> getSkippedClassNames() {
+        return Collections.unmodifiableSet(new TreeSet<>(skippedClassNames));
+    }
+
+    private @NotNull ClassEntry getClassEntry(@NotNull String className) {
+        return classEntries.computeIfAbsent(className, OptionalClassRegistry::resolveClassEntry);
+    }
+
+    private static @NotNull ClassEntry resolveClassEntry(@NotNull String className) {
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(className);
+        } catch (ClassNotFoundException | LinkageError ex) {
+            log.debug("Class not present in classpath: {}", className);
+            return new ClassEntry(null, null);
+        }
+        try {
+            return new ClassEntry(clazz, clazz.getDeclaredConstructor());
+        } catch (NoSuchMethodException | SecurityException ex) {
+            // ignore - class without default constructor, e.g. an interface
+            return new ClassEntry(clazz, null);
+        }
+    }
+
+    /**
+     * @return Optional class registry instance
+     */
+    public static @NotNull OptionalClassRegistry get() {
+        return SINGLETON;
+    }
+
+    private record ClassEntry(
+            @Nullable Class<?> clazz, @Nullable Constructor<?> constructor) {}
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import org.apache.sling.testing.mock.sling.spi.ResourceResolverTypeAdapter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Optional interface for {@link ResourceResolverTypeAdapter} implementations that support repository snapshots.
+ * It allows to estimate the memory size of snapshots and to share snapshots between JVMs via snapshot files.
+ * <p>
+ * This is an internal extension point, the package is not exported. It is not part of the SPI as long as no
+ * resource resolver type adapter of this project supports repository snapshots.
+ * </p>
+ */
+public interface RepositorySnapshotSupport {
+
+    /**
+     * Estimated memory size of a snapshot in bytes if the adapter does not provide an estimation.
+     */
+    long DEFAULT_SNAPSHOT_SIZE = 16L * 1024L * 1024L;
+
+    /**
+     * Estimate the memory size of a snapshot, which is used to keep the memory used by all
+     * snapshots in the JVM within a configured limit. The default implementation returns
+     * {@link #DEFAULT_SNAPSHOT_SIZE}.
+     * @param snapshot A snapshot object, returned by an earlier call to
+     *            {@link ResourceResolverTypeAdapter#snapshot(org.apache.sling.jcr.api.SlingRepository)}.
+     * @return Estimated memory size in bytes
+     */
+    default long estimateSnapshotSize(@NotNull Object snapshot) {
+        return DEFAULT_SNAPSHOT_SIZE;
+    }
+
+    /**
+     * Write a snapshot to a file, so it can be used by other JVMs, e.g. test JVMs forked for
+     * the same module. The default implementation does not support this and returns false.
+     * @param snapshot A snapshot object, returned by an earlier call to
+     *            {@link ResourceResolverTypeAdapter#snapshot(org.apache.sling.jcr.api.SlingRepository)}.
+     * @param file The file to write to.
+     * @return true if the snapshot was written, false if snapshot files are not supported.
+     * @throws IOException if writing the file failed
+     */
+    default boolean writeSnapshot(@NotNull Object snapshot, @NotNull Path file) throws IOException {
+        return false;
+    }
+
+    /**
+     * Read a snapshot from the content of a file written by {@link #writeSnapshot(Object, Path)}.
+     * The file is memory-mapped, the buffer remains valid after this method returns.
+     * The default implementation does not support this and returns null.
+     * @param data The file content.
+     * @return A snapshot object that can be passed to
+     *         {@link ResourceResolverTypeAdapter#newSlingRepositoryFromSnapshot(Object)},
+     *         or null if snapshot files are not supported.
+     * @throws IOException if the file content cannot be read
+     */
+    default @Nullable Object readSnapshot(@NotNull ByteBuffer data) throws IOException {
+        return null;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.util.Calendar;
+import java.util.Set;
+
+import org.apache.jackrabbit.JcrConstants;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Copies property values for content that is kept beyond the lifetime of a resource resolver, e.g. snapshots of
+ * the resource tree, and estimates their memory size.
+ * <p>
+ * Mutable values are copied deeply, binary values are read into byte arrays. Use {@link #toWritableValue(Object)}
+ * to pass a kept value to a resource resolver again.
+ * </p>
+ * <p>
+ * This is an internal helper, the package is not exported.
+ * </p>
+ */
+public final class SnapshotValues {
+
+    /**
+     * Properties maintained by the repository that cannot be set when creating or modifying resources.
+     */
+    private static final Set<String> PROTECTED_PROPERTY_NAMES = Set.of(
+            JcrConstants.JCR_CREATED,
+            "jcr:createdBy",
+            JcrConstants.JCR_UUID,
+            JcrConstants.JCR_BASEVERSION,
+            JcrConstants.JCR_PREDECESSORS,
+            JcrConstants.JCR_VERSIONHISTORY,
+            JcrConstants.JCR_ISCHECKEDOUT);
+
+    private SnapshotValues() {
+        // static methods only
+    }
+
+    /**
+     * @param name Property name
+     * @return true if the property is maintained by the repository and cannot be restored
+     */
+    public static boolean isProtectedProperty(@Nullable String name) {
+        return name != null && PROTECTED_PROPERTY_NAMES.contains(name);
+    }
+
+    /**
+     * Copies a property value to keep it. Calendars are cloned, arrays are copied deeply, input streams of binary
+     * properties are read and closed, the data is returned as byte array.
+     * @param value Value
+     * @return Copy of the value, or the value itself if it is immutable
+     * @throws UncheckedIOException if reading binary data failed
+     */
+    public static @Nullable Object copyValue(@Nullable Object value) {
+        if (value instanceof InputStream inputStream) {
+            try (InputStream is = inputStream) {
+                return is.readAllBytes();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to read binary property.", ex);
+            }
+        }
+        if (value instanceof Calendar calendar) {
+            return calendar.clone();
+        }
+        if (value != null && value.getClass().isArray()) {
+            Class<?> componentType = value.getClass().getComponentType();
+            int length = Array.getLength(value);
+            Object copy = Array.newInstance(componentType, length);
+            if (componentType.isPrimitive()) {
+                System.arraycopy(value, 0, copy, 0, length);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    Array.set(copy, i, copyValue(Array.get(value, i)));
+                }
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    /**
+     * Copies a kept property value to pass it to a resource resolver, which might modify it.
+     * Binary data is returned as input stream.
+     * @param value Value returned by {@link #copyValue(Object)}
+     * @return Copy of the value
+     */
+    public static @Nullable Object toWritableValue(@Nullable Object value) {
+        if (value instanceof byte[] data) {
+            return new ByteArrayInputStream(data);
+        }
+        return copyValue(value);
+    }
+
+    /**
+     * @param value Value returned by {@link #copyValue(Object)}, or a property or resource name
+     * @return Estimated memory size of the value in bytes
+     */
+    public static long estimateSize(@Nullable Object value) {
+        if (value == null) {
+            return 8L;
+        }
+        if (value instanceof String string) {
+            return 40L + 2L * string.length();
+        }
+        if (value instanceof byte[] data) {
+            return 16L + data.length;
+        }
+        if (value.getClass().isArray()) {
+            long result = 16L;
+            int length = Array.getLength(value);
+            if (value.getClass().getComponentType().isPrimitive()) {
+                return result + 8L * length;
+            }
+            for (int i = 0; i < length; i++) {
+                result += estimateSize(Array.get(value, i));
+            }
+            return result;
+        }
+        return 24L;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.sling.api.resource.Resource;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * Imports many JSON and FileVault XML files at once. All files are parsed concurrently on the common
+ * fork-join pool, then the parsed content is written to the repository one file after another in the order
+ * they were added, followed by a single commit (when autocommit mode is active). The files are written in a
+ * {@link ContentBatch}, so if one of them fails, the changes of the files written before are reverted.
+ * <p>
+ * Example:
+ * </p>
+ * <pre>
+ * context.load().bulkImport()
+ *     .json("/content-en.json", "/content/sample/en")
+ *     .json("/content-de.json", "/content/sample/de")
+ *     .fileVaultXml("/apps/.content.xml", "/apps/sample")
+ *     .execute();
+ * </pre>
+ */
+@ProviderType
+public final class BulkImport {
+
+    private final @NotNull ContentLoader contentLoader;
+    private final @NotNull List<Entry> entries = new ArrayList<>();
+
+    BulkImport(@NotNull ContentLoader contentLoader) {
+        this.contentLoader = contentLoader;
+    }
+
+    /**
+     * Add JSON file to import.
+     * @param classpathResourceOrFile Classpath resource URL or file path for JSON content
+     * @param destPath Path to import the JSON content to
+     * @return this
+     */
+    public @NotNull BulkImport json(@NotNull String classpathResourceOrFile, @NotNull String destPath) {
+        entries.add(new Entry(classpathResourceOrFile, destPath, false));
+        return this;
+    }
+
+    /**
+     * Add FileVault XML file to import.
+     * @param classpathResourceOrFile Classpath resource URL or file path to single FileVault XML file (usually <code>.content.xml</code>)
+     * @param destPath Path to import the Filevault content to
+     * @return this
+     */
+    public @NotNull BulkImport fileVaultXml(@NotNull String classpathResourceOrFile, @NotNull String destPath) {
+        entries.add(new Entry(classpathResourceOrFile, destPath, true));
+        return this;
+    }
+
+    /**
+     * Parse and import all files.
+     * @return Imported resources in the order the files were added
+     */
+    public @NotNull List<Resource> execute() {
+        return contentLoader.importAll(List.copyOf(entries));
+    }
+
+    record Entry(
+            @NotNull String classpathResourceOrFile,
+            @NotNull String destPath,
+            boolean fileVaultXml) {}
+}
@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+import org.apache.commons.lang3.Strings;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.contentparser.api.ContentHandler;
+import org.apache.sling.contentparser.api.ContentParser;
+import org.apache.sling.contentparser.api.ParserOptions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads and writes the compiled content format, a compact binary representation of a parsed content file.
+ * <p>
+ * Layout (all numbers big-endian as written by {@link DataOutputStream}):
+ * </p>
+ * <ul>
+ * <li>Magic number and format version</li>
+ * <li>Name table: all resource and property names, each stored only once</li>
+ * <li>Resources in depth-first order: index of the parent resource (-1 for the root), name index and properties</li>
+ * <li>Property: name index, type tag and value. Arrays have the array flag set in the type tag, followed by the
+ * number of items and the items.</li>
+ * </ul>
+ */
+final class CompiledContentParser implements ContentParser {
+
+    static final String FILE_EXTENSION = ".sling-content";
+
+    private static final int MAGIC = 0x534C4D43; // "SLMC"
+    private static final int VERSION = 1;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_STRING = 1;
+    private static final int TYPE_LONG = 2;
+    private static final int TYPE_DOUBLE = 3;
+    private static final int TYPE_BOOLEAN = 4;
+    private static final int TYPE_CALENDAR = 5;
+    private static final int TYPE_DECIMAL = 6;
+    private static final int TYPE_INTEGER = 7;
+    private static final int FLAG_ARRAY = 0x80;
+
+    @Override
+    public void parse(
+            @NotNull ContentHandler contentHandler,
+            @NotNull InputStream inputStream,
+            @NotNull ParserOptions parserOptions)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a compiled content file.");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported compiled content format version: " + version);
+        }
+
+        String[] names = new String[in.readInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = readString(in);
+        }
+
+        Set<String> ignoredResourceNames = parserOptions.getIgnoreResourceNames();
+        Set<String> ignoredPropertyNames = parserOptions.getIgnorePropertyNames();
+        String[] paths = new String[in.readInt()];
+        for (int i = 0; i < paths.length; i++) {
+            int parentIndex = in.readInt();
+            String name = names[in.readInt()];
+            String path;
+            if (parentIndex < 0) {
+                path = "/";
+            } else {
+                String parentPath = paths[parentIndex];
+                if (parentPath == null || ignoredResourceNames.contains(name)) {
+                    // ignored resource or child of ignored resource
+                    path = null;
+                } else {
+                    path = Strings.CS.equals(parentPath, "/") ? "/" + name : parentPath + "/" + name;
+                }
+            }
+            paths[i] = path;
+
+            int propertyCount = in.readInt();
+            Map<String, Object> properties = new LinkedHashMap<>();
+            for (int p = 0; p < propertyCount; p++) {
+                String propertyName = names[in.readInt()];
+                Object value = readValue(in);
+                if (!ignoredPropertyNames.contains(propertyName)) {
+                    properties.put(propertyName, value);
+                }
+            }
+            if (path != null) {
+                contentHandler.resource(path, properties);
+            }
+        }
+    }
+
+    /**
+     * Writes content in compiled content format.
+     * @param resources Resources with their paths relative to the content root in depth-first order
+     * @param outputStream Output stream
+     * @throws IOException I/O exception
+     */
+    static void write(@NotNull Map<String, Map<String, Object>> resources, @NotNull OutputStream outputStream)
+            throws IOException {
+        Map<String, Integer> nameIndexes = new LinkedHashMap<>();
+        Map<String, Integer> pathIndexes = new HashMap<>();
+        List<int[]> resourceEntries = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> resource : resources.entrySet()) {
+            String path = resource.getKey();
+            int parentIndex = -1;
+            String name = "";
+            if (!Strings.CS.equals(path, "/")) {
+                Integer index = pathIndexes.get(ResourceUtil.getParent(path));
+                if (index == null) {
+                    throw new IllegalArgumentException("Parent resource missing or not in depth-first order: " + path);
+                }
+                parentIndex = index;
+                name = ResourceUtil.getName(path);
+            }
+            pathIndexes.put(path, resourceEntries.size());
+            resourceEntries.add(new int[] {parentIndex, internName(nameIndexes, name)});
+            for (String propertyName : resource.getValue().keySet()) {
+                internName(nameIndexes, propertyName);
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(nameIndexes.size());
+        for (String name : nameIndexes.keySet()) {
+            writeString(out, name);
+        }
+        out.writeInt(resourceEntries.size());
+        int i = 0;
+        for (Map<String, Object> properties : resources.values()) {
+            int[] resourceEntry = resourceEntries.get(i++);
+            out.writeInt(resourceEntry[0]);
+            out.writeInt(resourceEntry[1]);
+            out.writeInt(properties.size());
+            for (Map.Entry<String, Object> property : properties.entrySet()) {
+                out.writeInt(nameIndexes.get(property.getKey()));
+                writeValue(out, property.getKey(), property.getValue());
+            }
+        }
+        out.flush();
+    }
+
+    private static int internName(@NotNull Map<String, Integer> nameIndexes, @NotNull String name) {
+        return nameIndexes.computeIfAbsent(name, key -> nameIndexes.size());
+    }
+
+    private static void writeValue(@NotNull DataOutputStream out, @NotNull String name, @Nullable Object value)
+            throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            Class<?> itemClass = value.getClass().getComponentType();
+            if (itemClass == Object.class) {
+                itemClass = length > 0 && Array.get(value, 0) != null
+                        ? Array.get(value, 0).getClass()
+                        : String.class;
+            }
+            int type = getType(name, itemClass);
+            out.writeByte(type | FLAG_ARRAY);
+            out.writeInt(length);
+            for (int i = 0; i < length; i++) {
+                writeSingleValue(out, name, type, Array.get(value, i));
+            }
+        } else {
+            int type = getType(name, value.getClass());
+            out.writeByte(type);
+            writeSingleValue(out, name, type, value);
+        }
+    }
+
+    private static int getType(@NotNull String name, @NotNull Class<?> valueClass) {
+        if (valueClass == String.class) {
+            return TYPE_STRING;
+        }
+        if (valueClass == Long.class || valueClass == long.class) {
+            return TYPE_LONG;
+        }
+        if (valueClass == Integer.class || valueClass == int.class) {
+            return TYPE_INTEGER;
+        }
+        if (valueClass == Double.class || valueClass == double.class) {
+            return TYPE_DOUBLE;
+        }
+        if (valueClass == Boolean.class || valueClass == boolean.class) {
+            return TYPE_BOOLEAN;
+        }
+        if (Calendar.class.isAssignableFrom(valueClass)) {
+            return TYPE_CALENDAR;
+        }
+        if (valueClass == BigDecimal.class) {
+            return TYPE_DECIMAL;
+        }
+        throw new IllegalArgumentException("Unsupported type for property " + name + ": " + valueClass.getName());
+    }
+
+    private static void writeSingleValue(@NotNull DataOutputStream out, @NotNull String name, int type, Object value)
+            throws IOException {
+        if (value == null || getType(name, value.getClass()) != type) {
+            throw new IllegalArgumentException("Mixed or null values in array property " + name);
+        }
+        switch (type) {
+            case TYPE_STRING -> writeString(out, (String) value);
+            case TYPE_LONG -> out.writeLong((Long) value);
+            case TYPE_INTEGER -> out.writeInt((Integer) value);
+            case TYPE_DOUBLE -> out.writeDouble((Double) value);
+            case TYPE_BOOLEAN -> out.writeBoolean((Boolean) value);
+            case TYPE_CALENDAR -> {
+                Calendar calendar = (Calendar) value;
+                out.writeLong(calendar.getTimeInMillis());
+                writeString(out, calendar.getTimeZone().getID());
+            }
+            case TYPE_DECIMAL -> writeString(out, value.toString());
+            default -> throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+    }
+
+    private static @Nullable Object readValue(@NotNull DataInputStream in) throws IOException {
+        int typeTag = in.readUnsignedByte();
+        if (typeTag == TYPE_NULL) {
+            return null;
+        }
+        int type = typeTag & ~FLAG_ARRAY;
+        if ((typeTag & FLAG_ARRAY) == 0) {
+            return readSingleValue(in, type);
+        }
+        int length = in.readInt();
+        Object array = Array.newInstance(getValueClass(type), length);
+        for (int i = 0; i < length; i++) {
+            Array.set(array, i, readSingleValue(in, type));
+        }
+        return array;
+    }
+
+    private static @NotNull Class<?> getValueClass(int type) throws IOException {
+        return switch (type) {
+            case TYPE_STRING -> String.class;
+            case TYPE_LONG -> Long.class;
+            case TYPE_INTEGER -> Integer.class;
+            case TYPE_DOUBLE -> Double.class;
+            case TYPE_BOOLEAN -> Boolean.class;
+            case TYPE_CALENDAR -> Calendar.class;
+            case TYPE_DECIMAL -> BigDecimal.class;
+            default -> throw new IOException("Unsupported type: " + type);
+        };
+    }
+
+    private static @NotNull Object readSingleValue(@NotNull DataInputStream in, int type) throws IOException {
+        return switch (type) {
+            case TYPE_STRING -> readString(in);
+            case TYPE_LONG -> in.readLong();
+            case TYPE_INTEGER -> in.readInt();
+            case TYPE_DOUBLE -> in.readDouble();
+            case TYPE_BOOLEAN -> in.readBoolean();
+            case TYPE_CALENDAR -> {
+                long timeInMillis = in.readLong();
+                Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(readString(in)));
+                calendar.setTimeInMillis(timeInMillis);
+                yield calendar;
+            }
+            case TYPE_DECIMAL -> new BigDecimal(readString(in));
+            default -> throw new IOException("Unsupported type: " + type);
+        };
+    }
+
+    private static void writeString(@NotNull DataOutputStream out, @NotNull String value) throws IOException {
+        // not using writeUTF as it is limited to 64k
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static @NotNull String readString(@NotNull DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import org.jetbrains.annotations.NotNull;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * Batch of load operations of a {@link ContentLoader} that are committed together. While the batch is open,
+ * the load operations do not commit their changes. {@link #commit()} commits all changes at once (when autocommit
+ * mode is active), closing the batch without committing reverts all uncommitted changes of the resource resolver.
+ * Changes made before the batch is started are not affected, see {@link ContentLoader#batch()}.
+ * <p>
+ * Example:
+ * </p>
+ * <pre>
+ * try (ContentBatch batch = context.load().batch()) {
+ *     context.load().json("/content-en.json", "/content/sample/en");
+ *     context.load().binaryFile("/sample-image.gif", "/content/dam/sample-image.gif");
+ *     batch.commit();
+ * }
+ * </pre>
+ * <p>
+ * Batches can be nested, a nested batch is part of the outer batch and its changes are committed with the
+ * outer batch.
+ * </p>
+ */
+@ProviderType
+public final class ContentBatch implements AutoCloseable {
+
+    private final @NotNull ContentLoader contentLoader;
+    private boolean closed;
+
+    ContentBatch(@NotNull ContentLoader contentLoader) {
+        this.contentLoader = contentLoader;
+    }
+
+    /**
+     * Commits all changes of the batch (when autocommit mode is active) and closes it.
+     * If this is a nested batch, the changes are committed with the outer batch.
+     * @throws IllegalStateException if the batch is already closed
+     */
+    public void commit() {
+        if (closed) {
+            throw new IllegalStateException("Batch is already closed.");
+        }
+        closed = true;
+        contentLoader.endBatch(true);
+    }
+
+    /**
+     * Closes the batch. If it was not committed before, all uncommitted changes of the resource resolver are
+     * reverted - including the changes of an outer batch.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            contentLoader.endBatch(false);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.Strings;
+import org.apache.sling.contentparser.api.ContentParser;
+import org.apache.sling.contentparser.api.ParserOptions;
+import org.apache.sling.contentparser.json.JSONParserFeature;
+import org.apache.sling.contentparser.json.JSONParserOptions;
+import org.apache.sling.contentparser.json.internal.JSONContentParser;
+import org.apache.sling.contentparser.xml.jcr.internal.JCRXMLContentParser;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * Compiles JSON and FileVault XML content files to the compiled content format, which can be imported with
+ * {@link ContentLoader#compiledContent(String, String)} without parsing JSON or XML. Resource and property names
+ * are stored only once, and property values are stored in binary form with their type.
+ * <p>
+ * The content is compiled as is, names that are ignored by the content loader are removed when importing it.
+ * The format may change with new versions of this library, so compiled files should be created as part of the
+ * build, e.g. in the <code>process-test-resources</code> phase with the <code>exec-maven-plugin</code>:
+ * </p>
+ * <pre>
+ * java org.apache.sling.testing.mock.sling.loader.ContentCompiler src/test/resources/content.json target/test-classes/content.sling-content
+ * </pre>
+ */
+@ProviderType
+public final class ContentCompiler {
+
+    /**
+     * File extension of compiled content files.
+     */
+    public static final String FILE_EXTENSION = CompiledContentParser.FILE_EXTENSION;
+
+    private ContentCompiler() {
+        // static methods only
+    }
+
+    /**
+     * Compiles a JSON or FileVault XML content file. The format is detected from the file extension.
+     * @param sourceFile JSON file (<code>.json</code>) or FileVault XML file (<code>.xml</code>)
+     * @param targetFile Compiled content file
+     * @throws IOException I/O exception
+     */
+    public static void compile(@NotNull File sourceFile, @NotNull File targetFile) throws IOException {
+        File targetDir = targetFile.getAbsoluteFile().getParentFile();
+        if (targetDir != null && !targetDir.exists() && !targetDir.mkdirs()) {
+            throw new IOException("Unable to create directory: " + targetDir);
+        }
+        try (InputStream is = new FileInputStream(sourceFile);
+                OutputStream os = new BufferedOutputStream(new FileOutputStream(targetFile))) {
+            if (Strings.CI.endsWith(sourceFile.getName(), ".json")) {
+                compileJson(is, os);
+            } else if (Strings.CI.endsWith(sourceFile.getName(), ".xml")) {
+                compileFileVaultXml(is, os);
+            } else {
+                throw new IllegalArgumentException("Unsupported content file: " + sourceFile);
+            }
+        }
+    }
+
+    /**
+     * Compiles JSON content.
+     * @param inputStream Input stream with JSON content
+     * @param outputStream Output stream for compiled content
+     * @throws IOException I/O exception
+     */
+    public static void compileJson(@NotNull InputStream inputStream, @NotNull OutputStream outputStream)
+            throws IOException {
+        ParserOptions parserOptions = new JSONParserOptions()
+                .withFeatures(EnumSet.of(JSONParserFeature.COMMENTS, JSONParserFeature.QUOTE_TICK))
+                .detectCalendarValues(true);
+        compile(new JSONContentParser(), parserOptions, inputStream, outputStream);
+    }
+
+    /**
+     * Compiles FileVault XML content.
+     * @param inputStream Input stream with FileVault XML content (usually <code>.content.xml</code>)
+     * @param outputStream Output stream for compiled content
+     * @throws IOException I/O exception
+     */
+    public static void compileFileVaultXml(@NotNull InputStream inputStream, @NotNull OutputStream outputStream)
+            throws IOException {
+        ParserOptions parserOptions = new ParserOptions().detectCalendarValues(true);
+        compile(new JCRXMLContentParser(), parserOptions, inputStream, outputStream);
+    }
+
+    private static void compile(
+            @NotNull ContentParser contentParser,
+            @NotNull ParserOptions parserOptions,
+            @NotNull InputStream inputStream,
+            @NotNull OutputStream outputStream)
+            throws IOException {
+        Map<String, Map<String, Object>> resources = new LinkedHashMap<>();
+        contentParser.parse(resources::put, inputStream, parserOptions);
+        CompiledContentParser.write(resources, outputStream);
+    }
+
+    /**
+     * Compiles content files.
+     * @param args Pairs of source file and target file
+     * @throws IOException I/O exception
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args.length % 2 != 0) {
+            throw new IllegalArgumentException(
+                    "Usage: ContentCompiler <source file> <target file> [<source file> <target file> ...]");
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            compile(new File(args[i]), new File(args[i + 1]));
+        }
+    }
+}
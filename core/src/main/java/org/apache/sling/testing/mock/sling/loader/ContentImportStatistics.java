@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import java.time.Duration;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * Statistics of a content import operation of {@link ContentLoader}, or of all import operations in total.
+ * <p>
+ * For parsed content files, parse time is the time spent in the parser (or replaying the cached parsed content),
+ * apply time is the time spent creating the resources. Bytes read is 0 if the parsed content was taken from the
+ * cache.
+ * </p>
+ */
+@ProviderType
+public final class ContentImportStatistics {
+
+    static final String TOTAL_SOURCE = "total";
+
+    private final @NotNull String source;
+    private final @Nullable String destPath;
+    private final long resourceCount;
+    private final long propertyCount;
+    private final long bytesRead;
+    private final long parseTimeNanos;
+    private final long applyTimeNanos;
+    private final long commitTimeNanos;
+
+    ContentImportStatistics(
+            @NotNull String source,
+            @Nullable String destPath,
+            long resourceCount,
+            long propertyCount,
+            long bytesRead,
+            long parseTimeNanos,
+            long applyTimeNanos,
+            long commitTimeNanos) {
+        this.source = source;
+        this.destPath = destPath;
+        this.resourceCount = resourceCount;
+        this.propertyCount = propertyCount;
+        this.bytesRead = bytesRead;
+        this.parseTimeNanos = parseTimeNanos;
+        this.applyTimeNanos = applyTimeNanos;
+        this.commitTimeNanos = commitTimeNanos;
+    }
+
+    /**
+     * @param other Other statistics
+     * @return Sum of both statistics
+     */
+    @NotNull
+    ContentImportStatistics add(@NotNull ContentImportStatistics other) {
+        return new ContentImportStatistics(
+                TOTAL_SOURCE,
+                null,
+                resourceCount + other.resourceCount,
+                propertyCount + other.propertyCount,
+                bytesRead + other.bytesRead,
+                parseTimeNanos + other.parseTimeNanos,
+                applyTimeNanos + other.applyTimeNanos,
+                commitTimeNanos + other.commitTimeNanos);
+    }
+
+    /**
+     * @return Classpath resource or file the content was imported from, or a description of the source
+     */
+    public @NotNull String getSource() {
+        return source;
+    }
+
+    /**
+     * @return Path the content was imported to, or null for totals and separate commits of batches and bulk imports
+     */
+    public @Nullable String getDestPath() {
+        return destPath;
+    }
+
+    /**
+     * @return Number of resources created
+     */
+    public long getResourceCount() {
+        return resourceCount;
+    }
+
+    /**
+     * @return Number of properties of the created resources
+     */
+    public long getPropertyCount() {
+        return propertyCount;
+    }
+
+    /**
+     * @return Number of bytes read from the source
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return Time spent parsing the content
+     */
+    public @NotNull Duration getParseTime() {
+        return Duration.ofNanos(parseTimeNanos);
+    }
+
+    /**
+     * @return Time spent creating the resources
+     */
+    public @NotNull Duration getApplyTime() {
+        return Duration.ofNanos(applyTimeNanos);
+    }
+
+    /**
+     * @return Time spent committing the changes
+     */
+    public @NotNull Duration getCommitTime() {
+        return Duration.ofNanos(commitTimeNanos);
+    }
+
+    /**
+     * @return Sum of parse, apply and commit time
+     */
+    public @NotNull Duration getTotalTime() {
+        return Duration.ofNanos(parseTimeNanos + applyTimeNanos + commitTimeNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "ContentImportStatistics[source=" + source + ",destPath=" + destPath + ",resources=" + resourceCount
+                + ",properties=" + propertyCount + ",bytesRead=" + bytesRead + ",parseTime="
+                + getParseTime().toMillis() + "ms,applyTime=" + getApplyTime().toMillis() + "ms,commitTime="
+                + getCommitTime().toMillis() + "ms]";
+    }
+}
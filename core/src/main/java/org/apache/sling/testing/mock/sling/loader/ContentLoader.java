@@ -23,25 +23,43 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Strings;
 import org.apache.jackrabbit.JcrConstants;
+import org.apache.sling.api.resource.ModifiableValueMap;
 import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.commons.mime.MimeTypeService;
+import org.apache.sling.contentparser.api.ContentHandler;
 import org.apache.sling.contentparser.api.ContentParser;
 import org.apache.sling.contentparser.api.ParserOptions;
 import org.apache.sling.contentparser.json.JSONParserFeature;
@@ -53,6 +71,7 @@ import org.apache.sling.spi.resource.provider.ResourceProvider;
 import org.apache.sling.testing.mock.osgi.MapUtil;
 import org.apache.sling.testing.mock.osgi.MockOsgi;
 import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.SnapshotCache;
 import org.apache.sling.testing.mock.sling.builder.ImmutableValueMap;
 import org.apache.sling.testing.resourceresolver.MockResourceResolverFactory;
 import org.jetbrains.annotations.NotNull;
@@ -63,11 +82,20 @@ import org.osgi.framework.ServiceReference;
 /**
  * Imports JSON data and binary data into Sling resource hierarchy.
  * After all import operations from json or binaries {@link ResourceResolver#commit()} is called (when autocommit mode is active).
+ * Use {@link #batch()} to commit multiple import operations at once.
  */
 public final class ContentLoader {
 
     private static final String CONTENTTYPE_OCTET_STREAM = "application/octet-stream";
 
+    private static final String INPUT_STREAM_SOURCE = "InputStream";
+
+    private static final String PACKAGE_FILTER_ENTRY = "META-INF/vault/filter.xml";
+    private static final String PACKAGE_CONTENT_ROOT = "jcr_root";
+
+    // compiled content parser is stateless and can be shared
+    private static final ContentParser COMPILED_CONTENT_PARSER = new CompiledContentParser();
+
     // set of resource or property names that are ignored for all resource resolver types
     private static final Set<String> SHARED_IGNORED_NAMES = Stream.of(
                     JcrConstants.JCR_BASEVERSION,
@@ -103,6 +131,12 @@ public final class ContentLoader {
 
     private final ParserOptions fileVaultXmlParserOptions;
 
+    private final ParserOptions compiledContentParserOptions;
+
+    private int batchDepth;
+
+    private final List<ContentImportStatistics> importStatistics = new ArrayList<>();
+
     /**
      * @param resourceResolver Resource resolver
      */
@@ -153,6 +187,8 @@ public final class ContentLoader {
                 .detectCalendarValues(true)
                 .ignorePropertyNames(this.ignoredNames)
                 .ignoreResourceNames(this.ignoredNames);
+        this.compiledContentParserOptions =
+                new ParserOptions().ignorePropertyNames(this.ignoredNames).ignoreResourceNames(this.ignoredNames);
     }
 
     private final Set<String> getIgnoredNamesForResourceResolverType(ResourceResolverType resourceResolverType) {
@@ -189,7 +225,47 @@ public final class ContentLoader {
      * @return Resource
      */
     public @NotNull Resource json(@NotNull String classpathResourceOrFile, @NotNull String destPath) {
-        return processInputStreamFromClasspathOrFilesystem(classpathResourceOrFile, is -> json(is, destPath));
+        return mountParsedFile(classpathResourceOrFile, destPath, getJsonParser(), jsonParserOptions);
+    }
+
+    /**
+     * Mount content of JSON file in repository.
+     * <ul>
+     * <li>The resources are not imported, but mounted via a resource provider. The file is parsed when a resource
+     * is accessed for the first time, and only the accessed resources are created.</li>
+     * <li>The mounted resource tree is read-only.</li>
+     * <li>Not supported with {@link ResourceResolverType#RESOURCERESOLVER_MOCK}.</li>
+     * </ul>
+     * @param classpathResourceOrFile Classpath resource URL or file path for JSON content
+     * @param parentResource Parent resource
+     * @param childName Name of child resource to mount JSON content into
+     */
+    public void mountJson(
+            @NotNull String classpathResourceOrFile, @NotNull Resource parentResource, @NotNull String childName) {
+        mountJson(classpathResourceOrFile, parentResource.getPath() + "/" + childName);
+    }
+
+    /**
+     * Mount content of JSON file in repository.
+     * <ul>
+     * <li>The resources are not imported, but mounted via a resource provider. The file is parsed when a resource
+     * is accessed for the first time, and only the accessed resources are created.</li>
+     * <li>The mounted resource tree is read-only.</li>
+     * <li>Not supported with {@link ResourceResolverType#RESOURCERESOLVER_MOCK}.</li>
+     * </ul>
+     * @param classpathResourceOrFile Classpath resource URL or file path for JSON content
+     * @param destPath Path to mount JSON content into
+     */
+    @SuppressWarnings("null")
+    public void mountJson(@NotNull String classpathResourceOrFile, @NotNull String destPath) {
+        URL url = getUrlFromClasspathOrFilesystem(classpathResourceOrFile);
+        ensureResourceProvidersSupported();
+        ParsedContentResourceProvider resourceProvider = new ParsedContentResourceProvider(
+                url, destPath, new JSONContentParser(), jsonParserOptions, ignoredNames);
+        bundleContext.registerService(
+                ResourceProvider.class,
+                resourceProvider,
+                MapUtil.toDictionary(ResourceProvider.PROPERTY_ROOT, destPath));
     }
 
     /**
@@ -247,7 +323,7 @@ public final class ContentLoader {
      * @return Resource
      */
     public @NotNull Resource fileVaultXml(@NotNull String classpathResourceOrFile, @NotNull String destPath) {
-        return processInputStreamFromClasspathOrFilesystem(classpathResourceOrFile, is -> fileVaultXml(is, destPath));
+        return mountParsedFile(classpathResourceOrFile, destPath, getFileVaultXmlParser(), fileVaultXmlParserOptions);
     }
 
     /**
@@ -279,6 +355,241 @@ public final class ContentLoader {
         return mountParsedFile(inputStream, destPath, getFileVaultXmlParser(), fileVaultXmlParserOptions);
     }
 
+    /**
+     * Import FileVault content package into repository.
+     * <ul>
+     * <li>The package is streamed entry by entry, it is neither unpacked to disk nor held in memory as a whole.</li>
+     * <li>Only content contained in the workspace filter <code>META-INF/vault/filter.xml</code> is imported.
+     * The filter definition has to precede the content in the package, which is the case for packages built with
+     * the FileVault tooling.</li>
+     * <li><code>.content.xml</code> files are imported as FileVault XML, all other files below <code>jcr_root</code>
+     * as nt:file binary nodes. Extended file metadata in <code>.dir</code> folders is ignored.</li>
+     * <li>Properties of existing resources contained in the filter are updated, their node types are kept. Existing
+     * resources outside the filter, e.g. ancestors of the filter roots, are not changed. The binary data of existing
+     * files is replaced.</li>
+     * <li>Auto-creates parent hierarchies as nt:folder nodes if missing. If a <code>.content.xml</code> file later in
+     * the package defines one of these nodes, its primary type is set from the file.</li>
+     * <li>All content is committed with a single commit (when autocommit mode is active). If the import fails, all
+     * uncommitted changes are reverted. See {@link #batch()} for how uncommitted changes made before the import are
+     * handled.</li>
+     * </ul>
+     * @param classpathResourceOrFile Classpath resource URL or file path for content package
+     */
+    public void fileVaultPackage(@NotNull String classpathResourceOrFile) {
+        URL url = getUrlFromClasspathOrFilesystem(classpathResourceOrFile);
+        try (InputStream is = url.openStream()) {
+            importFileVaultPackage(is, classpathResourceOrFile);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to read content package " + classpathResourceOrFile, ex);
+        }
+    }
+
+    /**
+     * Import FileVault content package into repository.
+     * <ul>
+     * <li>The package is streamed entry by entry, it is neither unpacked to disk nor held in memory as a whole.</li>
+     * <li>Only content contained in the workspace filter <code>META-INF/vault/filter.xml</code> is imported.
+     * The filter definition has to precede the content in the package, which is the case for packages built with
+     * the FileVault tooling.</li>
+     * <li><code>.content.xml</code> files are imported as FileVault XML, all other files below <code>jcr_root</code>
+     * as nt:file binary nodes. Extended file metadata in <code>.dir</code> folders is ignored.</li>
+     * <li>Properties of existing resources contained in the filter are updated, their node types are kept. Existing
+     * resources outside the filter, e.g. ancestors of the filter roots, are not changed. The binary data of existing
+     * files is replaced.</li>
+     * <li>Auto-creates parent hierarchies as nt:folder nodes if missing. If a <code>.content.xml</code> file later in
+     * the package defines one of these nodes, its primary type is set from the file.</li>
+     * <li>All content is committed with a single commit (when autocommit mode is active). If the import fails, all
+     * uncommitted changes are reverted. See {@link #batch()} for how uncommitted changes made before the import are
+     * handled.</li>
+     * </ul>
+     * @param inputStream Input stream with content package
+     */
+    public void fileVaultPackage(@NotNull InputStream inputStream) {
+        importFileVaultPackage(inputStream, INPUT_STREAM_SOURCE);
+    }
+
+    private void importFileVaultPackage(@NotNull InputStream inputStream, @NotNull String source) {
+        PackageFilter filter = null;
+        // folders created for entries whose parent was not imported yet
+        Set<String> createdFolders = new HashSet<>();
+        ZipInputStream zip = new ZipInputStream(inputStream);
+        try (ContentBatch batch = batch()) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (Strings.CS.equals(name, PACKAGE_FILTER_ENTRY)) {
+                    filter = PackageFilter.parse(CloseShieldInputStream.wrap(zip));
+                } else if (Strings.CS.startsWith(name, PACKAGE_CONTENT_ROOT + "/")) {
+                    if (filter == null) {
+                        throw new IllegalArgumentException("Content package has no filter definition "
+                                + PACKAGE_FILTER_ENTRY + " before the content: " + source);
+                    }
+                    importFileVaultPackageEntry(
+                            zip,
+                            name.substring(PACKAGE_CONTENT_ROOT.length()),
+                            filter,
+                            createdFolders,
+                            source + "!/" + name);
+                }
+            }
+            batch.commit();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to import content package " + source, ex);
+        }
+    }
+
+    private void importFileVaultPackageEntry(
+            @NotNull InputStream zip,
+            @NotNull String relativePath,
+            @NotNull PackageFilter filter,
+            @NotNull Set<String> createdFolders,
+            @NotNull String source) {
+        String[] segments = StringUtils.split(relativePath, '/');
+        StringBuilder parentPath = new StringBuilder();
+        for (int i = 0; i < segments.length - 1; i++) {
+            if (Strings.CS.endsWith(segments[i], ".dir")) {
+                // extended file metadata is not supported
+                return;
+            }
+            parentPath.append('/').append(getRepositoryName(segments[i]));
+        }
+        String fileName = segments[segments.length - 1];
+
+        if (Strings.CS.equals(fileName, ".content.xml")) {
+            String destPath = parentPath.toString();
+            // properties of the root node are not imported
+            if (destPath.isEmpty() || !(filter.contains(destPath) || filter.isAncestor(destPath))) {
+                return;
+            }
+            String destParentPath = ResourceUtil.getParent(destPath);
+            if (destParentPath != null) {
+                getOrCreatePackageFolder(destParentPath, createdFolders);
+            }
+            mountContent(
+                    source,
+                    destPath,
+                    (contentHandler, importRecorder) -> {
+                        CountingInputStream is = new CountingInputStream(CloseShieldInputStream.wrap(zip));
+                        getFileVaultXmlParser()
+                                .parse(filter.wrap(contentHandler, destPath), is, fileVaultXmlParserOptions);
+                        importRecorder.addBytesRead(is.getByteCount());
+                    },
+                    new ImportRecorder(),
+                    false,
+                    filter::contains,
+                    createdFolders::contains);
+        } else {
+            String path = parentPath + "/" + getRepositoryName(fileName);
+            if (!filter.contains(path)) {
+                return;
+            }
+            String mimeType = detectMimeTypeFromNames(fileName);
+            Resource resource = resourceResolver.getResource(path);
+            if (resource != null) {
+                updatePackageBinary(CloseShieldInputStream.wrap(zip), resource, mimeType, source);
+            } else {
+                Resource parentResource = getOrCreatePackageFolder(parentPath.toString(), createdFolders);
+                importBinary(
+                        CloseShieldInputStream.wrap(zip),
+                        parentResource,
+                        getRepositoryName(fileName),
+                        mimeType,
+                        source,
+                        true);
+            }
+        }
+    }
+
+    /**
+     * Converts a file name in a content package to a resource name, e.g. <code>_jcr_content</code> to
+     * <code>jcr:content</code>.
+     * @param platformName File name
+     * @return Resource name
+     */
+    private static @NotNull String getRepositoryName(@NotNull String platformName) {
+        String name = platformName;
+        if (name.indexOf('%') >= 0) {
+            name = URLDecoder.decode(name.replace("+", "%2B"), StandardCharsets.UTF_8);
+        }
+        if (Strings.CS.startsWith(name, "__")) {
+            // escaped underscore
+            return name.substring(1);
+        }
+        if (Strings.CS.startsWith(name, "_")) {
+            int index = name.indexOf('_', 1);
+            if (index > 1) {
+                return name.substring(1, index) + ":" + name.substring(index + 1);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Import content of compiled content file into repository.
+     * <ul>
+     * <li>The imported resources support reading and writing.</li>
+     * </ul>
+     * @param classpathResourceOrFile Classpath resource URL or file path for compiled content
+     * @param parentResource Parent resource
+     * @param childName Name of child resource to create with compiled content
+     * @return Resource
+     * @see ContentCompiler
+     */
+    public @NotNull Resource compiledContent(
+            @NotNull String classpathResourceOrFile, @NotNull Resource parentResource, @NotNull String childName) {
+        return compiledContent(classpathResourceOrFile, parentResource.getPath() + "/" + childName);
+    }
+
+    /**
+     * Import content of compiled content file into repository.
+     * <ul>
+     * <li>Auto-creates parent hierarchies as nt:unstrucured nodes if missing.</li>
+     * <li>The imported resources support reading and writing.</li>
+     * </ul>
+     * @param classpathResourceOrFile Classpath resource URL or file path for compiled content
+     * @param destPath Path to import the compiled content to
+     * @return Resource
+     * @see ContentCompiler
+     */
+    public @NotNull Resource compiledContent(@NotNull String classpathResourceOrFile, @NotNull String destPath) {
+        return mountParsedFile(
+                classpathResourceOrFile, destPath, COMPILED_CONTENT_PARSER, compiledContentParserOptions);
+    }
+
+    /**
+     * Import content of compiled content file into repository.
+     * <ul>
+     * <li>The imported resources support reading and writing.</li>
+     * </ul>
+     * @param inputStream Input stream with compiled content
+     * @param parentResource Parent resource
+     * @param childName Name of child resource to create with compiled content
+     * @return Resource
+     * @see ContentCompiler
+     */
+    public @NotNull Resource compiledContent(
+            @NotNull InputStream inputStream, @NotNull Resource parentResource, @NotNull String childName) {
+        return compiledContent(inputStream, parentResource.getPath() + "/" + childName);
+    }
+
+    /**
+     * Import content of compiled content file into repository.
+     * <ul>
+     * <li>Auto-creates parent hierarchies as nt:unstrucured nodes if missing.</li>
+     * <li>The imported resources support reading and writing.</li>
+     * </ul>
+     * @param inputStream Input stream with compiled content
+     * @param destPath Path to import the compiled content to
+     * @return Resource
+     * @see ContentCompiler
+     */
+    public @NotNull Resource compiledContent(@NotNull InputStream inputStream, @NotNull String destPath) {
+        return mountParsedFile(inputStream, destPath, COMPILED_CONTENT_PARSER, compiledContentParserOptions);
+    }
+
     @NotNull
     private ContentParser getJsonParser() {
         if (jsonParser == null) {
@@ -287,6 +598,65 @@ public final class ContentLoader {
         return jsonParser;
     }
 
+    private @NotNull Resource getOrCreatePackageFolder(@NotNull String path, @NotNull Set<String> createdFolders) {
+        Resource resource = resourceResolver.getResource(path.isEmpty() ? "/" : path);
+        if (resource != null) {
+            return resource;
+        }
+        String parentPath = ResourceUtil.getParent(path);
+        if (parentPath == null) {
+            throw new IllegalArgumentException("Path has no parent: " + path);
+        }
+        Resource parentResource = getOrCreatePackageFolder(parentPath, createdFolders);
+        try {
+            resource = resourceResolver.create(
+                    parentResource,
+                    ResourceUtil.getName(path),
+                    ImmutableValueMap.of(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_FOLDER));
+        } catch (PersistenceException ex) {
+            throw new RuntimeException(ex);
+        }
+        createdFolders.add(path);
+        return resource;
+    }
+
+    private void updatePackageBinary(
+            @NotNull InputStream inputStream,
+            @NotNull Resource resource,
+            @NotNull String mimeType,
+            @NotNull String source) {
+        ImportRecorder importRecorder = new ImportRecorder();
+        CountingInputStream is = new CountingInputStream(inputStream);
+        try {
+            long startTime = System.nanoTime();
+            Resource content = resource.getChild(JcrConstants.JCR_CONTENT);
+            if (content == null) {
+                resourceResolver.create(
+                        resource,
+                        JcrConstants.JCR_CONTENT,
+                        ImmutableValueMap.of(
+                                JcrConstants.JCR_PRIMARYTYPE,
+                                JcrConstants.NT_RESOURCE,
+                                JcrConstants.JCR_DATA,
+                                is,
+                                JcrConstants.JCR_MIMETYPE,
+                                mimeType));
+            } else {
+                ModifiableValueMap valueMap = content.adaptTo(ModifiableValueMap.class);
+                if (valueMap == null) {
+                    throw new RuntimeException("Unable to update binary data of " + resource.getPath());
+                }
+                valueMap.put(JcrConstants.JCR_DATA, is);
+                valueMap.put(JcrConstants.JCR_MIMETYPE, mimeType);
+            }
+            importRecorder.addResource(2, System.nanoTime() - startTime);
+            importRecorder.addBytesRead(is.getByteCount());
+            importStatistics.add(importRecorder.toStatistics(source, resource.getPath()));
+        } catch (PersistenceException ex) {
+            throw new RuntimeException("Unable to update binary data of " + resource.getPath(), ex);
+        }
+    }
+
     @NotNull
     private ContentParser getFileVaultXmlParser() {
         if (fileVaultXmlParser == null) {
@@ -295,12 +665,51 @@ public final class ContentLoader {
         return fileVaultXmlParser;
     }
 
-    @SuppressWarnings("null")
     private @NotNull Resource mountParsedFile(
             @NotNull InputStream inputStream,
             @NotNull String destPath,
             @NotNull ContentParser contentParser,
             @NotNull ParserOptions parserOptions) {
+        return mountContent(
+                INPUT_STREAM_SOURCE,
+                destPath,
+                (contentHandler, importRecorder) -> {
+                    CountingInputStream is = new CountingInputStream(inputStream);
+                    contentParser.parse(contentHandler, is, parserOptions);
+                    importRecorder.addBytesRead(is.getByteCount());
+                },
+                new ImportRecorder(),
+                isAutoCommit(),
+                null,
+                null);
+    }
+
+    private @NotNull Resource mountParsedFile(
+            @NotNull String classpathResourceOrFile,
+            @NotNull String destPath,
+            @NotNull ContentParser contentParser,
+            @NotNull ParserOptions parserOptions) {
+        URL url = getUrlFromClasspathOrFilesystem(classpathResourceOrFile);
+        return mountContent(
+                classpathResourceOrFile,
+                destPath,
+                (contentHandler, importRecorder) -> ParsedContentCache.parse(
+                        url, contentHandler, contentParser, parserOptions, ignoredNames, importRecorder::addBytesRead),
+                new ImportRecorder(),
+                isAutoCommit(),
+                null,
+                null);
+    }
+
+    @SuppressWarnings("null")
+    private @NotNull Resource mountContent(
+            @NotNull String source,
+            @NotNull String destPath,
+            @NotNull ContentSource contentSource,
+            @NotNull ImportRecorder importRecorder,
+            boolean commit,
+            @Nullable Predicate<String> mergeExisting,
+            @Nullable Predicate<String> replacePrimaryType) {
         try {
             String parentPath = ResourceUtil.getParent(destPath);
             String childName = ResourceUtil.getName(destPath);
@@ -309,25 +718,227 @@ public final class ContentLoader {
                 throw new IllegalArgumentException("Path has no parent: " + destPath);
             }
 
+            long startTime = System.nanoTime();
             Resource parentResource = resourceResolver.getResource(parentPath);
             if (parentResource == null) {
                 parentResource = createResourceHierarchy(parentPath);
             }
-            if (parentResource.getChild(childName) != null) {
+            if (mergeExisting == null && parentResource.getChild(childName) != null) {
                 throw new IllegalArgumentException("Resource does already exist: " + destPath);
             }
+            importRecorder.addApplyTime(System.nanoTime() - startTime);
+
+            // the content handler adds the time for creating resources, the remaining time is spent parsing
+            LoaderContentHandler contentHandler = new LoaderContentHandler(
+                    destPath, resourceResolver, importRecorder, mergeExisting, replacePrimaryType);
+            long applyTimeBefore = importRecorder.getApplyTimeNanos();
+            startTime = System.nanoTime();
+            contentSource.parse(contentHandler, importRecorder);
+            importRecorder.addParseTime(
+                    System.nanoTime() - startTime - (importRecorder.getApplyTimeNanos() - applyTimeBefore));
 
-            LoaderContentHandler contentHandler = new LoaderContentHandler(destPath, resourceResolver);
-            contentParser.parse(contentHandler, inputStream, parserOptions);
-            if (autoCommit) {
+            if (commit) {
+                startTime = System.nanoTime();
                 resourceResolver.commit();
+                importRecorder.addCommitTime(System.nanoTime() - startTime);
             }
+            importStatistics.add(importRecorder.toStatistics(source, destPath));
             return resourceResolver.getResource(destPath);
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
     }
 
+    /**
+     * Start a batch of load operations that are committed together with a single commit. Until the batch is
+     * committed or closed, the load operations of this content loader do not commit their changes.
+     * <p>
+     * A failed batch reverts all uncommitted changes of the resource resolver. To not lose changes made before
+     * the batch, the resource resolver must not have uncommitted changes when the batch is started. In autocommit
+     * mode they are committed first, otherwise an {@link IllegalStateException} is thrown.
+     * </p>
+     * @return Batch that has to be committed or closed
+     * @throws IllegalStateException if the resource resolver has uncommitted changes and autocommit mode is not
+     *             active
+     */
+    public @NotNull ContentBatch batch() {
+        if (batchDepth == 0 && resourceResolver.hasChanges()) {
+            if (!autoCommit) {
+                throw new IllegalStateException("Resource resolver has uncommitted changes that would be reverted "
+                        + "if the batch fails, commit them before starting a batch.");
+            }
+            try {
+                resourceResolver.commit();
+            } catch (PersistenceException ex) {
+                throw new RuntimeException("Unable to commit changes before starting batch.", ex);
+            }
+        }
+        batchDepth++;
+        return new ContentBatch(this);
+    }
+
+    /**
+     * Executes all load operations of the callback in a batch. If the callback completes normally, all changes are
+     * committed with a single commit (when autocommit mode is active). If it throws an exception, all uncommitted
+     * changes of the resource resolver are reverted.
+     * @param callback Callback that executes load operations with this content loader
+     * @throws IllegalStateException if the resource resolver has uncommitted changes and autocommit mode is not
+     *             active, see {@link #batch()}
+     */
+    public void batch(@NotNull Consumer<ContentLoader> callback) {
+        try (ContentBatch batch = batch()) {
+            callback.accept(this);
+            batch.commit();
+        }
+    }
+
+    /**
+     * Ends the current batch.
+     * @param commit Whether to commit or revert the changes
+     */
+    void endBatch(boolean commit) {
+        batchDepth--;
+        if (!commit) {
+            resourceResolver.revert();
+        } else if (isAutoCommit()) {
+            try {
+                commit("batch");
+            } catch (PersistenceException ex) {
+                resourceResolver.revert();
+                throw new RuntimeException("Unable to commit batch.", ex);
+            }
+        }
+    }
+
+    private boolean isAutoCommit() {
+        return autoCommit && batchDepth == 0;
+    }
+
+    /**
+     * Commits the changes of multiple import operations, and records the commit time as separate statistics.
+     * @param source Description of the import operations
+     * @throws PersistenceException if commit failed
+     */
+    private void commit(@NotNull String source) throws PersistenceException {
+        ImportRecorder importRecorder = new ImportRecorder();
+        long startTime = System.nanoTime();
+        resourceResolver.commit();
+        importRecorder.addCommitTime(System.nanoTime() - startTime);
+        importStatistics.add(importRecorder.toStatistics(source, null));
+    }
+
+    /**
+     * Start a bulk import of JSON and FileVault XML files from classpath or filesystem.
+     * The files are parsed concurrently, and imported into the repository afterwards one after another
+     * with a single commit (when autocommit mode is active).
+     * @return Bulk import
+     */
+    public @NotNull BulkImport bulkImport() {
+        return new BulkImport(this);
+    }
+
+    /**
+     * Parse all files of the bulk import concurrently, and import them in the given order.
+     * @param entries Bulk import entries
+     * @return Imported resources in the order of the entries
+     */
+    @NotNull
+    List<Resource> importAll(@NotNull List<BulkImport.Entry> entries) {
+        // resolve all files first to fail fast before parsing
+        List<URL> urls = entries.stream()
+                .map(entry -> getUrlFromClasspathOrFilesystem(entry.classpathResourceOrFile()))
+                .toList();
+        List<ImportRecorder> importRecorders =
+                entries.stream().map(entry -> new ImportRecorder()).toList();
+        List<ParsedContentCache.ParsedContent> parsedContents = IntStream.range(0, entries.size())
+                .parallel()
+                .mapToObj(index ->
+                        parseContent(urls.get(index), entries.get(index).fileVaultXml(), importRecorders.get(index)))
+                .toList();
+
+        // apply in a batch, so a failing file reverts the files applied before
+        List<Resource> resources = new ArrayList<>(entries.size());
+        try (ContentBatch batch = batch()) {
+            for (int i = 0; i < entries.size(); i++) {
+                BulkImport.Entry entry = entries.get(i);
+                ParsedContentCache.ParsedContent parsedContent = parsedContents.get(i);
+                resources.add(mountContent(
+                        entry.classpathResourceOrFile(),
+                        entry.destPath(),
+                        (contentHandler, importRecorder) -> parsedContent.replay(contentHandler),
+                        importRecorders.get(i),
+                        false,
+                        null,
+                        null));
+            }
+            batch.commit();
+        }
+        return resources;
+    }
+
+    private @NotNull ParsedContentCache.ParsedContent parseContent(
+            @NotNull URL url, boolean fileVaultXml, @NotNull ImportRecorder importRecorder) {
+        // parsers are not shared between threads
+        long startTime = System.nanoTime();
+        try {
+            if (fileVaultXml) {
+                return ParsedContentCache.get(
+                        url,
+                        new JCRXMLContentParser(),
+                        fileVaultXmlParserOptions,
+                        ignoredNames,
+                        importRecorder::addBytesRead);
+            } else {
+                return ParsedContentCache.get(
+                        url, new JSONContentParser(), jsonParserOptions, ignoredNames, importRecorder::addBytesRead);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to parse " + url, ex);
+        } finally {
+            importRecorder.addParseTime(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Statistics of the JVM-wide cache of parsed JSON and FileVault XML files that are imported from classpath or
+     * filesystem. The maximum memory size of the cache can be set with the system property
+     * <code>sling.mock.contentloader.cache.size.mb</code> (default: 64), 0 disables it.
+     * @return Parsed content cache
+     */
+    public static @NotNull SnapshotCache<?, ?> parsedContentCache() {
+        return ParsedContentCache.getCache();
+    }
+
+    /**
+     * Statistics of all import operations of this content loader in the order they were executed: JSON, FileVault
+     * XML, compiled content and binary imports. Commits of batches and bulk imports are listed as separate entries.
+     * Mounted content is not included, as it is not imported.
+     * @return Import statistics
+     */
+    public @NotNull List<ContentImportStatistics> getImportStatistics() {
+        return List.copyOf(importStatistics);
+    }
+
+    /**
+     * Sum of the statistics of all import operations of this content loader.
+     * @return Total import statistics
+     */
+    public @NotNull ContentImportStatistics getTotalImportStatistics() {
+        ContentImportStatistics total =
+                new ContentImportStatistics(ContentImportStatistics.TOTAL_SOURCE, null, 0L, 0L, 0L, 0L, 0L, 0L);
+        for (ContentImportStatistics statistics : importStatistics) {
+            total = total.add(statistics);
+        }
+        return total;
+    }
+
+    /**
+     * Removes all import statistics collected so far.
+     */
+    public void resetImportStatistics() {
+        importStatistics.clear();
+    }
+
     private @NotNull Resource createResourceHierarchy(@NotNull String path) {
         String parentPath = ResourceUtil.getParent(path);
         if (parentPath == null) {
@@ -377,7 +988,7 @@ public final class ContentLoader {
     public @NotNull Resource binaryFile(
             @NotNull String classpathResourceOrFile, @NotNull String path, @NotNull String mimeType) {
         return processInputStreamFromClasspathOrFilesystem(
-                classpathResourceOrFile, is -> binaryFile(is, path, mimeType));
+                classpathResourceOrFile, is -> importBinary(is, path, mimeType, classpathResourceOrFile, true));
     }
 
     /**
@@ -410,16 +1021,7 @@ public final class ContentLoader {
      */
     public @NotNull Resource binaryFile(
             @NotNull InputStream inputStream, @NotNull String path, @NotNull String mimeType) {
-        String parentPath = ResourceUtil.getParent(path, 1);
-        String name = ResourceUtil.getName(path);
-        if (parentPath == null) {
-            throw new IllegalArgumentException("Path has no parent: " + path);
-        }
-        Resource parentResource = resourceResolver.getResource(parentPath);
-        if (parentResource == null) {
-            parentResource = createResourceHierarchy(parentPath);
-        }
-        return binaryFile(inputStream, parentResource, name, mimeType);
+        return importBinary(inputStream, path, mimeType, INPUT_STREAM_SOURCE, true);
     }
 
     /**
@@ -456,26 +1058,7 @@ public final class ContentLoader {
             @NotNull Resource parentResource,
             @NotNull String name,
             @NotNull String mimeType) {
-        try {
-            Resource file = resourceResolver.create(
-                    parentResource, name, ImmutableValueMap.of(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_FILE));
-            resourceResolver.create(
-                    file,
-                    JcrConstants.JCR_CONTENT,
-                    ImmutableValueMap.of(
-                            JcrConstants.JCR_PRIMARYTYPE,
-                            JcrConstants.NT_RESOURCE,
-                            JcrConstants.JCR_DATA,
-                            inputStream,
-                            JcrConstants.JCR_MIMETYPE,
-                            mimeType));
-            if (autoCommit) {
-                resourceResolver.commit();
-            }
-            return file;
-        } catch (PersistenceException ex) {
-            throw new RuntimeException("Unable to create resource at " + parentResource.getPath() + "/" + name, ex);
-        }
+        return importBinary(inputStream, parentResource, name, mimeType, INPUT_STREAM_SOURCE, true);
     }
 
     /**
@@ -507,7 +1090,7 @@ public final class ContentLoader {
     public @NotNull Resource binaryResource(
             @NotNull String classpathResourceOrFile, @NotNull String path, @NotNull String mimeType) {
         return processInputStreamFromClasspathOrFilesystem(
-                classpathResourceOrFile, is -> binaryResource(is, path, mimeType));
+                classpathResourceOrFile, is -> importBinary(is, path, mimeType, classpathResourceOrFile, false));
     }
 
     /**
@@ -540,16 +1123,7 @@ public final class ContentLoader {
      */
     public @NotNull Resource binaryResource(
             @NotNull InputStream inputStream, @NotNull String path, @NotNull String mimeType) {
-        String parentPath = ResourceUtil.getParent(path, 1);
-        String name = ResourceUtil.getName(path);
-        if (parentPath == null) {
-            throw new IllegalArgumentException("Path has no parent: " + path);
-        }
-        Resource parentResource = resourceResolver.getResource(parentPath);
-        if (parentResource == null) {
-            parentResource = createResourceHierarchy(parentPath);
-        }
-        return binaryResource(inputStream, parentResource, name, mimeType);
+        return importBinary(inputStream, path, mimeType, INPUT_STREAM_SOURCE, false);
     }
 
     /**
@@ -586,26 +1160,155 @@ public final class ContentLoader {
             @NotNull Resource parentResource,
             @NotNull String name,
             @NotNull String mimeType) {
+        return importBinary(inputStream, parentResource, name, mimeType, INPUT_STREAM_SOURCE, false);
+    }
+
+    private @NotNull Resource importBinary(
+            @NotNull InputStream inputStream,
+            @NotNull String path,
+            @NotNull String mimeType,
+            @NotNull String source,
+            boolean ntFile) {
+        String parentPath = ResourceUtil.getParent(path, 1);
+        String name = ResourceUtil.getName(path);
+        if (parentPath == null) {
+            throw new IllegalArgumentException("Path has no parent: " + path);
+        }
+        Resource parentResource = resourceResolver.getResource(parentPath);
+        if (parentResource == null) {
+            parentResource = createResourceHierarchy(parentPath);
+        }
+        return importBinary(inputStream, parentResource, name, mimeType, source, ntFile);
+    }
+
+    private @NotNull Resource importBinary(
+            @NotNull InputStream inputStream,
+            @NotNull Resource parentResource,
+            @NotNull String name,
+            @NotNull String mimeType,
+            @NotNull String source,
+            boolean ntFile) {
+        ImportRecorder importRecorder = new ImportRecorder();
+        CountingInputStream is = new CountingInputStream(inputStream);
         try {
-            Resource resource = resourceResolver.create(
-                    parentResource,
-                    name,
-                    ImmutableValueMap.of(
-                            JcrConstants.JCR_PRIMARYTYPE,
-                            JcrConstants.NT_RESOURCE,
-                            JcrConstants.JCR_DATA,
-                            inputStream,
-                            JcrConstants.JCR_MIMETYPE,
-                            mimeType));
-            if (autoCommit) {
+            long startTime = System.nanoTime();
+            Resource resource;
+            Map<String, Object> resourceProps = ImmutableValueMap.of(
+                    JcrConstants.JCR_PRIMARYTYPE,
+                    JcrConstants.NT_RESOURCE,
+                    JcrConstants.JCR_DATA,
+                    is,
+                    JcrConstants.JCR_MIMETYPE,
+                    mimeType);
+            if (ntFile) {
+                resource = resourceResolver.create(
+                        parentResource, name, ImmutableValueMap.of(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_FILE));
+                importRecorder.addResource(1, 0L);
+                resourceResolver.create(resource, JcrConstants.JCR_CONTENT, resourceProps);
+            } else {
+                resource = resourceResolver.create(parentResource, name, resourceProps);
+            }
+            importRecorder.addResource(resourceProps.size(), System.nanoTime() - startTime);
+            if (isAutoCommit()) {
+                startTime = System.nanoTime();
                 resourceResolver.commit();
+                importRecorder.addCommitTime(System.nanoTime() - startTime);
             }
+            // the binary data is read when the resource is created or committed
+            importRecorder.addBytesRead(is.getByteCount());
+            importStatistics.add(importRecorder.toStatistics(source, resource.getPath()));
             return resource;
         } catch (PersistenceException ex) {
             throw new RuntimeException("Unable to create resource at " + parentResource.getPath() + "/" + name, ex);
         }
     }
 
+    /**
+     * Mount binary file from filesystem as nt:file binary node in repository.
+     * <ul>
+     * <li>The binary data is not imported, but mounted via a resource provider that opens a new stream on the file
+     * for each access. So even very large files do not have to fit into the heap.</li>
+     * <li>Mime type is auto-detected from {@code file} or {@code path}.</li>
+     * <li>The mounted resources are read-only.</li>
+     * <li>Not supported with {@link ResourceResolverType#RESOURCERESOLVER_MOCK}.</li>
+     * </ul>
+     * @param file Binary file
+     * @param path Path to mount binary data to
+     * @return Resource with binary data
+     */
+    public @NotNull Resource mountBinaryFile(@NotNull File file, @NotNull String path) {
+        return mountBinaryFile(file, path, detectMimeTypeFromNames(file.getName(), path));
+    }
+
+    /**
+     * Mount binary file from filesystem as nt:file binary node in repository.
+     * <ul>
+     * <li>The binary data is not imported, but mounted via a resource provider that opens a new stream on the file
+     * for each access. So even very large files do not have to fit into the heap.</li>
+     * <li>The mounted resources are read-only.</li>
+     * <li>Not supported with {@link ResourceResolverType#RESOURCERESOLVER_MOCK}.</li>
+     * </ul>
+     * @param file Binary file
+     * @param path Path to mount binary data to
+     * @param mimeType Mime type of binary data
+     * @return Resource with binary data
+     */
+    public @NotNull Resource mountBinaryFile(@NotNull File file, @NotNull String path, @NotNull String mimeType) {
+        return mountBinary(file, path, mimeType, true);
+    }
+
+    /**
+     * Mount binary file from filesystem as nt:resource binary node in repository.
+     * <ul>
+     * <li>The binary data is not imported, but mounted via a resource provider that opens a new stream on the file
+     * for each access. So even very large files do not have to fit into the heap.</li>
+     * <li>Mime type is auto-detected from {@code file} or {@code path}.</li>
+     * <li>The mounted resource is read-only.</li>
+     * <li>Not supported with {@link ResourceResolverType#RESOURCERESOLVER_MOCK}.</li>
+     * </ul>
+     * @param file Binary file
+     * @param path Path to mount binary data to
+     * @return Resource with binary data
+     */
+    public @NotNull Resource mountBinaryResource(@NotNull File file, @NotNull String path) {
+        return mountBinaryResource(file, path, detectMimeTypeFromNames(file.getName(), path));
+    }
+
+    /**
+     * Mount binary file from filesystem as nt:resource binary node in repository.
+     * <ul>
+     * <li>The binary data is not imported, but mounted via a resource provider that opens a new stream on the file
+     * for each access. So even very large files do not have to fit into the heap.</li>
+     * <li>The mounted resource is read-only.</li>
+     * <li>Not supported with {@link ResourceResolverType#RESOURCERESOLVER_MOCK}.</li>
+     * </ul>
+     * @param file Binary file
+     * @param path Path to mount binary data to
+     * @param mimeType Mime type of binary data
+     * @return Resource with binary data
+     */
+    public @NotNull Resource mountBinaryResource(@NotNull File file, @NotNull String path, @NotNull String mimeType) {
+        return mountBinary(file, path, mimeType, false);
+    }
+
+    @SuppressWarnings("null")
+    private @NotNull Resource mountBinary(
+            @NotNull File file, @NotNull String path, @NotNull String mimeType, boolean ntFile) {
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("File not found: " + file.getPath());
+        }
+        ensureResourceProvidersSupported();
+        bundleContext.registerService(
+                ResourceProvider.class,
+                new FileBinaryResourceProvider(file, path, mimeType, ntFile),
+                MapUtil.toDictionary(ResourceProvider.PROPERTY_ROOT, path));
+        Resource resource = resourceResolver.getResource(path);
+        if (resource == null) {
+            throw new IllegalStateException("Unable to mount binary file at " + path);
+        }
+        return resource;
+    }
+
     /**
      * Detected mime type from any of the given names (evaluating the file extension) using Mime Type service.
      * Fallback to application/octet-stream.
@@ -758,6 +1461,35 @@ public final class ContentLoader {
                 0);
     }
 
+    /**
+     * Get URL for a resource either from classpath (preferred) or from filesystem (fallback).
+     * @param classpathResourceOrFile Classpath resource URL or file path
+     * @return URL
+     */
+    private @NotNull URL getUrlFromClasspathOrFilesystem(@NotNull String classpathResourceOrFile) {
+        URL url = ContentLoader.class.getResource(classpathResourceOrFile);
+        if (url == null) {
+            File file = new File(classpathResourceOrFile);
+            if (!file.isFile()) {
+                throw new IllegalArgumentException("Classpath resource or file not found: " + classpathResourceOrFile);
+            }
+            try {
+                url = file.toURI().toURL();
+            } catch (MalformedURLException ex) {
+                throw new IllegalArgumentException("Invalid file path: " + classpathResourceOrFile, ex);
+            }
+        }
+        return url;
+    }
+
+    /**
+     * Source of content that is passed to a content handler.
+     */
+    @FunctionalInterface
+    private interface ContentSource {
+        void parse(@NotNull ContentHandler contentHandler, @NotNull ImportRecorder importRecorder) throws IOException;
+    }
+
     /**
      * Get input stream for a resource either from classpath (preferred) or from filesystem (fallback).
      * @param classpathResourceOrFile Classpath resource URL or file path
@@ -783,17 +1515,21 @@ public final class ContentLoader {
 
     @SuppressWarnings("null")
     private void registerFileSystemResourceProvider(Object... serviceProperties) {
+        ensureResourceProvidersSupported();
+        Dictionary<String, Object> props = MapUtil.toDictionary(serviceProperties);
+        FsResourceProvider service = MockOsgi.activateInjectServices(FsResourceProvider.class, bundleContext, props);
+        bundleContext.registerService(ResourceProvider.class, service, props);
+    }
+
+    private void ensureResourceProvidersSupported() {
         if (bundleContext == null) {
             throw new IllegalStateException("No bundle context given for content loader.");
         }
         if (isUsingMockResourceResolverFactory()) {
             throw new IllegalStateException(
-                    "Loading folder content is not supported with RESOURCERESOLVER_MOCK resource resolver type. "
+                    "Mounting content is not supported with RESOURCERESOLVER_MOCK resource resolver type. "
                             + "Use RESOURCEPROVIDER_MOCK or one of the other types.");
         }
-        Dictionary<String, Object> props = MapUtil.toDictionary(serviceProperties);
-        FsResourceProvider service = MockOsgi.activateInjectServices(FsResourceProvider.class, bundleContext, props);
-        bundleContext.registerService(ResourceProvider.class, service, props);
     }
 
     private boolean isUsingMockResourceResolverFactory() {
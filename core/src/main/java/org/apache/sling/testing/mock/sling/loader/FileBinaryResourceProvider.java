@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.commons.lang3.Strings;
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.sling.api.resource.AbstractResource;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.spi.resource.provider.ResolveContext;
+import org.apache.sling.spi.resource.provider.ResourceContext;
+import org.apache.sling.spi.resource.provider.ResourceProvider;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Read-only resource provider that mounts a single binary file from the filesystem as nt:file or nt:resource.
+ * The binary data is never held in memory: each access to <code>jcr:data</code> returns a new stream on the file.
+ */
+final class FileBinaryResourceProvider extends ResourceProvider<Object> {
+
+    private final @NotNull File file;
+    private final @NotNull String rootPath;
+    private final @NotNull String mimeType;
+    private final boolean ntFile;
+
+    /**
+     * @param file Binary file
+     * @param rootPath Path of the nt:file or nt:resource resource
+     * @param mimeType Mime type
+     * @param ntFile true to mount as nt:file with a jcr:content child, false to mount as nt:resource
+     */
+    FileBinaryResourceProvider(@NotNull File file, @NotNull String rootPath, @NotNull String mimeType, boolean ntFile) {
+        this.file = file;
+        this.rootPath = rootPath;
+        this.mimeType = mimeType;
+        this.ntFile = ntFile;
+    }
+
+    @Override
+    public @Nullable Resource getResource(
+            @NotNull ResolveContext<Object> ctx,
+            @NotNull String path,
+            @NotNull ResourceContext resourceContext,
+            @Nullable Resource parent) {
+        if (Strings.CS.equals(path, rootPath)) {
+            return ntFile
+                    ? newFileResource(ctx.getResourceResolver())
+                    : newContentResource(ctx.getResourceResolver(), path);
+        }
+        if (ntFile && Strings.CS.equals(path, rootPath + "/" + JcrConstants.JCR_CONTENT)) {
+            return newContentResource(ctx.getResourceResolver(), path);
+        }
+        return null;
+    }
+
+    @Override
+    public @Nullable Iterator<Resource> listChildren(@NotNull ResolveContext<Object> ctx, @NotNull Resource parent) {
+        if (ntFile && Strings.CS.equals(parent.getPath(), rootPath)) {
+            return Collections.singletonList(
+                            newContentResource(ctx.getResourceResolver(), rootPath + "/" + JcrConstants.JCR_CONTENT))
+                    .iterator();
+        }
+        return null;
+    }
+
+    private @NotNull Resource newFileResource(@NotNull ResourceResolver resourceResolver) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_FILE);
+        return new FileBinaryResource(resourceResolver, rootPath, new ValueMapDecorator(props));
+    }
+
+    private @NotNull Resource newContentResource(@NotNull ResourceResolver resourceResolver, @NotNull String path) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_RESOURCE);
+        props.put(JcrConstants.JCR_MIMETYPE, mimeType);
+        Calendar lastModified = Calendar.getInstance();
+        lastModified.setTimeInMillis(file.lastModified());
+        props.put(JcrConstants.JCR_LASTMODIFIED, lastModified);
+        return new FileBinaryResource(resourceResolver, path, new ValueMapDecorator(new FileDataMap(props)));
+    }
+
+    private @NotNull InputStream openStream() {
+        try {
+            return Files.newInputStream(file.toPath());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to read file: " + file.getPath(), ex);
+        }
+    }
+
+    /**
+     * Properties of the nt:resource with <code>jcr:data</code> included in all views. Each access to
+     * <code>jcr:data</code> returns a new stream that opens the file on first read and closes it at the end of the
+     * data, so callers that do not read or close it do not leak file handles.
+     */
+    private final class FileDataMap extends AbstractMap<String, Object> {
+
+        private final @NotNull Map<String, Object> properties;
+
+        FileDataMap(@NotNull Map<String, Object> properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (JcrConstants.JCR_DATA.equals(key)) {
+                return new LazyFileInputStream();
+            }
+            return properties.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return JcrConstants.JCR_DATA.equals(key) || properties.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return properties.size() + 1;
+        }
+
+        @Override
+        public @NotNull Set<Map.Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public @NotNull Iterator<Map.Entry<String, Object>> iterator() {
+                    Iterator<Map.Entry<String, Object>> propertyEntries =
+                            properties.entrySet().iterator();
+                    return new Iterator<>() {
+                        private boolean dataReturned;
+
+                        @Override
+                        public boolean hasNext() {
+                            return propertyEntries.hasNext() || !dataReturned;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Object> next() {
+                            if (propertyEntries.hasNext()) {
+                                return propertyEntries.next();
+                            }
+                            if (dataReturned) {
+                                throw new NoSuchElementException();
+                            }
+                            dataReturned = true;
+                            return new SimpleImmutableEntry<>(JcrConstants.JCR_DATA, new LazyFileInputStream());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return FileDataMap.this.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * Stream on the file that is opened on first read, and closed when the end of the file is reached.
+     */
+    private final class LazyFileInputStream extends InputStream {
+
+        private InputStream stream;
+        private boolean closed;
+
+        private @NotNull InputStream stream() throws IOException {
+            if (closed) {
+                throw new IOException("Stream is closed: " + file.getPath());
+            }
+            if (stream == null) {
+                stream = Files.newInputStream(file.toPath());
+            }
+            return stream;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (closed) {
+                return -1;
+            }
+            int result = stream().read();
+            if (result < 0) {
+                close();
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte @NotNull [] b, int off, int len) throws IOException {
+            if (closed) {
+                return -1;
+            }
+            int result = stream().read(b, off, len);
+            if (result < 0) {
+                close();
+            }
+            return result;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return closed ? 0 : stream().available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    private final class FileBinaryResource extends AbstractResource {
+
+        private final @NotNull ResourceResolver resourceResolver;
+        private final @NotNull String path;
+        private final @NotNull ValueMap valueMap;
+        private final @NotNull ResourceMetadata resourceMetadata = new ResourceMetadata();
+
+        FileBinaryResource(
+                @NotNull ResourceResolver resourceResolver, @NotNull String path, @NotNull ValueMap valueMap) {
+            this.resourceResolver = resourceResolver;
+            this.path = path;
+            this.valueMap = valueMap;
+            this.resourceMetadata.setResolutionPath(path);
+            this.resourceMetadata.setContentLength(file.length());
+            this.resourceMetadata.setContentType(mimeType);
+            this.resourceMetadata.setModificationTime(file.lastModified());
+        }
+
+        @Override
+        public @NotNull String getPath() {
+            return path;
+        }
+
+        @Override
+        public @NotNull String getResourceType() {
+            return valueMap.get(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED);
+        }
+
+        @Override
+        public @Nullable String getResourceSuperType() {
+            return null;
+        }
+
+        @Override
+        public @NotNull ResourceMetadata getResourceMetadata() {
+            return resourceMetadata;
+        }
+
+        @Override
+        public @NotNull ResourceResolver getResourceResolver() {
+            return resourceResolver;
+        }
+
+        @Override
+        public @NotNull ValueMap getValueMap() {
+            return valueMap;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "null"})
+        public <AdapterType> @Nullable AdapterType adaptTo(@NotNull Class<AdapterType> type) {
+            if (type == ValueMap.class || type == Map.class) {
+                return (AdapterType) valueMap;
+            }
+            if (type == InputStream.class) {
+                return (AdapterType) openStream();
+            }
+            return super.adaptTo(type);
+        }
+
+        @Override
+        public String toString() {
+            return "FileBinaryResource[path=" + path + ",file=" + file.getPath() + "]";
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Collects the statistics of a single content import operation.
+ * Bytes read may be added concurrently, all other values are only updated by the importing thread.
+ */
+final class ImportRecorder {
+
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder parseTimeNanos = new LongAdder();
+    private long resourceCount;
+    private long propertyCount;
+    private long applyTimeNanos;
+    private long commitTimeNanos;
+
+    void addBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    void addParseTime(long nanos) {
+        parseTimeNanos.add(nanos);
+    }
+
+    void addResource(int properties, long nanos) {
+        resourceCount++;
+        propertyCount += properties;
+        applyTimeNanos += nanos;
+    }
+
+    void addApplyTime(long nanos) {
+        applyTimeNanos += nanos;
+    }
+
+    void addCommitTime(long nanos) {
+        commitTimeNanos += nanos;
+    }
+
+    long getApplyTimeNanos() {
+        return applyTimeNanos;
+    }
+
+    @NotNull
+    ContentImportStatistics toStatistics(@NotNull String source, @Nullable String destPath) {
+        return new ContentImportStatistics(
+                source,
+                destPath,
+                resourceCount,
+                propertyCount,
+                bytesRead.sum(),
+                parseTimeNanos.sum(),
+                applyTimeNanos,
+                commitTimeNanos);
+    }
+}
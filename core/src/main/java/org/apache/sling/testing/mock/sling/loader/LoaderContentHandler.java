@@ -19,10 +19,14 @@
 package org.apache.sling.testing.mock.sling.loader;
 
 import javax.jcr.Node;
+import javax.jcr.RepositoryException;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Predicate;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
@@ -43,18 +47,67 @@ final class LoaderContentHandler implements ContentHandler {
 
     private final @NotNull String rootPath;
     private final @NotNull ResourceResolver resourceResolver;
+    private final @NotNull ImportRecorder importRecorder;
+    private final @Nullable Predicate<String> mergeExisting;
+    private final @Nullable Predicate<String> replacePrimaryType;
 
-    public LoaderContentHandler(@NotNull String rootPath, @NotNull ResourceResolver resourceResolver) {
+    /**
+     * Resources created by this handler on the path from the root to the resource created last. Parsers report
+     * resources depth-first, so the parent of the next resource is nearly always on this stack.
+     */
+    private final Deque<Resource> parentStack = new ArrayDeque<>();
+
+    public LoaderContentHandler(
+            @NotNull String rootPath,
+            @NotNull ResourceResolver resourceResolver,
+            @NotNull ImportRecorder importRecorder) {
+        this(rootPath, resourceResolver, importRecorder, null, null);
+    }
+
+    /**
+     * @param rootPath Root path
+     * @param resourceResolver Resource resolver
+     * @param importRecorder Import recorder
+     * @param mergeExisting If set, resources that exist already are kept instead of failing. Their properties are
+     *            updated if the predicate accepts their path, otherwise they are left unchanged. The mixin types of
+     *            existing resources are always kept, the primary type unless accepted by {@code replacePrimaryType}.
+     * @param replacePrimaryType If set, the primary type of existing resources whose path is accepted by the
+     *            predicate is replaced with the primary type from the content, e.g. for placeholder folders.
+     */
+    public LoaderContentHandler(
+            @NotNull String rootPath,
+            @NotNull ResourceResolver resourceResolver,
+            @NotNull ImportRecorder importRecorder,
+            @Nullable Predicate<String> mergeExisting,
+            @Nullable Predicate<String> replacePrimaryType) {
         this.rootPath = rootPath;
         this.resourceResolver = resourceResolver;
+        this.importRecorder = importRecorder;
+        this.mergeExisting = mergeExisting;
+        this.replacePrimaryType = replacePrimaryType;
     }
 
     @Override
     public void resource(String path, Map<String, Object> properties) {
+        long startTime = System.nanoTime();
         String fullPath = rootPath;
         if (!Strings.CS.equals(path, "/")) {
             fullPath += path;
         }
+        if (mergeExisting != null) {
+            Resource existing = resourceResolver.getResource(fullPath);
+            if (existing != null) {
+                if (replacePrimaryType != null && replacePrimaryType.test(fullPath)) {
+                    replacePrimaryType(existing, properties);
+                }
+                if (mergeExisting.test(fullPath)) {
+                    mergeProperties(existing, properties);
+                }
+                parentStack.push(existing);
+                importRecorder.addResource(properties != null ? properties.size() : 0, System.nanoTime() - startTime);
+                return;
+            }
+        }
         String parentPath = ResourceUtil.getParent(fullPath);
         String name = ResourceUtil.getName(fullPath);
 
@@ -62,26 +115,89 @@ final class LoaderContentHandler implements ContentHandler {
             throw new IllegalArgumentException("Path has no parent: " + fullPath);
         }
 
-        Resource parentResource = resourceResolver.getResource(parentPath);
+        Resource parentResource = getParentResource(parentPath);
         if (parentResource == null) {
             throw new RuntimeException("Parent resource '" + parentPath + "' not found.");
         }
         try {
-            createResource(parentResource, name, properties);
+            parentStack.push(createResource(parentResource, name, properties));
+            importRecorder.addResource(properties != null ? properties.size() : 0, System.nanoTime() - startTime);
         } catch (PersistenceException ex) {
             throw new RuntimeException("Unable to create resource at '" + fullPath + "'.", ex);
         }
     }
 
+    private @Nullable Resource getParentResource(@NotNull String parentPath) {
+        while (!parentStack.isEmpty()) {
+            Resource resource = parentStack.peek();
+            if (Strings.CS.equals(resource.getPath(), parentPath)) {
+                return resource;
+            }
+            parentStack.pop();
+        }
+        Resource resource = resourceResolver.getResource(parentPath);
+        if (resource != null) {
+            parentStack.push(resource);
+        }
+        return resource;
+    }
+
+    private void replacePrimaryType(@NotNull Resource resource, @Nullable Map<String, Object> properties) {
+        Object value = properties != null ? properties.get(JcrConstants.JCR_PRIMARYTYPE) : null;
+        if (!(value instanceof String primaryType)
+                || Strings.CS.equals(
+                        primaryType, resource.getValueMap().get(JcrConstants.JCR_PRIMARYTYPE, String.class))) {
+            return;
+        }
+        try {
+            Node node = resource.adaptTo(Node.class);
+            if (node != null) {
+                node.setPrimaryType(primaryType);
+                return;
+            }
+            ModifiableValueMap valueMap = resource.adaptTo(ModifiableValueMap.class);
+            if (valueMap == null) {
+                throw new RuntimeException("Unable to update primary type of '" + resource.getPath() + "'.");
+            }
+            valueMap.put(JcrConstants.JCR_PRIMARYTYPE, primaryType);
+        } catch (RepositoryException ex) {
+            throw new RuntimeException("Unable to update primary type of '" + resource.getPath() + "'.", ex);
+        }
+    }
+
+    private void mergeProperties(@NotNull Resource resource, @Nullable Map<String, Object> properties) {
+        if (properties == null || properties.isEmpty()) {
+            return;
+        }
+        ModifiableValueMap valueMap = resource.adaptTo(ModifiableValueMap.class);
+        if (valueMap == null) {
+            throw new RuntimeException("Unable to update properties of '" + resource.getPath() + "'.");
+        }
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            String name = entry.getKey();
+            if (!Strings.CS.equalsAny(
+                    name,
+                    JcrConstants.JCR_PRIMARYTYPE,
+                    JcrConstants.JCR_MIXINTYPES,
+                    JCR_DATA_PLACEHOLDER,
+                    JCR_REFERENCE_PLACEHOLDER)) {
+                valueMap.put(name, entry.getValue());
+            }
+        }
+    }
+
     private Resource createResource(
             @NotNull Resource parentResource, @NotNull String childName, @Nullable Map<String, Object> content)
             throws PersistenceException {
 
-        // collect all properties first
+        // the parsers create a new map for each resource, so it is only copied if placeholders have to be removed
         boolean hasJcrData = false;
         String referencedNodePath = null;
-        Map<String, Object> props = new HashMap<>();
-        if (content != null) {
+        Map<String, Object> props = content;
+        if (content == null) {
+            props = new HashMap<>();
+        } else if (content.containsKey(JCR_DATA_PLACEHOLDER) || content.containsKey(JCR_REFERENCE_PLACEHOLDER)) {
+            props = new HashMap<>();
             for (Map.Entry<String, Object> entry : content.entrySet()) {
                 final String name = entry.getKey();
                 if (Strings.CS.equals(name, JCR_DATA_PLACEHOLDER)) {
@@ -97,19 +213,21 @@ final class LoaderContentHandler implements ContentHandler {
         // create resource
         Resource resource = resourceResolver.create(parentResource, childName, props);
 
-        ModifiableValueMap valueMap = resource.adaptTo(ModifiableValueMap.class);
-        if (valueMap != null) {
-            if (hasJcrData) {
-                // we cannot import binary data here - but to avoid complaints by JCR we create it with empty binary
-                // data
-                valueMap.put(JcrConstants.JCR_DATA, new ByteArrayInputStream(new byte[0]));
-            } else if (StringUtils.isNotBlank(referencedNodePath)) {
-                // target reference has to be specified relative to linking node, as tests may apply a dynamic root
-                // directory
-                Resource referencedNodeResource =
-                        resourceResolver.getResource(resource.getPath() + "/" + referencedNodePath);
-                if (referencedNodeResource != null) {
-                    valueMap.put(JcrConstants.JCR_CONTENT, referencedNodeResource.adaptTo(Node.class));
+        if (hasJcrData || StringUtils.isNotBlank(referencedNodePath)) {
+            ModifiableValueMap valueMap = resource.adaptTo(ModifiableValueMap.class);
+            if (valueMap != null) {
+                if (hasJcrData) {
+                    // we cannot import binary data here - but to avoid complaints by JCR we create it with empty
+                    // binary data
+                    valueMap.put(JcrConstants.JCR_DATA, new ByteArrayInputStream(new byte[0]));
+                } else {
+                    // target reference has to be specified relative to linking node, as tests may apply a dynamic
+                    // root directory
+                    Resource referencedNodeResource =
+                            resourceResolver.getResource(resource.getPath() + "/" + referencedNodePath);
+                    if (referencedNodeResource != null) {
+                        valueMap.put(JcrConstants.JCR_CONTENT, referencedNodeResource.adaptTo(Node.class));
+                    }
                 }
             }
         }
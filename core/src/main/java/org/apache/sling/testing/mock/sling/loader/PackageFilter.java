@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.Strings;
+import org.apache.sling.contentparser.api.ContentHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Workspace filter of a FileVault content package, as defined in <code>META-INF/vault/filter.xml</code>.
+ * <p>
+ * A path is contained in the filter if it is at or below one of the filter roots, and the include and exclude
+ * rules of this filter root do not exclude it. The last matching rule wins. If no rule matches, the path is
+ * excluded if the first rule is an include rule, otherwise it is included. The import mode of the filter roots is
+ * ignored.
+ * </p>
+ */
+final class PackageFilter {
+
+    private final @NotNull List<FilterSet> filterSets;
+
+    private PackageFilter(@NotNull List<FilterSet> filterSets) {
+        this.filterSets = filterSets;
+    }
+
+    /**
+     * Parses a filter definition.
+     * @param inputStream Input stream with filter definition
+     * @return Package filter
+     * @throws IOException I/O exception
+     */
+    static @NotNull PackageFilter parse(@NotNull InputStream inputStream) throws IOException {
+        Document document;
+        try {
+            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+            documentBuilderFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            documentBuilderFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            document = documentBuilder.parse(inputStream);
+        } catch (ParserConfigurationException | SAXException ex) {
+            throw new IOException("Unable to parse package filter.", ex);
+        }
+        List<FilterSet> filterSets = new ArrayList<>();
+        NodeList filterElements = document.getDocumentElement().getElementsByTagName("filter");
+        for (int i = 0; i < filterElements.getLength(); i++) {
+            Element filterElement = (Element) filterElements.item(i);
+            List<Rule> rules = new ArrayList<>();
+            NodeList ruleNodes = filterElement.getChildNodes();
+            for (int j = 0; j < ruleNodes.getLength(); j++) {
+                Node ruleNode = ruleNodes.item(j);
+                if (ruleNode instanceof Element ruleElement) {
+                    boolean include = Strings.CS.equals(ruleElement.getTagName(), "include");
+                    if (include || Strings.CS.equals(ruleElement.getTagName(), "exclude")) {
+                        rules.add(new Rule(Pattern.compile(ruleElement.getAttribute("pattern")), include));
+                    }
+                }
+            }
+            filterSets.add(new FilterSet(filterElement.getAttribute("root"), List.copyOf(rules)));
+        }
+        return new PackageFilter(List.copyOf(filterSets));
+    }
+
+    /**
+     * @param path Resource path
+     * @return true if the resource is contained in the filter and should be imported
+     */
+    boolean contains(@NotNull String path) {
+        for (FilterSet filterSet : filterSets) {
+            if (filterSet.contains(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param path Resource path
+     * @return true if the resource is an ancestor of a filter root, and has to be created to import the content
+     */
+    boolean isAncestor(@NotNull String path) {
+        for (FilterSet filterSet : filterSets) {
+            if (Strings.CS.equals(path, "/") || Strings.CS.startsWith(filterSet.root(), path + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wraps a content handler to pass only resources that are contained in the filter or ancestors of a
+     * filter root. Descendants of resources that are not passed are not passed either.
+     * Resources without any property are references to content defined in another file of the package, they are
+     * only passed if they have descendants in the same file.
+     * @param contentHandler Content handler
+     * @param rootPath Root path of the content file
+     * @return Filtering content handler
+     */
+    @NotNull
+    ContentHandler wrap(@NotNull ContentHandler contentHandler, @NotNull String rootPath) {
+        return new ContentHandler() {
+            private String skippedPath;
+            private String placeholderPath;
+
+            @Override
+            public void resource(String path, Map<String, Object> properties) {
+                if (skippedPath != null && isSelfOrDescendant(path, skippedPath)) {
+                    return;
+                }
+                skippedPath = null;
+                String fullPath = Strings.CS.equals(path, "/") ? rootPath : rootPath + path;
+                if (!contains(fullPath) && !isAncestor(fullPath)) {
+                    skippedPath = path;
+                    return;
+                }
+                if (placeholderPath != null) {
+                    if (Strings.CS.startsWith(path, placeholderPath + "/")) {
+                        contentHandler.resource(placeholderPath, new HashMap<>());
+                    }
+                    placeholderPath = null;
+                }
+                if (!Strings.CS.equals(path, "/") && (properties == null || properties.isEmpty())) {
+                    placeholderPath = path;
+                    return;
+                }
+                contentHandler.resource(path, properties);
+            }
+        };
+    }
+
+    private static boolean isSelfOrDescendant(@NotNull String path, @Nullable String ancestorPath) {
+        return Strings.CS.equals(path, ancestorPath) || Strings.CS.startsWith(path, ancestorPath + "/");
+    }
+
+    private record Rule(@NotNull Pattern pattern, boolean include) {}
+
+    private record FilterSet(@NotNull String root, @NotNull List<Rule> rules) {
+
+        boolean contains(@NotNull String path) {
+            if (!isSelfOrDescendant(path, root) && !Strings.CS.equals(root, "/")) {
+                return false;
+            }
+            if (rules.isEmpty()) {
+                return true;
+            }
+            boolean result = !rules.get(0).include();
+            for (Rule rule : rules) {
+                if (rule.pattern().matcher(path).matches()) {
+                    result = rule.include();
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang3.Strings;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.sling.contentparser.api.ContentHandler;
+import org.apache.sling.contentparser.api.ContentParser;
+import org.apache.sling.contentparser.api.ParserOptions;
+import org.apache.sling.testing.mock.sling.SnapshotCache;
+import org.apache.sling.testing.mock.sling.internal.SnapshotValues;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * JVM-wide cache of parsed content files, so the same fixture file loaded by many tests is parsed only once.
+ * The parsed content is replayed to the content handler instead of parsing the file again.
+ * <p>
+ * Content is cached per URL, modification time of the file (for files in the filesystem), parser and ignored names.
+ * The maximum memory size can be set with the system property <code>sling.mock.contentloader.cache.size.mb</code>
+ * (default: 64), the least recently used content is evicted if it is exceeded. Set it to 0 to disable the cache.
+ * </p>
+ */
+final class ParsedContentCache {
+
+    private static final String SYSTEM_PROPERTY_CACHE_SIZE_MB = "sling.mock.contentloader.cache.size.mb";
+
+    private static final SnapshotCache<Key, ParsedContent> CACHE = new SnapshotCache<>(
+            "parsed content",
+            NumberUtils.toLong(System.getProperty(SYSTEM_PROPERTY_CACHE_SIZE_MB), 64L) * 1024L * 1024L);
+
+    private ParsedContentCache() {
+        // static methods only
+    }
+
+    /**
+     * Parses the content file, or replays the content parsed before if it did not change.
+     * @param url URL of the content file
+     * @param contentHandler Content handler
+     * @param contentParser Content parser
+     * @param parserOptions Parser options
+     * @param ignoredNames Ignored resource and property names, as set in the parser options
+     * @param bytesRead Receives the number of bytes read from the content file, if it was parsed
+     * @throws IOException I/O exception
+     */
+    static void parse(
+            @NotNull URL url,
+            @NotNull ContentHandler contentHandler,
+            @NotNull ContentParser contentParser,
+            @NotNull ParserOptions parserOptions,
+            @NotNull Set<String> ignoredNames,
+            @NotNull LongConsumer bytesRead)
+            throws IOException {
+        if (CACHE.getMaxSize() <= 0) {
+            try (CountingInputStream is = new CountingInputStream(url.openStream())) {
+                contentParser.parse(contentHandler, is, parserOptions);
+                bytesRead.accept(is.getByteCount());
+            }
+            return;
+        }
+        get(url, contentParser, parserOptions, ignoredNames, bytesRead).replay(contentHandler);
+    }
+
+    /**
+     * Gets the parsed content of the content file, parsing it only if it was not parsed before or changed.
+     * Can be called concurrently, but the content parser instance must not be shared between threads.
+     * @param url URL of the content file
+     * @param contentParser Content parser
+     * @param parserOptions Parser options
+     * @param ignoredNames Ignored resource and property names, as set in the parser options
+     * @param bytesRead Receives the number of bytes read from the content file, if it was parsed
+     * @return Parsed content
+     * @throws IOException I/O exception
+     */
+    static @NotNull ParsedContent get(
+            @NotNull URL url,
+            @NotNull ContentParser contentParser,
+            @NotNull ParserOptions parserOptions,
+            @NotNull Set<String> ignoredNames,
+            @NotNull LongConsumer bytesRead)
+            throws IOException {
+        Key key = new Key(url.toExternalForm(), getLastModified(url), contentParser.getClass(), ignoredNames);
+        ParsedContent parsedContent = CACHE.get(key);
+        if (parsedContent == null) {
+            RecordingContentHandler recordingContentHandler = new RecordingContentHandler();
+            try (CountingInputStream is = new CountingInputStream(url.openStream())) {
+                contentParser.parse(recordingContentHandler, is, parserOptions);
+                bytesRead.accept(is.getByteCount());
+            }
+            parsedContent = recordingContentHandler.toParsedContent();
+            if (CACHE.getMaxSize() > 0) {
+                CACHE.put(key, parsedContent, parsedContent.estimatedSize());
+            }
+        }
+        return parsedContent;
+    }
+
+    /**
+     * @return Cache with the parsed content files
+     */
+    static @NotNull SnapshotCache<?, ?> getCache() {
+        return CACHE;
+    }
+
+    private static long getLastModified(@NotNull URL url) {
+        if (Strings.CS.equals(url.getProtocol(), "file")) {
+            try {
+                return new File(url.toURI()).lastModified();
+            } catch (URISyntaxException | IllegalArgumentException ex) {
+                // ignore
+            }
+        }
+        // classpath resources in JAR files do not change
+        return 0L;
+    }
+
+    private record Key(
+            @NotNull String url,
+            long lastModified,
+            @NotNull Class<?> contentParserClass,
+            @NotNull Set<String> ignoredNames) {}
+
+    /**
+     * Parsed resource with its path relative to the root of the content file.
+     */
+    private record ParsedResource(
+            @NotNull String path, @NotNull Map<String, Object> properties) {}
+
+    /**
+     * All resources of a content file in the order reported by the parser.
+     */
+    record ParsedContent(@NotNull List<ParsedResource> resources, long estimatedSize) {
+
+        /**
+         * Reports all resources to the content handler, with copies of mutable property values.
+         * @param contentHandler Content handler
+         */
+        void replay(@NotNull ContentHandler contentHandler) {
+            for (ParsedResource resource : resources) {
+                Map<String, Object> properties = new HashMap<>();
+                for (Map.Entry<String, Object> entry : resource.properties().entrySet()) {
+                    properties.put(entry.getKey(), SnapshotValues.copyValue(entry.getValue()));
+                }
+                contentHandler.resource(resource.path(), properties);
+            }
+        }
+    }
+
+    private static final class RecordingContentHandler implements ContentHandler {
+
+        private final List<ParsedResource> resources = new ArrayList<>();
+        private long estimatedSize = 64L;
+
+        @Override
+        public void resource(String path, Map<String, Object> properties) {
+            Map<String, Object> copy = new HashMap<>();
+            long size = 64L + SnapshotValues.estimateSize(path);
+            if (properties != null) {
+                for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                    copy.put(entry.getKey(), SnapshotValues.copyValue(entry.getValue()));
+                    size += 32L
+                            + SnapshotValues.estimateSize(entry.getKey())
+                            + SnapshotValues.estimateSize(entry.getValue());
+                }
+            }
+            resources.add(new ParsedResource(path, Collections.unmodifiableMap(copy)));
+            estimatedSize += size;
+        }
+
+        ParsedContent toParsedContent() {
+            return new ParsedContent(List.copyOf(resources), estimatedSize);
+        }
+    }
+}
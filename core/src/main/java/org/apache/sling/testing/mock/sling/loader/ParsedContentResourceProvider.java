@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.Strings;
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.sling.api.resource.AbstractResource;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.contentparser.api.ContentHandler;
+import org.apache.sling.contentparser.api.ContentParser;
+import org.apache.sling.contentparser.api.ParserOptions;
+import org.apache.sling.spi.resource.provider.ResolveContext;
+import org.apache.sling.spi.resource.provider.ResourceContext;
+import org.apache.sling.spi.resource.provider.ResourceProvider;
+import org.apache.sling.testing.mock.sling.internal.SnapshotValues;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Read-only resource provider that mounts the content of a single content file.
+ * The file is parsed on first access only, and resource objects are created only for the resources that are
+ * actually accessed.
+ * <p>
+ * The content parser is used by this provider only, it must not be shared with other providers as parsers are
+ * not thread-safe.
+ * </p>
+ */
+final class ParsedContentResourceProvider extends ResourceProvider<Object> {
+
+    private static final String SLING_RESOURCE_TYPE = "sling:resourceType";
+    private static final String SLING_RESOURCE_SUPER_TYPE = "sling:resourceSuperType";
+    private static final Set<String> PLACEHOLDER_NAMES = Set.of(":jcr:data", ":jcr:content");
+
+    private final @NotNull URL url;
+    private final @NotNull String rootPath;
+    private final @NotNull ContentParser contentParser;
+    private final @NotNull ParserOptions parserOptions;
+    private final @NotNull Set<String> ignoredNames;
+    private volatile Index index;
+
+    ParsedContentResourceProvider(
+            @NotNull URL url,
+            @NotNull String rootPath,
+            @NotNull ContentParser contentParser,
+            @NotNull ParserOptions parserOptions,
+            @NotNull Set<String> ignoredNames) {
+        this.url = url;
+        this.rootPath = rootPath;
+        this.contentParser = contentParser;
+        this.parserOptions = parserOptions;
+        this.ignoredNames = ignoredNames;
+    }
+
+    @Override
+    public @Nullable Resource getResource(
+            @NotNull ResolveContext<Object> ctx,
+            @NotNull String path,
+            @NotNull ResourceContext resourceContext,
+            @Nullable Resource parent) {
+        Map<String, Object> properties = getIndex().properties().get(path);
+        if (properties == null) {
+            return null;
+        }
+        return new ParsedContentResource(ctx.getResourceResolver(), path, properties);
+    }
+
+    @Override
+    public @Nullable Iterator<Resource> listChildren(@NotNull ResolveContext<Object> ctx, @NotNull Resource parent) {
+        Index currentIndex = getIndex();
+        List<String> childPaths = currentIndex.childPaths().get(parent.getPath());
+        if (childPaths == null) {
+            return null;
+        }
+        List<Resource> children = new ArrayList<>(childPaths.size());
+        for (String childPath : childPaths) {
+            children.add(new ParsedContentResource(
+                    ctx.getResourceResolver(),
+                    childPath,
+                    currentIndex.properties().get(childPath)));
+        }
+        return children.iterator();
+    }
+
+    private @NotNull Index getIndex() {
+        Index result = index;
+        if (result == null) {
+            synchronized (this) {
+                result = index;
+                if (result == null) {
+                    result = buildIndex();
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private @NotNull Index buildIndex() {
+        Map<String, Map<String, Object>> properties = new HashMap<>();
+        Map<String, List<String>> childPaths = new HashMap<>();
+        ContentHandler indexer = (path, resourceProperties) -> {
+            String fullPath = Strings.CS.equals(path, "/") ? rootPath : rootPath + path;
+            Map<String, Object> props = new LinkedHashMap<>();
+            if (resourceProperties != null) {
+                for (Map.Entry<String, Object> entry : resourceProperties.entrySet()) {
+                    if (!PLACEHOLDER_NAMES.contains(entry.getKey())) {
+                        props.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            properties.put(fullPath, Collections.unmodifiableMap(props));
+            if (!Strings.CS.equals(fullPath, rootPath)) {
+                childPaths
+                        .computeIfAbsent(ResourceUtil.getParent(fullPath), key -> new ArrayList<>())
+                        .add(fullPath);
+            }
+        };
+        try {
+            ParsedContentCache.parse(url, indexer, contentParser, parserOptions, ignoredNames, bytesRead -> {});
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to parse content: " + url, ex);
+        }
+        return new Index(properties, childPaths);
+    }
+
+    /**
+     * Properties and child paths of all resources, by absolute path.
+     */
+    private record Index(
+            @NotNull Map<String, Map<String, Object>> properties,
+            @NotNull Map<String, List<String>> childPaths) {}
+
+    /**
+     * Resource backed by the properties of the index, which are shared by all resources of this provider.
+     * The value map is a copy, so mutable values like calendars and arrays cannot be modified in the index.
+     * Resource type lookups read the index directly, as string values are immutable.
+     */
+    private static final class ParsedContentResource extends AbstractResource {
+
+        private final @NotNull ResourceResolver resourceResolver;
+        private final @NotNull String path;
+        private final @NotNull ValueMap properties;
+        private final @NotNull ResourceMetadata resourceMetadata = new ResourceMetadata();
+        private ValueMap valueMap;
+
+        ParsedContentResource(
+                @NotNull ResourceResolver resourceResolver,
+                @NotNull String path,
+                @NotNull Map<String, Object> properties) {
+            this.resourceResolver = resourceResolver;
+            this.path = path;
+            this.properties = new ValueMapDecorator(properties);
+            this.resourceMetadata.setResolutionPath(path);
+        }
+
+        @Override
+        public @NotNull String getPath() {
+            return path;
+        }
+
+        @Override
+        public @NotNull String getResourceType() {
+            String resourceType = properties.get(SLING_RESOURCE_TYPE, String.class);
+            if (resourceType == null) {
+                resourceType = properties.get(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED);
+            }
+            return resourceType;
+        }
+
+        @Override
+        public @Nullable String getResourceSuperType() {
+            return properties.get(SLING_RESOURCE_SUPER_TYPE, String.class);
+        }
+
+        @Override
+        public @NotNull ResourceMetadata getResourceMetadata() {
+            return resourceMetadata;
+        }
+
+        @Override
+        public @NotNull ResourceResolver getResourceResolver() {
+            return resourceResolver;
+        }
+
+        @Override
+        public synchronized @NotNull ValueMap getValueMap() {
+            if (valueMap == null) {
+                Map<String, Object> props = new LinkedHashMap<>();
+                for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                    props.put(entry.getKey(), SnapshotValues.copyValue(entry.getValue()));
+                }
+                valueMap = new ValueMapDecorator(Collections.unmodifiableMap(props));
+            }
+            return valueMap;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "null"})
+        public <AdapterType> @Nullable AdapterType adaptTo(@NotNull Class<AdapterType> type) {
+            if (type == ValueMap.class || type == Map.class) {
+                return (AdapterType) getValueMap();
+            }
+            return super.adaptTo(type);
+        }
+
+        @Override
+        public String toString() {
+            return "ParsedContentResource[path=" + path + "]";
+        }
+    }
+}
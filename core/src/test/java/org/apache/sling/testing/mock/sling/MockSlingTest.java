@@ -18,25 +18,53 @@
  */
 package org.apache.sling.testing.mock.sling;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
 import org.apache.sling.api.SlingJakartaHttpServletRequest;
 import org.apache.sling.api.SlingJakartaHttpServletResponse;
 import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.apache.sling.jcr.api.SlingRepository;
 import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.apache.sling.testing.mock.sling.internal.RepositorySnapshotSupport;
 import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletRequest;
 import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletResponse;
 import org.apache.sling.testing.mock.sling.spi.ResourceResolverTypeAdapter;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.osgi.framework.BundleContext;
 
 import static org.junit.Assert.*;
 
 public class MockSlingTest {
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private interface SnapshotSupportAdapter extends ResourceResolverTypeAdapter, RepositorySnapshotSupport {}
+
     private SlingRepository buildRepo(ResourceResolverTypeAdapter adapter) {
+        return buildRepo(adapter, NodeTypeMode.NOT_SUPPORTED);
+    }
+
+    private SlingRepository buildRepo(ResourceResolverTypeAdapter adapter, NodeTypeMode nodeTypeMode) {
+        BundleContext context = MockOsgi.newBundleContext();
+        MockSling.buildFactoryFromRepository(nodeTypeMode, context, adapter);
+        return context.getService(context.getServiceReference(SlingRepository.class));
+    }
+
+    private SlingRepository buildRepo(
+            ResourceResolverTypeAdapter adapter, SnapshotCache<MockSling.RepositorySnapshotKey, Object> snapshots) {
         BundleContext context = MockOsgi.newBundleContext();
-        MockSling.buildFactoryFromRepository(NodeTypeMode.NOT_SUPPORTED, context, adapter);
+        MockSling.buildFactoryFromRepository(NodeTypeMode.NOT_SUPPORTED, context, adapter, snapshots);
         return context.getService(context.getServiceReference(SlingRepository.class));
     }
 
@@ -95,6 +123,136 @@ public class MockSlingTest {
         assertSame(snapshotRepo, repo2);
     }
 
+    @Test
+    public void testSnapshotsPerNodeTypeMode() {
+        AtomicInteger snapshotCount = new AtomicInteger();
+        ResourceResolverTypeAdapter snapshotAwareAdapter = new SnapshotSupportAdapter() {
+            @Override
+            public @Nullable ResourceResolverFactory newResourceResolverFactory() {
+                return null;
+            }
+
+            @Override
+            public SlingRepository newSlingRepository() {
+                return new MockJcrSlingRepository();
+            }
+
+            @Override
+            public Object snapshot(SlingRepository repository) {
+                return "snapshot" + snapshotCount.incrementAndGet();
+            }
+
+            @Override
+            public SlingRepository newSlingRepositoryFromSnapshot(Object snapshot) {
+                return new MockJcrSlingRepository();
+            }
+
+            @Override
+            public long estimateSnapshotSize(@NotNull Object snapshot) {
+                return 1024L;
+            }
+        };
+
+        long hitCount = MockSling.repositorySnapshotCache().getHitCount();
+        buildRepo(snapshotAwareAdapter, NodeTypeMode.NOT_SUPPORTED);
+        buildRepo(snapshotAwareAdapter, NodeTypeMode.NAMESPACES_ONLY);
+        assertEquals(2, snapshotCount.get());
+
+        buildRepo(snapshotAwareAdapter, NodeTypeMode.NOT_SUPPORTED);
+        buildRepo(snapshotAwareAdapter, NodeTypeMode.NAMESPACES_ONLY);
+        assertEquals(2, snapshotCount.get());
+        assertTrue(MockSling.repositorySnapshotCache().getHitCount() >= hitCount + 2);
+    }
+
+    @Test
+    public void testSnapshotFiles() throws IOException {
+        AtomicInteger snapshotCount = new AtomicInteger();
+        ResourceResolverTypeAdapter snapshotFileAdapter = new SnapshotSupportAdapter() {
+            @Override
+            public @Nullable ResourceResolverFactory newResourceResolverFactory() {
+                return null;
+            }
+
+            @Override
+            public SlingRepository newSlingRepository() {
+                return new MockJcrSlingRepository();
+            }
+
+            @Override
+            public Object snapshot(SlingRepository repository) {
+                return "snapshot" + snapshotCount.incrementAndGet();
+            }
+
+            @Override
+            public SlingRepository newSlingRepositoryFromSnapshot(Object snapshot) {
+                return new MockJcrSlingRepository();
+            }
+
+            @Override
+            public boolean writeSnapshot(@NotNull Object snapshot, @NotNull Path file) throws IOException {
+                Files.writeString(file, snapshot.toString());
+                return true;
+            }
+
+            @Override
+            public @Nullable Object readSnapshot(@NotNull ByteBuffer data) {
+                return StandardCharsets.UTF_8.decode(data).toString();
+            }
+        };
+
+        String snapshotDir = tempFolder.getRoot().getAbsolutePath();
+        System.setProperty(RepositorySnapshotFiles.SYSTEM_PROPERTY_REPOSITORY_SNAPSHOT_DIR, snapshotDir);
+        try {
+            // use separate in-memory caches to simulate separate JVMs without touching the JVM-wide cache
+            SnapshotCache<MockSling.RepositorySnapshotKey, Object> jvm1Snapshots =
+                    new SnapshotCache<>("jvm1", Long.MAX_VALUE);
+            buildRepo(snapshotFileAdapter, jvm1Snapshots);
+            assertEquals(1, snapshotCount.get());
+            try (Stream<Path> files = Files.list(tempFolder.getRoot().toPath())) {
+                assertEquals(
+                        1,
+                        files.filter(file -> file.toString().endsWith(".snapshot"))
+                                .count());
+            }
+
+            SnapshotCache<MockSling.RepositorySnapshotKey, Object> jvm2Snapshots =
+                    new SnapshotCache<>("jvm2", Long.MAX_VALUE);
+            buildRepo(snapshotFileAdapter, jvm2Snapshots);
+            assertEquals(1, snapshotCount.get());
+            assertEquals(1, jvm2Snapshots.getCount());
+        } finally {
+            System.clearProperty(RepositorySnapshotFiles.SYSTEM_PROPERTY_REPOSITORY_SNAPSHOT_DIR);
+        }
+    }
+
+    @Test
+    public void testSnapshotFileNameIncludesLibraryVersion() {
+        String snapshotDir = tempFolder.getRoot().getAbsolutePath();
+        System.setProperty(RepositorySnapshotFiles.SYSTEM_PROPERTY_REPOSITORY_SNAPSHOT_DIR, snapshotDir);
+        try {
+            ResourceResolverTypeAdapter adapter1 = new MockJcrResourceResolverAdapter();
+            ResourceResolverTypeAdapter adapter2 = new ResourceResolverTypeAdapter() {
+                @Override
+                public @Nullable ResourceResolverFactory newResourceResolverFactory() {
+                    return null;
+                }
+
+                @Override
+                public SlingRepository newSlingRepository() {
+                    return new MockJcrSlingRepository();
+                }
+            };
+            assertNotEquals("unknown", RepositorySnapshotFiles.getLibraryVersion(adapter1.getClass()));
+            assertNotEquals(
+                    RepositorySnapshotFiles.getLibraryVersion(adapter1.getClass()),
+                    RepositorySnapshotFiles.getLibraryVersion(adapter2.getClass()));
+            assertNotEquals(
+                    RepositorySnapshotFiles.getFile(adapter1, "key"), RepositorySnapshotFiles.getFile(adapter2, "key"));
+        } finally {
+            System.clearProperty(RepositorySnapshotFiles.SYSTEM_PROPERTY_REPOSITORY_SNAPSHOT_DIR);
+        }
+    }
+
     /**
      * Test method for {@link org.apache.sling.testing.mock.sling.MockSling#newSlingScriptHelper(org.apache.sling.api.SlingHttpServletRequest, org.apache.sling.api.SlingHttpServletResponse, org.osgi.framework.BundleContext)}.
      * @deprecated use {@link #testNewSlingScriptHelperSlingJakartaHttpServletRequestSlingJakartaHttpServletResponseBundleContext() instead
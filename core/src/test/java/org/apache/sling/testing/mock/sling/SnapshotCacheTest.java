@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SnapshotCacheTest {
+
+    private final SnapshotCache<String, String> underTest = new SnapshotCache<>("test", 100);
+
+    @Test
+    public void testGetPut() {
+        assertNull(underTest.get("key1"));
+        underTest.put("key1", "value1", 10);
+        assertEquals("value1", underTest.get("key1"));
+        assertEquals(10, underTest.getSize());
+        assertEquals(1, underTest.getHitCount());
+        assertEquals(1, underTest.getMissCount());
+        assertEquals(0.5d, underTest.getHitRate(), 0.0001d);
+    }
+
+    @Test
+    public void testReplace() {
+        underTest.put("key1", "value1", 10);
+        underTest.put("key1", "value2", 20);
+        assertEquals("value2", underTest.get("key1"));
+        assertEquals(20, underTest.getSize());
+        assertEquals(1, underTest.getCount());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        underTest.put("key1", "value1", 40);
+        underTest.put("key2", "value2", 40);
+        underTest.get("key1");
+        underTest.put("key3", "value3", 40);
+
+        assertEquals("value1", underTest.get("key1"));
+        assertNull(underTest.get("key2"));
+        assertEquals("value3", underTest.get("key3"));
+        assertEquals(80, underTest.getSize());
+        assertEquals(1, underTest.getEvictionCount());
+    }
+
+    @Test
+    public void testKeepNewestExceedingMaxSize() {
+        underTest.put("key1", "value1", 40);
+        underTest.put("key2", "value2", 200);
+
+        assertNull(underTest.get("key1"));
+        assertEquals("value2", underTest.get("key2"));
+        assertEquals(200, underTest.getSize());
+    }
+
+    @Test
+    public void testSetMaxSize() {
+        underTest.put("key1", "value1", 40);
+        underTest.put("key2", "value2", 40);
+        underTest.setMaxSize(50);
+
+        assertNull(underTest.get("key1"));
+        assertEquals("value2", underTest.get("key2"));
+    }
+
+    @Test
+    public void testClear() {
+        underTest.put("key1", "value1", 40);
+        underTest.get("key1");
+        underTest.clear();
+
+        assertEquals(0, underTest.getCount());
+        assertEquals(0, underTest.getSize());
+        assertEquals(0, underTest.getHitCount());
+    }
+}
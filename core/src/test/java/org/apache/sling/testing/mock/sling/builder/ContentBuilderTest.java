@@ -18,8 +18,11 @@
  */
 package org.apache.sling.testing.mock.sling.builder;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.collections4.IterableUtils;
 import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
@@ -32,7 +35,9 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyMap;
@@ -127,4 +132,96 @@ public class ContentBuilderTest {
         ContentBuilder create = new ContentBuilder(mockRR);
         assertThrows(RuntimeException.class, () -> create.ensureResourceExists("/content/node1"));
     }
+
+    @Test
+    public void testDeferCommit() {
+        ContentBuilder create = new ContentBuilder(context.resourceResolver(), true);
+        assertTrue(create.isDeferCommit());
+        create.resource("/content/deferred/level1/resource1", "prop1", "value1");
+        create.resource("/content/deferred/level1/resource2", "prop1", "value2");
+        assertTrue(context.resourceResolver().hasChanges());
+        assertNotNull(context.resourceResolver().getResource("/content/deferred/level1/resource2"));
+
+        create.commit();
+        assertFalse(context.resourceResolver().hasChanges());
+        assertEquals(
+                "value1",
+                context.resourceResolver()
+                        .getResource("/content/deferred/level1/resource1")
+                        .getValueMap()
+                        .get("prop1", String.class));
+    }
+
+    @Test
+    public void testDeferCommitResolvesParentsOnce() throws PersistenceException {
+        ResourceResolver mockRR = Mockito.mock(ResourceResolver.class);
+        Mockito.when(mockRR.getResource("/")).thenReturn(Mockito.mock(Resource.class));
+        Mockito.when(mockRR.create(nullable(Resource.class), anyString(), anyMap()))
+                .thenAnswer(invocation -> Mockito.mock(Resource.class));
+        ContentBuilder create = new ContentBuilder(mockRR, true);
+        create.resource("/content/level1/level2/resource1");
+        create.resource("/content/level1/level2/resource2");
+        create.resource("/content/level1/level2/resource1/child1");
+
+        Mockito.verify(mockRR, Mockito.never()).commit();
+        Mockito.verify(mockRR, Mockito.times(1)).getResource("/content/level1/level2");
+        Mockito.verify(mockRR, Mockito.never()).getResource("/content/level1/level2/resource1");
+
+        create.commit();
+        Mockito.verify(mockRR, Mockito.times(1)).commit();
+    }
+
+    @Test
+    public void testResources() {
+        Map<String, Map<String, Object>> resources = new LinkedHashMap<>();
+        resources.put("/content/bulk/parent1/child2", Map.of("prop1", "value12"));
+        resources.put("/content/bulk/parent1", Map.of("prop1", "value1"));
+        resources.put("/content/bulk/parent1/child1", Map.of("prop1", "value11"));
+        resources.put("/content/bulk/parent2/child1", Map.of());
+        context.create().resources(resources);
+
+        assertFalse(context.resourceResolver().hasChanges());
+        Resource parent1 = context.resourceResolver().getResource("/content/bulk/parent1");
+        assertNotNull(parent1);
+        assertEquals("value1", parent1.getValueMap().get("prop1", String.class));
+        assertEquals(
+                List.of("child2", "child1"),
+                IterableUtils.toList(parent1.getChildren()).stream()
+                        .map(Resource::getName)
+                        .toList());
+        assertEquals(
+                "value11",
+                ResourceUtil.getValueMap(context.resourceResolver().getResource("/content/bulk/parent1/child1"))
+                        .get("prop1", String.class));
+        assertNotNull(context.resourceResolver().getResource("/content/bulk/parent2/child1"));
+    }
+
+    @Test
+    public void testResourcesWithChildMap() {
+        ContentBuilder create = context.create();
+        Map<String, Map<String, Object>> resources =
+                Map.of("/content/bulk/parent1", Map.of("child1", Map.of("prop1", "value1")));
+        assertThrows(IllegalArgumentException.class, () -> create.resources(resources));
+        assertNull(context.resourceResolver().getResource("/content/bulk"));
+    }
+
+    @Test
+    public void testResourcesCommitsOnce() throws PersistenceException {
+        ResourceResolver mockRR = Mockito.mock(ResourceResolver.class);
+        Mockito.when(mockRR.getResource("/")).thenReturn(Mockito.mock(Resource.class));
+        Mockito.when(mockRR.create(nullable(Resource.class), anyString(), anyMap()))
+                .thenAnswer(invocation -> Mockito.mock(Resource.class));
+        ContentBuilder create = new ContentBuilder(mockRR);
+        create.resources(Map.of("/content/level1/level2/resource1", Map.of()));
+
+        Mockito.verify(mockRR, Mockito.times(4)).create(nullable(Resource.class), anyString(), anyMap());
+        Mockito.verify(mockRR, Mockito.times(1)).commit();
+    }
+
+    @Test
+    public void testResourcesWithInvalidPath() {
+        ContentBuilder create = context.create();
+        Map<String, Map<String, Object>> resources = Map.of("/", Map.of());
+        assertThrows(IllegalArgumentException.class, () -> create.resources(resources));
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.builder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Calendar;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.builder.ContentGenerator.PropertyType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("null")
+public class ContentGeneratorTest {
+
+    @Rule
+    public SlingContext context = new SlingContext(ResourceResolverType.RESOURCERESOLVER_MOCK);
+
+    @Test
+    public void testGenerate() {
+        long count = context.create()
+                .generator()
+                .depth(2)
+                .fanOut(3)
+                .propertyCount(2)
+                .commitInterval(5)
+                .generate("/content/generated");
+        assertEquals(12, count);
+
+        assertNotNull(context.resourceResolver().getResource("/content/generated/item-2/item-2"));
+        assertNull(context.resourceResolver().getResource("/content/generated/item-3"));
+        assertNull(context.resourceResolver().getResource("/content/generated/item-0/item-0/item-0"));
+
+        ValueMap props = context.resourceResolver()
+                .getResource("/content/generated/item-1/item-0")
+                .getValueMap();
+        assertEquals("nt:unstructured", props.get("jcr:primaryType", String.class));
+        assertEquals(16, props.get("prop0", String.class).length());
+        assertTrue(props.get("prop1") instanceof Long);
+        assertNull(props.get("prop2"));
+        assertNull(props.get("binary"));
+    }
+
+    @Test
+    public void testPropertyTypes() {
+        context.create()
+                .generator()
+                .depth(1)
+                .fanOut(1)
+                .propertyCount(3)
+                .propertyTypes(PropertyType.CALENDAR, PropertyType.BOOLEAN)
+                .generate("/content/generated");
+
+        ValueMap props = context.resourceResolver()
+                .getResource("/content/generated/item-0")
+                .getValueMap();
+        assertTrue(props.get("prop0") instanceof Calendar);
+        assertTrue(props.get("prop1") instanceof Boolean);
+        assertTrue(props.get("prop2") instanceof Calendar);
+    }
+
+    @Test
+    public void testDeterministic() throws IOException {
+        ContentGenerator generator =
+                context.create().generator().seed(42).depth(2).fanOut(2).binarySize(100);
+        generator.generate("/content/run1");
+        generator.generate("/content/run2");
+        context.create().generator().seed(43).depth(1).fanOut(2).generate("/content/run3");
+
+        ValueMap props1 = context.resourceResolver()
+                .getResource("/content/run1/item-1/item-0")
+                .getValueMap();
+        ValueMap props2 = context.resourceResolver()
+                .getResource("/content/run2/item-1/item-0")
+                .getValueMap();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(props1.get("prop" + i), props2.get("prop" + i));
+        }
+
+        byte[] binary1 = readBinary(context.resourceResolver().getResource("/content/run1/item-1/item-0"));
+        byte[] binary2 = readBinary(context.resourceResolver().getResource("/content/run2/item-1/item-0"));
+        assertEquals(100, binary1.length);
+        assertArrayEquals(binary1, binary2);
+
+        ValueMap props3 =
+                context.resourceResolver().getResource("/content/run3/item-0").getValueMap();
+        ValueMap props4 =
+                context.resourceResolver().getResource("/content/run1/item-0").getValueMap();
+        assertNotEquals(props4.get("prop0"), props3.get("prop0"));
+    }
+
+    @Test
+    public void testInvalidSettings() {
+        ContentGenerator generator = context.create().generator();
+        assertThrows(IllegalArgumentException.class, () -> generator.depth(-1));
+        assertThrows(IllegalArgumentException.class, () -> generator.propertyTypes());
+    }
+
+    private static byte[] readBinary(Resource resource) throws IOException {
+        try (InputStream is = resource.getValueMap().get("binary", InputStream.class)) {
+            return is.readAllBytes();
+        }
+    }
+}
@@ -18,6 +18,8 @@
  */
 package org.apache.sling.testing.mock.sling.builder;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.sling.api.resource.ValueMap;
@@ -30,6 +32,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class ImmutableValueMapTest {
@@ -191,6 +195,90 @@ public class ImmutableValueMapTest {
         assertNotEquals(map1, new Object());
     }
 
+    @Test
+    public void testInsertionOrder() {
+        ValueMap map = ImmutableValueMap.of("p3", "v3", "p1", "v1", "p2", "v2");
+        assertEquals(List.of("p3", "p1", "p2"), List.copyOf(map.keySet()));
+        assertEquals(List.of("v3", "v1", "v2"), List.copyOf(map.values()));
+    }
+
+    @Test
+    public void testDuplicateKeys() {
+        ValueMap map = ImmutableValueMap.of("p1", "v1", "p2", "v2", "p1", "v3");
+        assertEquals(2, map.size());
+        assertEquals("v3", map.get("p1"));
+        assertEquals(List.of("p1", "p2"), List.copyOf(map.keySet()));
+    }
+
+    @Test
+    public void testBuilderLarge() {
+        ImmutableValueMap.Builder builder = ImmutableValueMap.builder();
+        Map<String, Object> expected = new HashMap<>();
+        for (int i = 0; i <= ImmutableValueMap.MAX_COMPACT_SIZE; i++) {
+            builder.put("p" + i, i);
+            expected.put("p" + i, i);
+        }
+        ValueMap map = builder.build();
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals((Integer) 3, map.get("p3", Integer.class));
+    }
+
+    @Test
+    public void testCopyOfImmutableValueMap() {
+        ImmutableValueMap map = ImmutableValueMap.of("p1", "v1");
+        assertSame(map, ImmutableValueMap.copyOf(map));
+        assertSame(ImmutableValueMap.of(), ImmutableValueMap.copyOf(Map.of()));
+    }
+
+    @Test
+    public void testCopyOfCopiesEntries() {
+        Map<String, Object> largeMap = new HashMap<>();
+        for (int i = 0; i <= ImmutableValueMap.MAX_COMPACT_SIZE; i++) {
+            largeMap.put("p" + i, i);
+        }
+        for (Map<String, Object> source : List.of(new HashMap<>(SAMPLE_PROPS), largeMap)) {
+            Map<String, Object> expected = new HashMap<>(source);
+            ValueMap map = ImmutableValueMap.copyOf(source);
+            source.put("newProp", "newValue");
+            assertEquals(expected, map);
+        }
+    }
+
+    @Test
+    public void testCopyOfWrapsValueMap() {
+        ValueMap source = new ValueMapDecorator(new HashMap<>(SAMPLE_PROPS));
+        ValueMap map = ImmutableValueMap.copyOf(source);
+        source.put("newProp", "newValue");
+        assertEquals("newValue", map.get("newProp"));
+    }
+
+    @Test
+    public void testBuilderLargeNotChangedByBuilder() {
+        ImmutableValueMap.Builder builder = ImmutableValueMap.builder();
+        for (int i = 0; i <= ImmutableValueMap.MAX_COMPACT_SIZE; i++) {
+            builder.put("p" + i, i);
+        }
+        ValueMap map = builder.build();
+        builder.put("newProp", "newValue");
+        assertFalse(map.containsKey("newProp"));
+    }
+
+    @Test
+    public void testCompactMapAccess() {
+        assertEquals(SAMPLE_PROPS, underTest);
+        assertEquals(SAMPLE_PROPS.hashCode(), underTest.hashCode());
+        assertEquals(SAMPLE_PROPS.entrySet(), underTest.entrySet());
+        assertFalse(underTest.containsKey("prop3"));
+        assertFalse(underTest.containsValue("value3"));
+        assertNull(underTest.get("prop3"));
+        assertEquals("55", underTest.get("prop2", String.class));
+        assertEquals("value1", underTest.get("prop1", String.class));
+        assertEquals((Integer) 55, underTest.get("prop2", 0));
+        assertEquals("default", underTest.get("prop3", "default"));
+        assertNull(underTest.get("prop3", String.class));
+    }
+
     /**
      * Test method for {@link org.apache.sling.testing.mock.sling.builder.ImmutableValueMap#hashCode()}.
      */
@@ -18,10 +18,15 @@
  */
 package org.apache.sling.testing.mock.sling.context;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Set;
 
+import org.apache.sling.api.resource.ModifiableValueMap;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.api.scripting.SlingBindings;
 import org.apache.sling.settings.SlingSettingsService;
 import org.apache.sling.testing.mock.sling.MockSling;
@@ -37,7 +42,9 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
@@ -119,6 +126,48 @@ public abstract class AbstractSlingContextImplTest {
         context.currentResource("/non/existing");
     }
 
+    @Test
+    public void testSnapshotRestore() throws Exception {
+        String snapshotName = getClass().getName() + "#testSnapshotRestore";
+        context.create().resource("/content/snapshot", "prop1", "value1", "prop2", new String[] {"a", "b"});
+        context.create()
+                .resource(
+                        "/content/snapshot/binary",
+                        "data",
+                        new ByteArrayInputStream("binary".getBytes(StandardCharsets.UTF_8)));
+        context.snapshot(snapshotName);
+        assertTrue(SlingContextImpl.snapshotCache().getSize() > 0);
+
+        context.resourceResolver().delete(context.resourceResolver().getResource("/content/sample/en"));
+        context.resourceResolver().delete(context.resourceResolver().getResource("/content/snapshot/binary"));
+        context.resourceResolver()
+                .getResource("/content/snapshot")
+                .adaptTo(ModifiableValueMap.class)
+                .put("prop1", "changed");
+        context.create().resource("/content/other");
+        context.resourceResolver().commit();
+
+        assertTrue(context.restore(snapshotName));
+        assertNotNull(context.resourceResolver().getResource("/content/sample/en/jcr:content/par/colctrl"));
+        assertNull(context.resourceResolver().getResource("/content/other"));
+        ValueMap props =
+                context.resourceResolver().getResource("/content/snapshot").getValueMap();
+        assertEquals("value1", props.get("prop1", String.class));
+        assertArrayEquals(new String[] {"a", "b"}, props.get("prop2", String[].class));
+        try (InputStream is = context.resourceResolver()
+                .getResource("/content/snapshot/binary")
+                .getValueMap()
+                .get("data", InputStream.class)) {
+            assertEquals("binary", new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testRestoreUnknownSnapshot() {
+        assertFalse(context.restore(getClass().getName() + "#unknown"));
+        assertNotNull(context.resourceResolver().getResource("/content/sample/en"));
+    }
+
     @Test
     public void testSlingModelsRequestAttribute() {
         context.jakartaRequest().setAttribute("prop1", "myValue");
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.context;
+
+import java.io.StringReader;
+import java.time.Duration;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import org.apache.sling.testing.mock.sling.ContextProfile;
+import org.apache.sling.testing.mock.sling.ContextProfile.Phase;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ContextProfileTest {
+
+    @Rule
+    public SlingContext context = new SlingContext(ResourceResolverType.RESOURCERESOLVER_MOCK);
+
+    @Test
+    public void testSetUpPhases() {
+        ContextProfile profile = context.profile();
+        assertTrue(profile.getDurations().containsKey(Phase.SET_UP));
+        assertTrue(profile.getDurations().containsKey(Phase.RESOURCE_RESOLVER_TYPE_ADAPTER));
+        assertTrue(profile.getDurations().containsKey(Phase.REGISTER_DEFAULT_SERVICES));
+        assertFalse(profile.getDurations().containsKey(Phase.TEAR_DOWN));
+        assertFalse(profile.getDurations().containsKey(Phase.REGISTER_JCR_NODE_TYPES));
+        assertEquals(Duration.ZERO, profile.getDuration(Phase.TEAR_DOWN));
+
+        // profile is only bound to the thread during setup and teardown
+        assertNull(ContextProfile.current());
+    }
+
+    @Test
+    public void testAddAndReset() {
+        ContextProfile profile = new ContextProfile();
+        profile.add(Phase.SET_UP, 1000);
+        profile.add(Phase.SET_UP, 500);
+        assertEquals(Duration.ofNanos(1500), profile.getDuration(Phase.SET_UP));
+
+        profile.reset();
+        assertTrue(profile.getDurations().isEmpty());
+    }
+
+    @Test
+    public void testRecord() {
+        ContextProfile profile = new ContextProfile();
+
+        // no profile bound
+        ContextProfile.record(Phase.SET_UP, System.nanoTime());
+
+        profile.bindToCurrentThread();
+        try {
+            ContextProfile.record(Phase.TEAR_DOWN, System.nanoTime());
+        } finally {
+            ContextProfile.unbindFromCurrentThread();
+        }
+
+        assertFalse(profile.getDurations().containsKey(Phase.SET_UP));
+        assertTrue(profile.getDurations().containsKey(Phase.TEAR_DOWN));
+    }
+
+    @Test
+    public void testToJson() {
+        ContextProfile profile = new ContextProfile();
+        profile.add(Phase.SET_UP, 2500000);
+
+        String json = ContextProfileWriter.toJson(profile, "MyTest#test1", ResourceResolverType.JCR_MOCK);
+        try (JsonReader reader = Json.createReader(new StringReader(json))) {
+            JsonObject object = reader.readObject();
+            assertEquals("MyTest#test1", object.getString("test"));
+            assertEquals("JCR_MOCK", object.getString("resourceResolverType"));
+            assertEquals(
+                    2.5d,
+                    object.getJsonObject("phasesMs").getJsonNumber("SET_UP").doubleValue(),
+                    0.0001d);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.context;
+
+import org.apache.sling.api.adapter.AdapterFactory;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.commons.mime.MimeTypeService;
+import org.apache.sling.featureflags.Features;
+import org.apache.sling.i18n.ResourceBundleProvider;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.apache.sling.testing.mock.sling.junit.SlingContextBuilder;
+import org.apache.sling.xss.XSSAPI;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DefaultServicesProfileTest {
+
+    @Test
+    public void testResourcesOnly() {
+        SlingContext context = new SlingContextBuilder(ResourceResolverType.RESOURCERESOLVER_MOCK)
+                .defaultServices(DefaultServicesProfile.RESOURCES_ONLY)
+                .build();
+        context.setUp();
+        try {
+            assertNotNull(context.getService(MimeTypeService.class));
+            assertNull(context.getService(AdapterFactory.class));
+            assertNull(context.getService(XSSAPI.class));
+            assertNull(context.getService(ResourceBundleProvider.class));
+            assertNull(context.getService(Features.class));
+
+            context.create().resource("/content/resource1", ValueMap.EMPTY);
+            assertNotNull(context.resourceResolver().getResource("/content/resource1"));
+        } finally {
+            context.tearDown();
+        }
+    }
+
+    @Test
+    public void testModels() {
+        SlingContext context = new SlingContextBuilder(ResourceResolverType.RESOURCERESOLVER_MOCK)
+                .defaultServices(DefaultServicesProfile.MODELS)
+                .build();
+        context.setUp();
+        try {
+            assertNotNull(context.getService(AdapterFactory.class));
+            assertNull(context.getService(XSSAPI.class));
+            assertTrue(context.isDefaultServiceGroupEnabled(DefaultServiceGroup.SLING_MODELS));
+            assertFalse(context.isDefaultServiceGroupEnabled(DefaultServiceGroup.XSS));
+        } finally {
+            context.tearDown();
+        }
+    }
+
+    @Test
+    public void testDisableDefaultServices() {
+        SlingContext context = new SlingContextBuilder(ResourceResolverType.RESOURCERESOLVER_MOCK)
+                .disableDefaultServices(DefaultServiceGroup.XSS, DefaultServiceGroup.FEATURE_FLAGS)
+                .build();
+        context.setUp();
+        try {
+            assertNotNull(context.getService(AdapterFactory.class));
+            assertNotNull(context.getService(ResourceBundleProvider.class));
+            assertNull(context.getService(XSSAPI.class));
+            assertNull(context.getService(Features.class));
+        } finally {
+            context.tearDown();
+        }
+    }
+}
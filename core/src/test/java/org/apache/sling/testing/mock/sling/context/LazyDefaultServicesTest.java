@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.context;
+
+import java.util.Locale;
+
+import org.apache.sling.commons.mime.MimeTypeService;
+import org.apache.sling.i18n.ResourceBundleProvider;
+import org.apache.sling.resourcebuilder.api.ResourceBuilderFactory;
+import org.apache.sling.testing.mock.sling.MockResourceBundleProvider;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.apache.sling.testing.mock.sling.junit.SlingContextBuilder;
+import org.apache.sling.xss.XSSAPI;
+import org.junit.Rule;
+import org.junit.Test;
+import org.osgi.framework.ServiceReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+public class LazyDefaultServicesTest {
+
+    @Rule
+    public SlingContext context = new SlingContextBuilder(ResourceResolverType.RESOURCERESOLVER_MOCK)
+            .lazyDefaultServices(true)
+            .build();
+
+    @Test
+    public void testMimeTypeService() {
+        MimeTypeService mimeTypeService = context.getService(MimeTypeService.class);
+        assertNotNull(mimeTypeService);
+        assertEquals("text/html", mimeTypeService.getMimeType("html"));
+        assertSame(mimeTypeService, context.getService(MimeTypeService.class));
+    }
+
+    @Test
+    public void testXssApi() {
+        XSSAPI xssApi = context.getService(XSSAPI.class);
+        assertNotNull(xssApi);
+        assertEquals("a&lt;b", xssApi.encodeForHTML("a<b"));
+    }
+
+    @Test
+    public void testResourceBundleProvider() {
+        ResourceBundleProvider provider = context.getService(ResourceBundleProvider.class);
+        assertNotNull(provider);
+        assertNotNull(provider.getResourceBundle(Locale.ENGLISH));
+    }
+
+    @Test
+    public void testResourceBuilder() {
+        assertNotNull(context.getService(ResourceBuilderFactory.class));
+        context.build().resource("/content/lazy").commit();
+        assertNotNull(context.resourceResolver().getResource("/content/lazy"));
+    }
+
+    @Test
+    public void testComponentProperties() {
+        ServiceReference<ResourceBundleProvider> reference =
+                context.bundleContext().getServiceReference(ResourceBundleProvider.class);
+        assertNotNull(reference);
+        assertEquals(MockResourceBundleProvider.class.getName(), reference.getProperty("component.name"));
+    }
+}
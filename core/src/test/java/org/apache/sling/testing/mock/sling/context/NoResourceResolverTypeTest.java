@@ -29,6 +29,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -49,4 +50,10 @@ public class NoResourceResolverTypeTest {
         Resource root = context.resourceResolver().getResource("/");
         assertTrue(root instanceof SyntheticResource);
     }
+
+    @Test
+    public void testSnapshotNotSupported() {
+        assertThrows(IllegalStateException.class, () -> context.snapshot("snapshot1"));
+        assertThrows(IllegalStateException.class, () -> context.restore("snapshot1"));
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.context;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.commons.mime.MimeTypeService;
+import org.apache.sling.models.factory.ModelFactory;
+import org.apache.sling.resourcebuilder.api.ResourceBuilderFactory;
+import org.apache.sling.settings.SlingSettingsService;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.apache.sling.testing.mock.sling.junit.SlingContextBuilder;
+import org.apache.sling.xss.XSSAPI;
+import org.apache.sling.xss.XSSFilter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelSetUpTest {
+
+    @Rule
+    public SlingContext context = new SlingContextBuilder(ResourceResolverType.JCR_MOCK)
+            .parallelSetUp(true)
+            .build();
+
+    @Test
+    public void testDefaultServices() {
+        MimeTypeService mimeTypeService = context.getService(MimeTypeService.class);
+        assertNotNull(mimeTypeService);
+        assertEquals("text/html", mimeTypeService.getMimeType("html"));
+        assertNotNull(context.getService(ModelFactory.class));
+        assertEquals("a&lt;b", context.getService(XSSAPI.class).encodeForHTML("a<b"));
+    }
+
+    @Test
+    public void testResources() {
+        context.create().resource("/content/parallel", ValueMap.EMPTY);
+        assertNotNull(context.resourceResolver().getResource("/content/parallel"));
+    }
+
+    @Test
+    public void testRegistrationOrder() {
+        long previousServiceId = 0;
+        for (Class<?> serviceClass : new Class<?>[] {
+            ModelFactory.class,
+            SlingSettingsService.class,
+            MimeTypeService.class,
+            ResourceBuilderFactory.class,
+            XSSFilter.class,
+            XSSAPI.class
+        }) {
+            ServiceReference<?> reference = context.bundleContext().getServiceReference(serviceClass);
+            assertNotNull(serviceClass.getName(), reference);
+            long serviceId = (Long) reference.getProperty(Constants.SERVICE_ID);
+            assertTrue(serviceClass.getName() + " registered out of order", serviceId > previousServiceId);
+            previousServiceId = serviceId;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.context;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.settings.SlingSettingsService;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.apache.sling.testing.mock.sling.junit.SlingContextBuilder;
+import org.apache.sling.testing.mock.sling.junit.SlingContextCallback;
+import org.junit.AfterClass;
+import org.junit.ClassRule;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.osgi.framework.BundleContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class PooledSlingContextTest {
+
+    private static final AtomicInteger afterSetUpCount = new AtomicInteger();
+
+    @ClassRule
+    @Rule
+    public static SlingContext context = new SlingContextBuilder(ResourceResolverType.RESOURCERESOLVER_MOCK)
+            .pooled(true)
+            .afterSetUp((SlingContextCallback) ctx -> {
+                afterSetUpCount.incrementAndGet();
+                // service registered by a plugin is part of the baseline
+                ctx.registerService(Comparable.class, "plugin");
+                ctx.create().resource("/content/plugin", ValueMap.EMPTY);
+            })
+            .build();
+
+    private static BundleContext bundleContext;
+
+    @AfterClass
+    public static void assertContextKeptUntilClassRule() {
+        // class rule tears down the context after @AfterClass methods
+        assertTrue(context.isPooledContextSetUp());
+    }
+
+    @Test
+    public void test1_ModifyContext() {
+        bundleContext = context.bundleContext();
+
+        context.create().resource("/content/pooled", ValueMap.EMPTY);
+        context.create().resource("/var/pooled", ValueMap.EMPTY);
+        context.request().setAttribute("attr1", "value1");
+        context.runMode("author");
+
+        assertNotNull(context.resourceResolver().getResource("/content/pooled"));
+        assertTrue(context.getService(SlingSettingsService.class).getRunModes().contains("author"));
+    }
+
+    @Test
+    public void test2_ContextIsReset() {
+        assertSame(bundleContext, context.bundleContext());
+        assertEquals(1, afterSetUpCount.get());
+        assertNotNull(context.resourceResolver().getResource("/content/plugin"));
+        assertEquals("plugin", context.getService(Comparable.class));
+
+        assertNull(context.resourceResolver().getResource("/content/pooled"));
+        assertNull(context.resourceResolver().getResource("/var/pooled"));
+        assertNull(context.request().getAttribute("attr1"));
+        assertFalse(context.getService(SlingSettingsService.class).getRunModes().contains("author"));
+    }
+
+    @Test
+    public void test3_RegisterService() {
+        assertSame(bundleContext, context.bundleContext());
+
+        context.registerService(Runnable.class, () -> {});
+        assertNotNull(context.getService(Runnable.class));
+    }
+
+    @Test
+    public void test4_ContextIsRebuiltAfterServiceRegistration() {
+        assertNotSame(bundleContext, context.bundleContext());
+
+        assertNull(context.getService(Runnable.class));
+        assertEquals(2, afterSetUpCount.get());
+        assertEquals(
+                SlingContextImpl.DEFAULT_RUN_MODES,
+                context.getService(SlingSettingsService.class).getRunModes());
+    }
+}
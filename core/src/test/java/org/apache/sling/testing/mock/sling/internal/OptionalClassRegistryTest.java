@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.internal;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class OptionalClassRegistryTest {
+
+    private static final String MISSING_CLASS_NAME = "org.apache.sling.testing.mock.sling.NonExistingClass";
+
+    private final OptionalClassRegistry underTest = OptionalClassRegistry.get();
+
+    @Test
+    public void testExistingClass() {
+        assertSame(ArrayList.class, underTest.getClass(ArrayList.class.getName()));
+
+        Object instance1 = underTest.newInstance(ArrayList.class.getName());
+        Object instance2 = underTest.newInstance(ArrayList.class.getName());
+        assertTrue(instance1 instanceof ArrayList);
+        assertNotSame(instance1, instance2);
+        assertFalse(underTest.getSkippedClassNames().contains(ArrayList.class.getName()));
+    }
+
+    @Test
+    public void testInterfaceWithoutConstructor() {
+        assertSame(Runnable.class, underTest.getClass(Runnable.class.getName()));
+        assertNull(underTest.newInstance(Runnable.class.getName()));
+        assertTrue(underTest.getSkippedClassNames().contains(Runnable.class.getName()));
+    }
+
+    @Test
+    public void testMissingClass() {
+        assertNull(underTest.getClass(MISSING_CLASS_NAME));
+        assertNull(underTest.newInstance(MISSING_CLASS_NAME));
+        assertTrue(underTest.getSkippedClassNames().contains(MISSING_CLASS_NAME));
+    }
+
+    @Test
+    public void testGet() {
+        assertNotNull(OptionalClassRegistry.get());
+        assertEquals(underTest, OptionalClassRegistry.get());
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotValuesTest {
+
+    @Test
+    public void testCopyPrimitiveArray() {
+        long[] value = new long[] {1L, 2L};
+        long[] copy = (long[]) SnapshotValues.copyValue(value);
+        assertNotSame(value, copy);
+        assertArrayEquals(value, copy);
+    }
+
+    @Test
+    public void testCopyBinary() throws Exception {
+        byte[] data = "binary".getBytes(StandardCharsets.UTF_8);
+        Object copy = SnapshotValues.copyValue(new ByteArrayInputStream(data));
+        assertArrayEquals(data, (byte[]) copy);
+
+        try (InputStream is = (InputStream) SnapshotValues.toWritableValue(copy)) {
+            assertArrayEquals(data, is.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testIsProtectedProperty() {
+        assertTrue(SnapshotValues.isProtectedProperty("jcr:created"));
+        assertFalse(SnapshotValues.isProtectedProperty("jcr:title"));
+    }
+}
@@ -50,6 +50,7 @@ public final class SlingContext extends SlingContextImpl implements TestRule {
 
     private final ContextPlugins plugins;
     private final TestRule delegate;
+    private boolean classRule;
 
     /**
      * Initialize Sling context with default resource resolver type:
@@ -131,6 +132,22 @@ public final class SlingContext extends SlingContextImpl implements TestRule {
         this(contextPlugins, resourceResolverFactoryActivatorProps, resourceResolverType, true);
     }
 
+    /**
+     * Initialize Sling context with the settings of the given builder.
+     * @param builder Sling context builder
+     */
+    SlingContext(@NotNull final SlingContextBuilder builder) {
+        this(
+                builder.plugins,
+                builder.resourceResolverFactoryActivatorProps,
+                builder.resourceResolverType,
+                builder.registerSlingModelsFromClassPath);
+        setPooled(builder.pooled);
+        setLazyDefaultServices(builder.lazyDefaultServices);
+        setDefaultServiceGroups(builder.defaultServiceGroups);
+        setParallelSetUp(builder.parallelSetUp);
+    }
+
     /**
      * Initialize Sling context with resource resolver type.
      * @param contextPlugins Context plugins
@@ -155,22 +172,58 @@ public final class SlingContext extends SlingContextImpl implements TestRule {
         this.delegate = new ExternalResource() {
             @Override
             protected void before() {
+                if (SlingContext.this.reusePooledContext()) {
+                    // setup callbacks were already executed when the pooled context was set up
+                    return;
+                }
                 plugins.executeBeforeSetUpCallback(SlingContext.this);
                 SlingContext.this.setUp();
                 plugins.executeAfterSetUpCallback(SlingContext.this);
+                SlingContext.this.initPooledContext();
             }
 
             @Override
             protected void after() {
-                plugins.executeBeforeTearDownCallback(SlingContext.this);
-                SlingContext.this.tearDown();
-                plugins.executeAfterTearDownCallback(SlingContext.this);
+                // without class rule a pooled context would never be torn down after the last test
+                if (!SlingContext.this.classRule || !SlingContext.this.resetPooledContext()) {
+                    tearDownWithCallbacks();
+                }
             }
         };
     }
 
+    private void tearDownWithCallbacks() {
+        plugins.executeBeforeTearDownCallback(this);
+        tearDown();
+        plugins.executeAfterTearDownCallback(this);
+    }
+
+    /**
+     * Applies the rule. If the rule is used as class rule as well (a static field annotated with both
+     * <code>@Rule</code> and <code>@ClassRule</code>), a pooled context is torn down after the last test
+     * of the class. Otherwise a pooled context is torn down after each test like a non-pooled one.
+     */
     @Override
     public Statement apply(final Statement base, final Description description) {
+        if (description.isSuite()) {
+            this.classRule = true;
+            return new Statement() {
+                @Override
+                public void evaluate() throws Throwable {
+                    try {
+                        base.evaluate();
+                    } finally {
+                        if (isPooledContextSetUp()) {
+                            tearDownWithCallbacks();
+                        }
+                    }
+                }
+            };
+        }
+        setTestName(
+                description.getMethodName() != null
+                        ? description.getClassName() + "#" + description.getMethodName()
+                        : description.getDisplayName());
         return this.delegate.apply(base, description);
     }
 }
@@ -18,13 +18,18 @@
  */
 package org.apache.sling.testing.mock.sling.junit;
 
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.sling.testing.mock.osgi.context.ContextCallback;
 import org.apache.sling.testing.mock.osgi.context.ContextPlugin;
 import org.apache.sling.testing.mock.osgi.context.ContextPlugins;
 import org.apache.sling.testing.mock.osgi.context.OsgiContextImpl;
 import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.context.DefaultServiceGroup;
+import org.apache.sling.testing.mock.sling.context.DefaultServicesProfile;
 import org.jetbrains.annotations.NotNull;
 import org.osgi.annotation.versioning.ProviderType;
 
@@ -41,10 +46,14 @@ import org.osgi.annotation.versioning.ProviderType;
 @ProviderType
 public final class SlingContextBuilder {
 
-    private final @NotNull ContextPlugins plugins = new ContextPlugins();
-    private ResourceResolverType resourceResolverType;
-    private Map<String, Object> resourceResolverFactoryActivatorProps;
-    private boolean registerSlingModelsFromClassPath = true;
+    final @NotNull ContextPlugins plugins = new ContextPlugins();
+    ResourceResolverType resourceResolverType;
+    Map<String, Object> resourceResolverFactoryActivatorProps;
+    boolean registerSlingModelsFromClassPath = true;
+    boolean pooled;
+    boolean lazyDefaultServices;
+    boolean parallelSetUp;
+    final Set<DefaultServiceGroup> defaultServiceGroups = EnumSet.allOf(DefaultServiceGroup.class);
 
     /**
      * Create builder with default resource resolver type.
@@ -148,14 +157,72 @@ public final class SlingContextBuilder {
         return this;
     }
 
+    /**
+     * Keep the context initialized after each test run and only reset it to the state after setup (inactive by default).
+     * Content is rolled back, request, response and Sling bindings are cleared and run modes are reset.
+     * If services were registered, unregistered or reconfigured during a test run, the context is rebuilt instead.
+     * The setup callbacks of context plugins are only executed when the context is actually set up.
+     * To benefit from this, share the context instance between test runs via a static field annotated with both
+     * <code>@Rule</code> and <code>@ClassRule</code> - the class rule tears down the context after the last test
+     * of the class. Without class rule the context is torn down after each test run like a non-pooled context.
+     * @param pooled If set to true the context is reset instead of being torn down after each test run.
+     * @return this
+     */
+    public @NotNull SlingContextBuilder pooled(boolean pooled) {
+        this.pooled = pooled;
+        return this;
+    }
+
+    /**
+     * Register default services like MIME type service, resource builder factory, resource bundle provider and
+     * XSS API as deferred registrations that are instantiated and activated only on first service lookup or
+     * reference binding (inactive by default).
+     * @param lazyDefaultServices If set to true default services are registered lazily.
+     * @return this
+     */
+    public @NotNull SlingContextBuilder lazyDefaultServices(boolean lazyDefaultServices) {
+        this.lazyDefaultServices = lazyDefaultServices;
+        return this;
+    }
+
+    /**
+     * Run independent setup phases like classpath scanning for Sling Models and reading node type definitions
+     * concurrently on a bounded thread pool (inactive by default). Services are still registered in the same order
+     * as with a serial setup.
+     * @param parallelSetUp If set to true independent setup phases run concurrently.
+     * @return this
+     */
+    public @NotNull SlingContextBuilder parallelSetUp(boolean parallelSetUp) {
+        this.parallelSetUp = parallelSetUp;
+        return this;
+    }
+
+    /**
+     * Register only the default services of the given profile (default: {@link DefaultServicesProfile#FULL}).
+     * @param profile Default services profile
+     * @return this
+     */
+    public @NotNull SlingContextBuilder defaultServices(@NotNull DefaultServicesProfile profile) {
+        this.defaultServiceGroups.clear();
+        this.defaultServiceGroups.addAll(profile.getServiceGroups());
+        return this;
+    }
+
+    /**
+     * Do not register the given groups of default services.
+     * @param serviceGroups Default service groups to disable
+     * @return this
+     */
+    public @NotNull SlingContextBuilder disableDefaultServices(
+            @NotNull DefaultServiceGroup @NotNull ... serviceGroups) {
+        this.defaultServiceGroups.removeAll(Arrays.asList(serviceGroups));
+        return this;
+    }
+
     /**
      * @return Build {@link SlingContext} instance.
      */
     public @NotNull SlingContext build() {
-        return new SlingContext(
-                this.plugins,
-                this.resourceResolverFactoryActivatorProps,
-                this.resourceResolverType,
-                this.registerSlingModelsFromClassPath);
+        return new SlingContext(this);
     }
 }
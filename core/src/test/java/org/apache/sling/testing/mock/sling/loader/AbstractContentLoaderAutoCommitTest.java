@@ -21,13 +21,18 @@ package org.apache.sling.testing.mock.sling.loader;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
+import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.testing.mock.sling.ResourceResolverType;
 import org.apache.sling.testing.mock.sling.junit.SlingContext;
 import org.junit.Rule;
 import org.junit.Test;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 public abstract class AbstractContentLoaderAutoCommitTest {
@@ -220,6 +225,76 @@ public abstract class AbstractContentLoaderAutoCommitTest {
         assertion.run();
     }
 
+    @Test
+    public void testBatch() {
+        final ContentLoader loader = context.load();
+        final String jsonPath = nextDestResource();
+        final String binaryPath = nextDestResource();
+
+        try (ContentBatch batch = loader.batch()) {
+            loader.json(CLP_CONTENT, jsonPath);
+            new HasChangesAssertion().run();
+            loader.binaryFile(new ByteArrayInputStream(MEM_CONTENT), binaryPath, MIME_TYPE_JSON);
+            new HasChangesAssertion().run();
+            batch.commit();
+        }
+        new NoChangesAssertion().run();
+
+        assertNotNull(context.resourceResolver().getResource(jsonPath));
+        assertNotNull(context.resourceResolver().getResource(binaryPath));
+    }
+
+    @Test
+    public void testBatchRollback() {
+        final ContentLoader loader = context.load();
+        final String jsonPath = nextDestResource() + "/child";
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> loader.batch(batchLoader -> {
+                    batchLoader.json(CLP_CONTENT, jsonPath);
+                    throw new IllegalStateException("Simulated failure");
+                }));
+        new NoChangesAssertion().run();
+
+        assertNull(context.resourceResolver().getResource(jsonPath));
+        assertNull(context.resourceResolver().getResource(ResourceUtil.getParent(jsonPath)));
+
+        // content loader commits again after the batch
+        loader.json(CLP_CONTENT, jsonPath);
+        new NoChangesAssertion().run();
+    }
+
+    @Test
+    public void testBatchRollbackKeepsPendingChanges() throws PersistenceException {
+        final ContentLoader loader = context.load();
+        final String pendingPath = nextDestResource();
+        final String jsonPath = nextDestResource();
+
+        context.resourceResolver().create(context.resourceResolver().getResource("/"), pendingPath.substring(1), null);
+        new HasChangesAssertion().run();
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> loader.batch(batchLoader -> {
+                    batchLoader.json(CLP_CONTENT, jsonPath);
+                    throw new IllegalStateException("Simulated failure");
+                }));
+
+        assertNotNull(context.resourceResolver().getResource(pendingPath));
+        assertNull(context.resourceResolver().getResource(jsonPath));
+    }
+
+    @Test
+    public void testBatchWithoutAutocommitRejectsPendingChanges() {
+        final ContentLoader loader = context.load(false);
+        loader.json(CLP_CONTENT, nextDestResource());
+        new HasChangesAssertion().run();
+
+        assertThrows(IllegalStateException.class, loader::batch);
+        new HasChangesAssertion().run();
+    }
+
     private synchronized String nextDestResource() {
         return '/' + DEST_RES_NAME + destResCount++;
     }
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.testing.mock.sling.NodeTypeDefinitionScanner;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+@SuppressWarnings("null")
+public abstract class AbstractContentLoaderFileVaultPackageTest {
+
+    private static final Path JCR_ROOT = Paths.get("src/test/resources/xml-jcr-import-samples");
+
+    private static final String FILTER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<workspaceFilter version=\"1.0\">\n"
+            + "  <filter root=\"/content/samples\"/>\n"
+            + "  <filter root=\"/content/dam/talk.png\">\n"
+            + "    <include pattern=\"/content/dam/talk.png(/.*)?\"/>\n"
+            + "    <exclude pattern=\"/content/dam/talk.png/jcr:content/renditions/web\\..*\"/>\n"
+            + "  </filter>\n"
+            + "</workspaceFilter>\n";
+
+    @Rule
+    public SlingContext context = new SlingContext(getResourceResolverType());
+
+    protected abstract ResourceResolverType getResourceResolverType();
+
+    @Before
+    public void setUp() {
+        try {
+            NodeTypeDefinitionScanner.get()
+                    .register(
+                            context.resourceResolver().adaptTo(Session.class),
+                            List.of("SLING-INF/nodetypes/app.cnd"),
+                            getResourceResolverType().getNodeTypeMode());
+        } catch (RepositoryException ex) {
+            throw new RuntimeException("Unable to register namespaces.", ex);
+        }
+    }
+
+    @After
+    public final void tearDown() throws Exception {
+        // make sure all changes from ContentLoader are committed
+        assertFalse(context.resourceResolver().hasChanges());
+    }
+
+    @Test
+    public void testFileVaultPackage() throws IOException {
+        context.load().fileVaultPackage(new ByteArrayInputStream(buildPackage(true, false)));
+        assertPackageContent();
+    }
+
+    @Test
+    public void testFileVaultPackageReverseEntryOrder() throws IOException {
+        context.load().fileVaultPackage(new ByteArrayInputStream(buildPackage(true, true)));
+        assertPackageContent();
+    }
+
+    @Test
+    public void testFileVaultPackageReimport() throws IOException {
+        byte[] contentPackage = buildPackage(true, false);
+        context.load().fileVaultPackage(new ByteArrayInputStream(contentPackage));
+        context.load().fileVaultPackage(new ByteArrayInputStream(contentPackage));
+        assertPackageContent();
+    }
+
+    private void assertPackageContent() throws IOException {
+        // folders without .content.xml in the package
+        assertEquals("nt:folder", getPrimaryType("/content/dam"));
+        assertEquals("nt:folder", getPrimaryType("/content/dam/talk.png/jcr:content/renditions"));
+        assertEquals("app:Asset", getPrimaryType("/content/dam/talk.png"));
+        assertEquals("app:AssetContent", getPrimaryType("/content/dam/talk.png/jcr:content"));
+
+        Resource page = context.resourceResolver().getResource("/content/samples/en");
+        assertEquals("app:Page", page.getResourceType());
+        assertEquals(
+                "samples/sample-app/components/content/page/homepage",
+                context.resourceResolver()
+                        .getResource("/content/samples/en/jcr:content")
+                        .getResourceType());
+
+        Resource metadata = context.resourceResolver().getResource("/content/dam/talk.png/jcr:content/metadata");
+        assertEquals("PNG", ResourceUtil.getValueMap(metadata).get("app:Fileformat", String.class));
+
+        Resource original =
+                context.resourceResolver().getResource("/content/dam/talk.png/jcr:content/renditions/original");
+        assertNotNull(original);
+        try (InputStream is = original.adaptTo(InputStream.class)) {
+            assertEquals(8668, is.readAllBytes().length);
+        }
+
+        // excluded by filter rule
+        assertNull(context.resourceResolver()
+                .getResource("/content/dam/talk.png/jcr:content/renditions/web.1280.1280.png"));
+        // not covered by filter
+        assertNull(context.resourceResolver().getResource("/apps/app1"));
+    }
+
+    private String getPrimaryType(String path) {
+        return ResourceUtil.getValueMap(context.resourceResolver().getResource(path))
+                .get("jcr:primaryType", String.class);
+    }
+
+    @Test
+    public void testFileVaultPackageWithoutFilter() throws IOException {
+        byte[] contentPackage = buildPackage(false, false);
+        assertThrows(IllegalArgumentException.class, () -> context.load()
+                .fileVaultPackage(new ByteArrayInputStream(contentPackage)));
+        assertNull(context.resourceResolver().getResource("/content/samples"));
+    }
+
+    @Test
+    public void testFileVaultPackageKeepsExistingResources() throws IOException {
+        context.create().resource("/content", "prop1", "existing");
+        context.create().resource("/content/samples/en", "prop1", "existing");
+
+        String header = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<jcr:root xmlns:jcr=\"http://www.jcp.org/jcr/1.0\" "
+                + "xmlns:sling=\"http://sling.apache.org/jcr/sling/1.0\" "
+                + "xmlns:nt=\"http://www.jcp.org/jcr/nt/1.0\"";
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bos)) {
+            putEntry(
+                    zip,
+                    "META-INF/vault/filter.xml",
+                    "<workspaceFilter version=\"1.0\"><filter root=\"/content/samples\"/></workspaceFilter>");
+            // ancestor of the filter root
+            putEntry(
+                    zip,
+                    "jcr_root/content/.content.xml",
+                    header + " jcr:primaryType=\"sling:Folder\" prop1=\"package\"><samples/></jcr:root>");
+            // existing intermediate resource without properties
+            putEntry(
+                    zip,
+                    "jcr_root/content/samples/.content.xml",
+                    header + " jcr:primaryType=\"sling:OrderedFolder\"><en>"
+                            + "<jcr:content jcr:primaryType=\"nt:unstructured\" jcr:title=\"English\"/>"
+                            + "</en></jcr:root>");
+        }
+        context.load().fileVaultPackage(new ByteArrayInputStream(bos.toByteArray()));
+
+        assertEquals(
+                "existing",
+                ResourceUtil.getValueMap(context.resourceResolver().getResource("/content"))
+                        .get("prop1", String.class));
+        assertEquals(
+                "existing",
+                ResourceUtil.getValueMap(context.resourceResolver().getResource("/content/samples/en"))
+                        .get("prop1", String.class));
+        assertEquals(
+                "English",
+                ResourceUtil.getValueMap(context.resourceResolver().getResource("/content/samples/en/jcr:content"))
+                        .get("jcr:title", String.class));
+    }
+
+    private static void putEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static byte[] buildPackage(boolean includeFilter, boolean reverseEntryOrder) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bos)) {
+            if (includeFilter) {
+                zip.putNextEntry(new ZipEntry("META-INF/vault/filter.xml"));
+                zip.write(FILTER.getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            List<Path> files;
+            try (Stream<Path> paths = Files.walk(JCR_ROOT)) {
+                files = paths.filter(Files::isRegularFile)
+                        .filter(file -> file.startsWith(JCR_ROOT.resolve("content/samples"))
+                                || file.startsWith(JCR_ROOT.resolve("content/dam/talk.png"))
+                                || file.startsWith(JCR_ROOT.resolve("apps")))
+                        .sorted(reverseEntryOrder ? Comparator.reverseOrder() : Comparator.naturalOrder())
+                        .toList();
+            }
+            for (Path file : files) {
+                zip.putNextEntry(new ZipEntry(
+                        "jcr_root/" + JCR_ROOT.relativize(file).toString().replace('\\', '/')));
+                zip.write(Files.readAllBytes(file));
+                zip.closeEntry();
+            }
+        }
+        return bos.toByteArray();
+    }
+}
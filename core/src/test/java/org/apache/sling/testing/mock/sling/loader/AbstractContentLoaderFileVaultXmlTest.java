@@ -41,6 +41,8 @@ import org.junit.Test;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
 
 @SuppressWarnings("null")
 public abstract class AbstractContentLoaderFileVaultXmlTest {
@@ -137,4 +139,42 @@ public abstract class AbstractContentLoaderFileVaultXmlTest {
             assertArrayEquals(mixinTypes, props.get(JcrConstants.JCR_MIXINTYPES, String[].class));
         }
     }
+
+    @Test
+    public void testBulkImport() {
+        List<Resource> resources = context.load()
+                .bulkImport()
+                .fileVaultXml(
+                        "src/test/resources/xml-jcr-import-samples/content/samples/en/.content.xml", path + "/bulk/xml")
+                .json("/json-import-samples/content.json", path + "/bulk/json")
+                .execute();
+
+        assertEquals(2, resources.size());
+        assertEquals(path + "/bulk/xml", resources.get(0).getPath());
+        assertEquals(path + "/bulk/json", resources.get(1).getPath());
+        assertEquals(
+                "samples/sample-app/components/content/page/homepage",
+                context.resourceResolver()
+                        .getResource(path + "/bulk/xml/jcr:content")
+                        .getResourceType());
+        assertEquals(
+                "sample/components/homepage",
+                context.resourceResolver()
+                        .getResource(path + "/bulk/json/jcr:content")
+                        .getResourceType());
+    }
+
+    @Test
+    public void testBulkImportRevertsOnFailure() {
+        context.create().resource(path + "/bulk/json");
+        BulkImport bulkImport = context.load()
+                .bulkImport()
+                .fileVaultXml(
+                        "src/test/resources/xml-jcr-import-samples/content/samples/en/.content.xml", path + "/bulk/xml")
+                .json("/json-import-samples/content.json", path + "/bulk/json");
+
+        assertThrows(IllegalArgumentException.class, bulkImport::execute);
+        assertFalse(context.resourceResolver().hasChanges());
+        assertNull(context.resourceResolver().getResource(path + "/bulk/xml"));
+    }
 }
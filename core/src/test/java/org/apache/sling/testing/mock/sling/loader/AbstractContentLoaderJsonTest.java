@@ -23,6 +23,10 @@ import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.nodetype.NodeType;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Calendar;
 import java.util.List;
 import java.util.TimeZone;
@@ -44,6 +48,7 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 @SuppressWarnings("null")
 public abstract class AbstractContentLoaderJsonTest {
@@ -226,4 +231,73 @@ public abstract class AbstractContentLoaderJsonTest {
 
         assertNotNull(props.get(JcrConstants.JCR_CREATED));
     }
+
+    @Test
+    public void testParsedContentCache() {
+        long hitCount = ContentLoader.parsedContentCache().getHitCount();
+        context.load().json("/json-import-samples/content.json", path + "/sample/de");
+        assertTrue(ContentLoader.parsedContentCache().getHitCount() > hitCount);
+
+        Resource resource = context.resourceResolver().getResource(path + "/sample/de/toolbar/profiles/jcr:content");
+        ValueMap props = ResourceUtil.getValueMap(resource);
+        assertEquals((Long) 1234567890123L, props.get("longProp", Long.class));
+        assertArrayEquals(new Long[] {1234567890123L, 55L}, props.get("longPropMulti", Long[].class));
+    }
+
+    @Test
+    public void testCompiledContent() throws IOException {
+        ByteArrayOutputStream compiledContent = new ByteArrayOutputStream();
+        try (InputStream is = getClass().getResourceAsStream("/json-import-samples/content.json")) {
+            ContentCompiler.compileJson(is, compiledContent);
+        }
+        context.load()
+                .compiledContent(new ByteArrayInputStream(compiledContent.toByteArray()), path + "/sample/compiled");
+
+        Resource page = context.resourceResolver().getResource(path + "/sample/compiled");
+        assertEquals("app:Page", page.getResourceType());
+
+        Resource resource =
+                context.resourceResolver().getResource(path + "/sample/compiled/toolbar/profiles/jcr:content");
+        ValueMap props = ResourceUtil.getValueMap(resource);
+        assertEquals(true, props.get("hideInNav", Boolean.class));
+        assertEquals((Long) 1234567890123L, props.get("longProp", Long.class));
+        assertArrayEquals(new Long[] {1234567890123L, 55L}, props.get("longPropMulti", Long[].class));
+        assertArrayEquals(new Double[] {1.2345d, 1.1d}, props.get("decimalPropMulti", Double[].class));
+
+        ValueMap contentProps =
+                ResourceUtil.getValueMap(context.resourceResolver().getResource(path + "/sample/compiled/jcr:content"));
+        assertEquals("äöüß€", contentProps.get("utf8Property"));
+        Calendar calendar = contentProps.get("app:lastModified", Calendar.class);
+        calendar.setTimeZone(TimeZone.getTimeZone("GMT+2"));
+        assertEquals(2014, calendar.get(Calendar.YEAR));
+        assertEquals(15, calendar.get(Calendar.HOUR_OF_DAY));
+    }
+
+    @Test
+    public void testImportStatistics() {
+        ContentLoader loader = context.load();
+        List<ContentImportStatistics> statistics = loader.getImportStatistics();
+        assertEquals(1, statistics.size());
+        ContentImportStatistics jsonStatistics = statistics.get(0);
+        assertEquals("/json-import-samples/content.json", jsonStatistics.getSource());
+        assertEquals(path + "/sample/en", jsonStatistics.getDestPath());
+        assertTrue(jsonStatistics.getResourceCount() > 10);
+        assertTrue(jsonStatistics.getPropertyCount() > jsonStatistics.getResourceCount());
+
+        loader.binaryFile("/sample-image.gif", path + "/sample/image.gif");
+        statistics = loader.getImportStatistics();
+        assertEquals(2, statistics.size());
+        ContentImportStatistics binaryStatistics = statistics.get(1);
+        assertEquals(path + "/sample/image.gif", binaryStatistics.getDestPath());
+        assertEquals(2, binaryStatistics.getResourceCount());
+        assertEquals(62, binaryStatistics.getBytesRead());
+
+        ContentImportStatistics total = loader.getTotalImportStatistics();
+        assertEquals(jsonStatistics.getResourceCount() + 2, total.getResourceCount());
+        assertEquals(jsonStatistics.getBytesRead() + 62, total.getBytesRead());
+
+        loader.resetImportStatistics();
+        assertTrue(loader.getImportStatistics().isEmpty());
+        assertEquals(0, loader.getTotalImportStatistics().getResourceCount());
+    }
 }
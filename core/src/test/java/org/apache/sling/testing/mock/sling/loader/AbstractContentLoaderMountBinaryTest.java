@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.apache.sling.testing.mock.sling.loader.AbstractContentLoaderBinaryTest.assertMimeType;
+import static org.apache.sling.testing.mock.sling.loader.AbstractContentLoaderBinaryTest.assertSampleImageFileSize;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("null")
+public abstract class AbstractContentLoaderMountBinaryTest {
+
+    private static final File SAMPLE_IMAGE = new File("src/test/resources/sample-image.gif");
+
+    @Rule
+    public SlingContext context = new SlingContext(getResourceResolverType());
+
+    protected abstract ResourceResolverType getResourceResolverType();
+
+    protected String path;
+
+    @Before
+    public void setUp() {
+        path = context.uniqueRoot().content();
+    }
+
+    @Test
+    public void testMountBinaryFile() throws IOException {
+        context.load().mountBinaryFile(SAMPLE_IMAGE, path + "/sample-image.gif");
+
+        Resource fileResource = context.resourceResolver().getResource(path + "/sample-image.gif");
+        assertEquals(JcrConstants.NT_FILE, fileResource.getResourceType());
+        assertSampleImageFileSize(fileResource);
+        assertSampleImageFileSize(fileResource.getChild(JcrConstants.JCR_CONTENT));
+        assertMimeType(fileResource.getChild(JcrConstants.JCR_CONTENT), "image/gif");
+    }
+
+    @Test
+    public void testMountBinaryFileWithMimeType() throws IOException {
+        context.load().mountBinaryFile(SAMPLE_IMAGE, path + "/sample-image.gif", "mime/test");
+
+        Resource fileResource = context.resourceResolver().getResource(path + "/sample-image.gif");
+        assertSampleImageFileSize(fileResource);
+        assertMimeType(fileResource.getChild(JcrConstants.JCR_CONTENT), "mime/test");
+    }
+
+    @Test
+    public void testMountBinaryResource() throws IOException {
+        context.load().mountBinaryResource(SAMPLE_IMAGE, path + "/sample-image.gif");
+
+        Resource resource = context.resourceResolver().getResource(path + "/sample-image.gif");
+        assertEquals(JcrConstants.NT_RESOURCE, resource.getResourceType());
+        assertSampleImageFileSize(resource);
+        assertMimeType(resource, "image/gif");
+
+        // each access opens a new stream
+        try (InputStream is = resource.getValueMap().get(JcrConstants.JCR_DATA, InputStream.class)) {
+            assertEquals(SAMPLE_IMAGE.length(), IOUtils.toByteArray(is).length);
+        }
+    }
+
+    @Test
+    public void testMountBinaryResourceValueMap() throws IOException {
+        context.load().mountBinaryResource(SAMPLE_IMAGE, path + "/sample-image.gif");
+
+        ValueMap props = context.resourceResolver()
+                .getResource(path + "/sample-image.gif")
+                .getValueMap();
+        assertTrue(props.containsKey(JcrConstants.JCR_DATA));
+        assertTrue(props.keySet().contains(JcrConstants.JCR_DATA));
+        assertEquals(props.size(), props.keySet().size());
+        assertEquals(props.size(), props.entrySet().size());
+        assertFalse(props.containsKey(55));
+        assertNull(props.get(55));
+
+        // stream is opened on first read only
+        try (InputStream is = (InputStream) props.get(JcrConstants.JCR_DATA)) {
+            assertEquals(SAMPLE_IMAGE.length(), IOUtils.toByteArray(is).length);
+        }
+    }
+
+    @Test
+    public void testInvalidFile() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            context.load().mountBinaryFile(new File("non-existing.xyz"), path + "/non-existing.xyz");
+        });
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import java.util.List;
+
+import org.apache.commons.collections4.IteratorUtils;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("null")
+public abstract class AbstractContentLoaderMountJsonTest {
+
+    @Rule
+    public SlingContext context = new SlingContext(getResourceResolverType());
+
+    protected abstract ResourceResolverType getResourceResolverType();
+
+    protected String path;
+
+    @Before
+    public void setUp() {
+        path = context.uniqueRoot().content() + "/mounted";
+        context.load().mountJson("/json-import-samples/content.json", path);
+    }
+
+    @Test
+    public void testResourceType() {
+        Resource resource = context.resourceResolver().getResource(path + "/jcr:content");
+        assertEquals("sample/components/homepage", resource.getResourceType());
+        assertEquals("app:Page", context.resourceResolver().getResource(path).getResourceType());
+    }
+
+    @Test
+    public void testProperties() {
+        Resource resource = context.resourceResolver().getResource(path + "/toolbar/profiles/jcr:content");
+        assertEquals((Long) 1234567890123L, resource.getValueMap().get("longProp", Long.class));
+        assertArrayEquals(
+                new Long[] {1234567890123L, 55L}, resource.getValueMap().get("longPropMulti", Long[].class));
+    }
+
+    @Test
+    public void testMutableValuesNotShared() {
+        String resourcePath = path + "/toolbar/profiles/jcr:content";
+        Object[] values = (Object[]) context.resourceResolver()
+                .getResource(resourcePath)
+                .getValueMap()
+                .get("longPropMulti");
+        values[0] = 0L;
+
+        assertArrayEquals(
+                new Long[] {1234567890123L, 55L},
+                context.resourceResolver()
+                        .getResource(resourcePath)
+                        .getValueMap()
+                        .get("longPropMulti", Long[].class));
+    }
+
+    @Test
+    public void testListChildren() {
+        Resource resource = context.resourceResolver().getResource(path);
+        List<Resource> result = IteratorUtils.toList(resource.listChildren());
+        assertEquals("jcr:content", result.get(0).getName());
+        assertEquals("toolbar", result.get(1).getName());
+        assertEquals(path, result.get(0).getParent().getPath());
+    }
+
+    @Test
+    public void testNonExistingResource() {
+        assertNull(context.resourceResolver().getResource(path + "/non-existing"));
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testReadOnly() throws PersistenceException {
+        Resource resource = context.resourceResolver().getResource(path + "/jcr:content");
+        assertNotNull(resource);
+        context.resourceResolver().create(resource, "child", null);
+    }
+
+    @Test
+    public void testSnapshotRestoreKeepsMountedContent() throws PersistenceException {
+        String snapshotName = getClass().getName() + "#testSnapshotRestoreKeepsMountedContent";
+        context.create().resource(path + "-sibling", "prop1", "value1");
+        context.snapshot(snapshotName);
+
+        context.resourceResolver().delete(context.resourceResolver().getResource(path + "-sibling"));
+        context.resourceResolver().commit();
+
+        assertTrue(context.restore(snapshotName));
+        assertEquals(
+                "value1",
+                context.resourceResolver()
+                        .getResource(path + "-sibling")
+                        .getValueMap()
+                        .get("prop1", String.class));
+        assertEquals(
+                "sample/components/homepage",
+                context.resourceResolver().getResource(path + "/jcr:content").getResourceType());
+    }
+}
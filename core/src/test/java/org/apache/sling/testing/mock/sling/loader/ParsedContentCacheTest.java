@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.loader;
+
+import java.util.Calendar;
+
+import org.apache.sling.testing.mock.sling.internal.SnapshotValues;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class ParsedContentCacheTest {
+
+    @Test
+    public void testCopyCalendarArray() {
+        Calendar calendar = Calendar.getInstance();
+        long time = calendar.getTimeInMillis();
+        Calendar[] value = new Calendar[] {calendar};
+
+        Calendar[] copy = (Calendar[]) SnapshotValues.copyValue(value);
+        assertNotSame(value, copy);
+        assertNotSame(calendar, copy[0]);
+        assertEquals(calendar, copy[0]);
+
+        copy[0].add(Calendar.DAY_OF_MONTH, 1);
+        assertEquals(time, value[0].getTimeInMillis());
+    }
+}
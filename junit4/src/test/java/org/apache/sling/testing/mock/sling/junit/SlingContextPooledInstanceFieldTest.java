@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.junit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test with pooled {@link SlingContext} used as rule only, which is torn down after each test method.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class SlingContextPooledInstanceFieldTest {
+
+    private static final AtomicInteger afterSetUpCount = new AtomicInteger();
+    private static final AtomicInteger afterTearDownCount = new AtomicInteger();
+
+    @Rule
+    public SlingContext context = new SlingContextBuilder(ResourceResolverType.RESOURCERESOLVER_MOCK)
+            .pooled(true)
+            .afterSetUp((SlingContextCallback) ctx -> afterSetUpCount.incrementAndGet())
+            .afterTearDown((SlingContextCallback) ctx -> afterTearDownCount.incrementAndGet())
+            .build();
+
+    @Test
+    public void test1FirstRun() {
+        assertEquals(1, afterSetUpCount.get());
+        assertEquals(0, afterTearDownCount.get());
+    }
+
+    @Test
+    public void test2ContextWasTornDown() {
+        assertEquals(2, afterSetUpCount.get());
+        assertEquals(1, afterTearDownCount.get());
+    }
+}
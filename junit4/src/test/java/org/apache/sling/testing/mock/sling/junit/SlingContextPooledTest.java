@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.junit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.ClassRule;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.osgi.framework.BundleContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test with pooled {@link SlingContext} used as rule and class rule that is reset after each test method.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+@SuppressWarnings("null")
+public class SlingContextPooledTest {
+
+    private static final AtomicInteger afterSetUpCount = new AtomicInteger();
+
+    @Rule
+    @ClassRule
+    public static final SlingContext context = new SlingContextBuilder(ResourceResolverType.RESOURCERESOLVER_MOCK)
+            .pooled(true)
+            .afterSetUp((SlingContextCallback) ctx -> afterSetUpCount.incrementAndGet())
+            .build();
+
+    private static BundleContext bundleContext;
+
+    @Test
+    public void test1ModifyContent() {
+        bundleContext = context.bundleContext();
+        context.create().resource("/content/pooled", ValueMap.EMPTY);
+        assertNotNull(context.resourceResolver().getResource("/content/pooled"));
+    }
+
+    @Test
+    public void test2ContextIsReset() {
+        assertSame(bundleContext, context.bundleContext());
+        assertEquals(1, afterSetUpCount.get());
+        assertNull(context.resourceResolver().getResource("/content/pooled"));
+    }
+}
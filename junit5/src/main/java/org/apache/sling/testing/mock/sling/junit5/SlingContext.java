@@ -40,7 +40,10 @@ import org.osgi.annotation.versioning.ConsumerType;
 public final class SlingContext extends SlingContextImpl {
 
     private final ContextPlugins plugins;
+    private boolean classScoped;
     private boolean isSetUp;
+    private boolean hasCheckpoint;
+    private boolean pooledContextReused;
 
     /**
      * Initialize Sling context.
@@ -57,6 +60,23 @@ public final class SlingContext extends SlingContextImpl {
         this(new ContextPlugins(), null, resourceResolverType, true);
     }
 
+    /**
+     * Initialize Sling context with the settings of the given builder.
+     * @param builder Sling context builder
+     */
+    SlingContext(@NotNull final SlingContextBuilder builder) {
+        this(
+                builder.plugins,
+                builder.resourceResolverFactoryActivatorProps,
+                builder.resourceResolverType,
+                builder.registerSlingModelsFromClassPath);
+        this.classScoped = builder.classScoped;
+        setPooled(builder.pooled);
+        setLazyDefaultServices(builder.lazyDefaultServices);
+        setDefaultServiceGroups(builder.defaultServiceGroups);
+        setParallelSetUp(builder.parallelSetUp);
+    }
+
     /**
      * Initialize Sling context.
      * @param contextPlugins Context plugins
@@ -83,17 +103,66 @@ public final class SlingContext extends SlingContextImpl {
      */
     protected void setUpContext() {
         isSetUp = true;
+        pooledContextReused = reusePooledContext();
+        if (pooledContextReused) {
+            // setup callbacks were already executed when the pooled context was set up
+            return;
+        }
         plugins.executeBeforeSetUpCallback(this);
         super.setUp();
     }
 
+    /**
+     * This is called by {@link SlingContextExtension} after the after setup callbacks
+     * were executed.
+     */
+    void completeSetUp() {
+        initPooledContext();
+    }
+
+    /**
+     * This is called by {@link SlingContextExtension} to reset a pooled context instead
+     * of tearing it down.
+     * @return true if the pooled context was reset, false if it has to be torn down
+     */
+    boolean resetContext() {
+        if (resetPooledContext()) {
+            isSetUp = false;
+            return true;
+        }
+        return false;
+    }
+
     /**
      * This is called by {@link SlingContextExtension} to tear down context.
      */
     protected void tearDownContext() {
+        isSetUp = false;
+        hasCheckpoint = false;
         super.tearDown();
     }
 
+    /**
+     * This is called by {@link SlingContextExtension} to remember the state of
+     * a class-scoped context after all {@code @BeforeAll} methods.
+     */
+    @Override
+    protected void createCheckpoint() {
+        super.createCheckpoint();
+        hasCheckpoint = true;
+    }
+
+    /**
+     * This is called by {@link SlingContextExtension} to restore a
+     * class-scoped context after each test method. If OSGi services were
+     * registered or unregistered by the test method, the context is rebuilt
+     * and the services registered after the setup are registered again.
+     */
+    @Override
+    protected void restoreCheckpoint() {
+        super.restoreCheckpoint();
+    }
+
     ContextPlugins getContextPlugins() {
         return plugins;
     }
@@ -101,4 +170,28 @@ public final class SlingContext extends SlingContextImpl {
     boolean isSetUp() {
         return this.isSetUp;
     }
+
+    boolean isClassScoped() {
+        return this.classScoped;
+    }
+
+    boolean hasCheckpoint() {
+        return this.hasCheckpoint;
+    }
+
+    boolean isPooledContextReused() {
+        return this.pooledContextReused;
+    }
+
+    boolean isPooledContext() {
+        return isPooledContextSetUp();
+    }
+
+    /**
+     * This is called by {@link SlingContextExtension} to set the name of the current test.
+     */
+    @Override
+    protected void setTestName(@Nullable String testName) {
+        super.setTestName(testName);
+    }
 }
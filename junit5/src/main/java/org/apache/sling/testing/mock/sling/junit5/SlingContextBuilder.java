@@ -18,13 +18,18 @@
  */
 package org.apache.sling.testing.mock.sling.junit5;
 
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.sling.testing.mock.osgi.context.ContextCallback;
 import org.apache.sling.testing.mock.osgi.context.ContextPlugin;
 import org.apache.sling.testing.mock.osgi.context.ContextPlugins;
 import org.apache.sling.testing.mock.osgi.context.OsgiContextImpl;
 import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.context.DefaultServiceGroup;
+import org.apache.sling.testing.mock.sling.context.DefaultServicesProfile;
 import org.jetbrains.annotations.NotNull;
 import org.osgi.annotation.versioning.ProviderType;
 
@@ -35,10 +40,15 @@ import org.osgi.annotation.versioning.ProviderType;
 @ProviderType
 public final class SlingContextBuilder {
 
-    private final @NotNull ContextPlugins plugins = new ContextPlugins();
-    private ResourceResolverType resourceResolverType;
-    private Map<String, Object> resourceResolverFactoryActivatorProps;
-    private boolean registerSlingModelsFromClassPath = true;
+    final @NotNull ContextPlugins plugins = new ContextPlugins();
+    ResourceResolverType resourceResolverType;
+    Map<String, Object> resourceResolverFactoryActivatorProps;
+    boolean registerSlingModelsFromClassPath = true;
+    boolean pooled;
+    boolean lazyDefaultServices;
+    boolean parallelSetUp;
+    boolean classScoped;
+    final Set<DefaultServiceGroup> defaultServiceGroups = EnumSet.allOf(DefaultServiceGroup.class);
 
     /**
      * Create builder with default resource resolver type.
@@ -149,14 +159,100 @@ public final class SlingContextBuilder {
         return this;
     }
 
+    /**
+     * Keep the context initialized after each test run and only reset it to
+     * the state after setup (inactive by default). Content is rolled back,
+     * request, response and Sling bindings are cleared and run modes are reset.
+     * If services were registered, unregistered or reconfigured during a test
+     * run, the context is rebuilt instead. The setup callbacks of context
+     * plugins are only executed when the context is actually set up. To
+     * benefit from this, keep the context in a static {@link SlingContext}
+     * field of the test class or use {@code @TestInstance(Lifecycle.PER_CLASS)}
+     * - {@link SlingContextExtension} tears it down after all tests of the
+     * class. A pooled context in an instance field with the default
+     * {@code PER_METHOD} lifecycle is torn down after each test run.
+     * @param value If set to true the context is reset instead of being torn
+     *            down after each test run.
+     * @return this
+     */
+    public SlingContextBuilder pooled(boolean value) {
+        this.pooled = value;
+        return this;
+    }
+
+    /**
+     * Register default services like MIME type service, resource builder
+     * factory, resource bundle provider and XSS API as deferred registrations
+     * that are instantiated and activated only on first service lookup or
+     * reference binding (inactive by default).
+     * @param value If set to true default services are registered lazily.
+     * @return this
+     */
+    public SlingContextBuilder lazyDefaultServices(boolean value) {
+        this.lazyDefaultServices = value;
+        return this;
+    }
+
+    /**
+     * Run independent setup phases like classpath scanning for Sling Models and reading node type
+     * definitions concurrently on a bounded thread pool (inactive by default). Services are still
+     * registered in the same order as with a serial setup.
+     * @param value If set to true independent setup phases run concurrently.
+     * @return this
+     */
+    public SlingContextBuilder parallelSetUp(boolean value) {
+        this.parallelSetUp = value;
+        return this;
+    }
+
+    /**
+     * Set up the context only once per test class before the
+     * {@code @BeforeAll} methods, and tear it down after the {@code @AfterAll}
+     * methods (inactive by default). After each test method the resource tree
+     * and the run modes are restored to a checkpoint taken after the
+     * {@code @BeforeAll} methods. The OSGi service registry is compared with
+     * the checkpoint as well - if a test method registered or unregistered
+     * services, the context is torn down, set up again and restored from the
+     * checkpoint, including the services registered in the
+     * {@code @BeforeAll} methods. The context has to be assigned to a static
+     * field of the test class, or to an instance field if the test class uses
+     * the {@code PER_CLASS} test instance lifecycle - otherwise
+     * {@link SlingContextExtension} fails with an
+     * {@link IllegalStateException}.
+     * @param value If set to true the context is class-scoped.
+     * @return this
+     */
+    public SlingContextBuilder classScoped(boolean value) {
+        this.classScoped = value;
+        return this;
+    }
+
+    /**
+     * Register only the default services of the given profile (default:
+     * {@link DefaultServicesProfile#FULL}).
+     * @param profile Default services profile
+     * @return this
+     */
+    public SlingContextBuilder defaultServices(DefaultServicesProfile profile) {
+        this.defaultServiceGroups.clear();
+        this.defaultServiceGroups.addAll(profile.getServiceGroups());
+        return this;
+    }
+
+    /**
+     * Do not register the given groups of default services.
+     * @param serviceGroups Default service groups to disable
+     * @return this
+     */
+    public SlingContextBuilder disableDefaultServices(DefaultServiceGroup... serviceGroups) {
+        this.defaultServiceGroups.removeAll(Arrays.asList(serviceGroups));
+        return this;
+    }
+
     /**
      * @return Build {@link SlingContext} instance.
      */
     public @NotNull SlingContext build() {
-        return new SlingContext(
-                this.plugins,
-                this.resourceResolverFactoryActivatorProps,
-                this.resourceResolverType,
-                this.registerSlingModelsFromClassPath);
+        return new SlingContext(this);
     }
 }
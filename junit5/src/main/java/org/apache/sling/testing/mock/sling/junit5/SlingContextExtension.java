@@ -19,11 +19,15 @@
 package org.apache.sling.testing.mock.sling.junit5;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.function.Consumer;
 
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.extension.AfterAllCallback;
 import org.junit.jupiter.api.extension.AfterEachCallback;
 import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ParameterContext;
@@ -34,13 +38,30 @@ import org.junit.jupiter.api.extension.TestInstancePostProcessor;
  * JUnit 5 extension that allows to inject {@link SlingContext} (or subclasses of
  * it) parameters in test methods, and ensures that the context is set up and
  * teared down properly for each test method.
+ * <p>
+ * Class-scoped contexts (see {@link SlingContextBuilder#classScoped(boolean)})
+ * are set up once per test class instead, and restored to a checkpoint after
+ * each test method. This includes the test methods of {@code @Nested} test
+ * classes, which share the class-scoped context of the enclosing class - changes
+ * done in a {@code @BeforeAll} method of a nested class are rolled back after its
+ * first test method. If OSGi services were registered or unregistered by a test
+ * method, the context is rebuilt from the checkpoint, see
+ * {@link SlingContext#restoreCheckpoint()}.
+ * </p>
+ * <p>
+ * Pooled contexts (see {@link SlingContextBuilder#pooled(boolean)}) kept in a
+ * static field are reset after each test method, and torn down after all tests
+ * of the class.
+ * </p>
  */
 public final class SlingContextExtension
         implements ParameterResolver,
                 TestInstancePostProcessor,
+                BeforeAllCallback,
                 BeforeEachCallback,
                 AfterEachCallback,
-                AfterTestExecutionCallback {
+                AfterTestExecutionCallback,
+                AfterAllCallback {
 
     /**
      * Checks if test class has a {@link SlingContext} or derived field. If it has
@@ -53,6 +74,18 @@ public final class SlingContextExtension
         Field slingContextField = getFieldFromTestInstance(testInstance, SlingContext.class);
         if (slingContextField != null) {
             SlingContext context = (SlingContext) slingContextField.get(testInstance);
+            if (context != null && context.isClassScoped()) {
+                if (!Modifier.isStatic(slingContextField.getModifiers())
+                        && extensionContext.getTestInstanceLifecycle().orElse(Lifecycle.PER_METHOD)
+                                == Lifecycle.PER_METHOD) {
+                    // beforeAll has no test instance to get the context from
+                    throw new IllegalStateException("Class-scoped SlingContext in non-static field "
+                            + slingContextField.getDeclaringClass().getName() + "#" + slingContextField.getName()
+                            + " requires a static field or @TestInstance(Lifecycle.PER_CLASS).");
+                }
+                // class-scoped context is managed in beforeAll/afterAll
+                return;
+            }
             if (context != null) {
                 if (!context.isSetUp()) {
                     context.setUpContext();
@@ -81,37 +114,168 @@ public final class SlingContextExtension
      */
     @Override
     public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        SlingContext classScopedContext = getClassScopedSlingContext(extensionContext);
+        if (classScopedContext != null) {
+            return classScopedContext;
+        }
         return SlingContextStore.getOrCreateSlingContext(extensionContext, extensionContext.getRequiredTestInstance());
     }
 
+    /**
+     * Sets up a class-scoped {@link SlingContext} before any {@code @BeforeAll}
+     * method is called.
+     */
+    @Override
+    public void beforeAll(ExtensionContext extensionContext) throws Exception {
+        Class<?> testClass = extensionContext.getRequiredTestClass();
+        Field slingContextField = getFieldFromTestInstance(testClass, SlingContext.class);
+        if (slingContextField == null) {
+            return;
+        }
+        Object testInstance = null;
+        if (!Modifier.isStatic(slingContextField.getModifiers())) {
+            testInstance = extensionContext.getTestInstance().orElse(null);
+            if (testInstance == null) {
+                return;
+            }
+        }
+        SlingContext context = (SlingContext) slingContextField.get(testInstance);
+        if (context != null && context.isClassScoped()) {
+            if (!context.isSetUp()) {
+                context.setUpContext();
+            }
+            context.setTestName(testClass.getName());
+            SlingContextStore.storeSlingContext(extensionContext, testClass, context);
+        }
+    }
+
     @Override
     public void beforeEach(ExtensionContext extensionContext) throws Exception {
+        SlingContext classScopedContext = getClassScopedSlingContext(extensionContext);
+        if (classScopedContext != null) {
+            if (!classScopedContext.hasCheckpoint()) {
+                // all @BeforeAll methods are called at this point
+                classScopedContext.getContextPlugins().executeAfterSetUpCallback(classScopedContext);
+                classScopedContext.createCheckpoint();
+            }
+            classScopedContext.setTestName(
+                    extensionContext.getRequiredTestClass().getName() + "#"
+                            + extensionContext.getRequiredTestMethod().getName());
+        }
+
         applySlingContext(extensionContext, slingContext -> {
-            // call context plugins setup after all @BeforeEach methods were
-            // called
-            slingContext.getContextPlugins().executeAfterSetUpCallback(slingContext);
+            slingContext.setTestName(extensionContext.getRequiredTestClass().getName() + "#"
+                    + extensionContext.getRequiredTestMethod().getName());
+
+            if (!slingContext.isPooledContextReused()) {
+                // call context plugins setup after all @BeforeEach methods were
+                // called
+                slingContext.getContextPlugins().executeAfterSetUpCallback(slingContext);
+                slingContext.completeSetUp();
+            }
         });
     }
 
     @Override
     public void afterTestExecution(ExtensionContext extensionContext) throws Exception {
         applySlingContext(extensionContext, slingContext -> {
-            // call context plugins setup before any @AfterEach method is called
-            slingContext.getContextPlugins().executeBeforeTearDownCallback(slingContext);
+            if (!slingContext.isPooledContext()) {
+                // call context plugins setup before any @AfterEach method is called
+                slingContext.getContextPlugins().executeBeforeTearDownCallback(slingContext);
+            }
         });
     }
 
     @Override
     public void afterEach(ExtensionContext extensionContext) {
         applySlingContext(extensionContext, slingContext -> {
-            // call context plugins setup after all @AfterEach methods were
-            // called
-            slingContext.getContextPlugins().executeAfterTearDownCallback(slingContext);
+            boolean pooled = slingContext.isPooledContext();
+            if (!pooled || !isPooledContextKept(extensionContext) || !slingContext.resetContext()) {
+                if (pooled) {
+                    // discarded pooled context, teardown callbacks were skipped in afterTestExecution
+                    slingContext.getContextPlugins().executeBeforeTearDownCallback(slingContext);
+                }
+
+                // call context plugins setup after all @AfterEach methods were
+                // called
+                slingContext.getContextPlugins().executeAfterTearDownCallback(slingContext);
 
-            // Tear down {@link SlingContext} after test is complete.
-            slingContext.tearDownContext();
+                // Tear down {@link SlingContext} after test is complete.
+                slingContext.tearDownContext();
+            }
             SlingContextStore.removeSlingContext(extensionContext, extensionContext.getRequiredTestInstance());
         });
+
+        SlingContext classScopedContext = getClassScopedSlingContext(extensionContext);
+        if (classScopedContext != null && classScopedContext.hasCheckpoint()) {
+            // roll back changes of the test method
+            classScopedContext.restoreCheckpoint();
+        }
+    }
+
+    /**
+     * Tears down a class-scoped {@link SlingContext} after all
+     * {@code @AfterAll} methods were called.
+     */
+    @Override
+    public void afterAll(ExtensionContext extensionContext) throws Exception {
+        // tear down only the context of this class, not the one of an enclosing class
+        SlingContext classScopedContext =
+                SlingContextStore.getSlingContext(extensionContext, extensionContext.getRequiredTestClass());
+        if (classScopedContext != null) {
+            classScopedContext.getContextPlugins().executeBeforeTearDownCallback(classScopedContext);
+            classScopedContext.getContextPlugins().executeAfterTearDownCallback(classScopedContext);
+            classScopedContext.tearDownContext();
+            SlingContextStore.removeSlingContext(extensionContext, extensionContext.getRequiredTestClass());
+        }
+
+        // tear down pooled context kept in a static field or a PER_CLASS test instance after the last test of the class
+        Field slingContextField = getFieldFromTestInstance(extensionContext.getRequiredTestClass(), SlingContext.class);
+        if (slingContextField != null && isPooledContextKept(extensionContext)) {
+            Object testInstance = Modifier.isStatic(slingContextField.getModifiers())
+                    ? null
+                    : extensionContext.getTestInstance().orElse(null);
+            SlingContext pooledContext = (SlingContext) slingContextField.get(testInstance);
+            if (pooledContext != null && pooledContext.isPooledContext()) {
+                pooledContext.getContextPlugins().executeBeforeTearDownCallback(pooledContext);
+                pooledContext.getContextPlugins().executeAfterTearDownCallback(pooledContext);
+                pooledContext.tearDownContext();
+            }
+        }
+    }
+
+    /**
+     * Gets the class-scoped context of the test class, or of an enclosing class for {@code @Nested} test
+     * classes. The extension context store falls back to the stores of the enclosing classes.
+     */
+    private SlingContext getClassScopedSlingContext(ExtensionContext extensionContext) {
+        Class<?> testClass = extensionContext.getTestClass().orElse(null);
+        while (testClass != null) {
+            SlingContext context = SlingContextStore.getSlingContext(extensionContext, testClass);
+            if (context != null) {
+                return context;
+            }
+            testClass = isNestedClass(testClass) ? testClass.getEnclosingClass() : null;
+        }
+        return null;
+    }
+
+    private static boolean isNestedClass(Class<?> testClass) {
+        return testClass.isMemberClass() && !Modifier.isStatic(testClass.getModifiers());
+    }
+
+    /**
+     * A pooled context is only reset instead of torn down if it outlives the test instance, i.e. it is kept
+     * in a static field or the test class uses {@code @TestInstance(Lifecycle.PER_CLASS)}. Otherwise it would
+     * never be torn down in {@link #afterAll(ExtensionContext)}.
+     */
+    private boolean isPooledContextKept(ExtensionContext extensionContext) {
+        Field slingContextField = getFieldFromTestInstance(extensionContext.getRequiredTestClass(), SlingContext.class);
+        if (slingContextField == null) {
+            return false;
+        }
+        return Modifier.isStatic(slingContextField.getModifiers())
+                || extensionContext.getTestInstanceLifecycle().orElse(Lifecycle.PER_METHOD) == Lifecycle.PER_CLASS;
     }
 
     private void applySlingContext(ExtensionContext extensionContext, Consumer<SlingContext> consumer) {
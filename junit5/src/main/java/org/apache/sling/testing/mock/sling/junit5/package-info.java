@@ -19,5 +19,5 @@
 /**
  * JUnit 5 extensions for Sling context.
  */
-@org.osgi.annotation.versioning.Version("1.0.0")
+@org.osgi.annotation.versioning.Version("1.1.0")
 package org.apache.sling.testing.mock.sling.junit5;
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.junit5;
+
+import java.util.Optional;
+
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class-scoped {@link SlingContext} in a non-static field, which requires the {@code PER_CLASS} test instance
+ * lifecycle.
+ */
+class SlingContextClassScopedInstanceFieldTest {
+
+    @Test
+    void testPerMethodLifecycle() {
+        ExtensionContext extensionContext = mock(ExtensionContext.class);
+        when(extensionContext.getTestInstanceLifecycle()).thenReturn(Optional.of(Lifecycle.PER_METHOD));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> new SlingContextExtension()
+                .postProcessTestInstance(new InstanceFieldTestCase(), extensionContext));
+        assertTrue(ex.getMessage().contains(InstanceFieldTestCase.class.getName() + "#context"));
+    }
+
+    @Test
+    void testPerClassLifecycle() throws Exception {
+        ExtensionContext extensionContext = mock(ExtensionContext.class);
+        when(extensionContext.getTestInstanceLifecycle()).thenReturn(Optional.of(Lifecycle.PER_CLASS));
+
+        InstanceFieldTestCase testInstance = new InstanceFieldTestCase();
+        new SlingContextExtension().postProcessTestInstance(testInstance, extensionContext);
+        // set up in beforeAll
+        assertFalse(testInstance.context.isSetUp());
+    }
+
+    static class InstanceFieldTestCase {
+        SlingContext context = new SlingContextBuilder(ResourceResolverType.RESOURCERESOLVER_MOCK)
+                .classScoped(true)
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.junit5;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.settings.SlingSettingsService;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.osgi.framework.BundleContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test with class-scoped {@link SlingContext} that is restored to the state after
+ * {@link BeforeAll} after each test method.
+ */
+@ExtendWith(SlingContextExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SuppressWarnings("null")
+class SlingContextClassScopedTest {
+
+    private static final SlingContext context = new SlingContextBuilder(ResourceResolverType.JCR_MOCK)
+            .classScoped(true)
+            .build();
+
+    private static BundleContext bundleContext;
+
+    @BeforeAll
+    static void setUpFixture(SlingContext slingContext) {
+        assertSame(context, slingContext);
+        bundleContext = context.bundleContext();
+        context.create().resource("/content/fixture", "prop1", "value1");
+        context.create().resource("/content/fixture/child", "prop2", "value2");
+        context.create()
+                .resource(
+                        "/content/fixture/binary",
+                        "data",
+                        new ByteArrayInputStream("binary1".getBytes(StandardCharsets.UTF_8)));
+        context.registerService(Comparable.class, "fixture");
+    }
+
+    @Test
+    @Order(1)
+    void testModifyContent() throws PersistenceException {
+        assertSame(bundleContext, context.bundleContext());
+
+        Resource fixture = context.resourceResolver().getResource("/content/fixture");
+        fixture.adaptTo(ModifiableValueMap.class).put("prop1", "changed");
+        context.resourceResolver().delete(context.resourceResolver().getResource("/content/fixture/child"));
+        context.create().resource("/content/new");
+        context.resourceResolver().commit();
+        context.runMode("author");
+        context.request().setAttribute("attr1", "value1");
+    }
+
+    @Test
+    @Order(2)
+    void testContentIsRestored() {
+        assertSame(bundleContext, context.bundleContext());
+
+        Resource fixture = context.resourceResolver().getResource("/content/fixture");
+        assertEquals("value1", fixture.getValueMap().get("prop1"));
+        Resource child = context.resourceResolver().getResource("/content/fixture/child");
+        assertNotNull(child);
+        assertEquals("value2", child.getValueMap().get("prop2"));
+        assertNull(context.resourceResolver().getResource("/content/new"));
+        assertFalse(context.getService(SlingSettingsService.class).getRunModes().contains("author"));
+        assertNull(context.request().getAttribute("attr1"));
+    }
+
+    @Test
+    @Order(3)
+    void testModifyServicesAndBinary() throws PersistenceException {
+        context.registerService(Runnable.class, () -> {});
+        context.resourceResolver().delete(context.resourceResolver().getResource("/content/fixture/binary"));
+        context.resourceResolver().commit();
+    }
+
+    @Test
+    @Order(4)
+    void testContextIsRebuilt() throws IOException {
+        // context was rebuilt because the service registry was changed
+        assertNotSame(bundleContext, context.bundleContext());
+        assertNull(context.getService(Runnable.class));
+        assertEquals("fixture", context.getService(Comparable.class));
+
+        Resource binary = context.resourceResolver().getResource("/content/fixture/binary");
+        assertNotNull(binary);
+        try (InputStream is = binary.getValueMap().get("data", InputStream.class)) {
+            assertEquals("binary1", new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(
+                "value1",
+                context.resourceResolver()
+                        .getResource("/content/fixture")
+                        .getValueMap()
+                        .get("prop1"));
+    }
+
+    @Nested
+    class NestedTest {
+
+        @Test
+        void testModifyContentInNestedClass() throws PersistenceException {
+            context.create().resource("/content/nested");
+            context.resourceResolver().commit();
+        }
+
+        @Test
+        void testNestedClassSharesContext(SlingContext slingContext) {
+            assertSame(context, slingContext);
+            assertNotNull(context.resourceResolver().getResource("/content/fixture"));
+        }
+    }
+
+    @AfterAll
+    static void tearDownFixture() {
+        assertNull(context.resourceResolver().getResource("/content/nested"));
+        assertTrue(context.isSetUp());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.junit5;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test with pooled {@link SlingContext} in an instance field with the default {@code PER_METHOD} lifecycle,
+ * which cannot outlive the test instance and is torn down after each test method.
+ */
+@ExtendWith(SlingContextExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class SlingContextPooledInstanceFieldTest {
+
+    private static final AtomicInteger afterSetUpCount = new AtomicInteger();
+    private static final AtomicInteger afterTearDownCount = new AtomicInteger();
+
+    private final SlingContext context = new SlingContextBuilder(ResourceResolverType.RESOURCERESOLVER_MOCK)
+            .pooled(true)
+            .afterSetUp((SlingContextCallback) ctx -> afterSetUpCount.incrementAndGet())
+            .afterTearDown((SlingContextCallback) ctx -> afterTearDownCount.incrementAndGet())
+            .build();
+
+    @Test
+    @Order(1)
+    void testFirstRun() {
+        assertEquals(1, afterSetUpCount.get());
+        assertEquals(0, afterTearDownCount.get());
+    }
+
+    @Test
+    @Order(2)
+    void testContextWasTornDown() {
+        assertEquals(2, afterSetUpCount.get());
+        assertEquals(1, afterTearDownCount.get());
+    }
+}
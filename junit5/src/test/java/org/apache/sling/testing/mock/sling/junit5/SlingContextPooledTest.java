@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.testing.mock.sling.junit5;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.osgi.framework.BundleContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Test with pooled {@link SlingContext} in a static field that is reset after each test method.
+ */
+@ExtendWith(SlingContextExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SuppressWarnings("null")
+class SlingContextPooledTest {
+
+    private static final AtomicInteger afterSetUpCount = new AtomicInteger();
+
+    private static final SlingContext context = new SlingContextBuilder(ResourceResolverType.RESOURCERESOLVER_MOCK)
+            .pooled(true)
+            .afterSetUp((SlingContextCallback) ctx -> {
+                afterSetUpCount.incrementAndGet();
+                ctx.registerService(Comparable.class, "plugin");
+            })
+            .build();
+
+    private static BundleContext bundleContext;
+
+    @Test
+    @Order(1)
+    void testModifyContent() {
+        bundleContext = context.bundleContext();
+        context.create().resource("/content/pooled", ValueMap.EMPTY);
+        assertNotNull(context.resourceResolver().getResource("/content/pooled"));
+    }
+
+    @Test
+    @Order(2)
+    void testContextIsReset() {
+        assertSame(bundleContext, context.bundleContext());
+        assertEquals(1, afterSetUpCount.get());
+        assertEquals("plugin", context.getService(Comparable.class));
+        assertNull(context.resourceResolver().getResource("/content/pooled"));
+    }
+}